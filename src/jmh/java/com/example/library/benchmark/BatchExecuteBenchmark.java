@@ -0,0 +1,137 @@
+package com.example.library.benchmark;
+
+import com.example.library.InMemorySqlAdapterClient;
+import com.example.library.config.AuditProperties;
+import com.example.library.config.SlowQueryProperties;
+import com.example.library.config.SqlAdapterProperties;
+import com.example.library.sqladapter.AuditLogWriter;
+import com.example.library.sqladapter.JdbcSqlAdapterClient;
+import com.example.library.sqladapter.SlowQueryDetector;
+import com.example.library.sqladapter.SqlAdapterClient;
+import com.example.library.sqladapter.SqlMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+/**
+ * Inserts {@code rows} loan-shaped rows one statement at a time versus through
+ * {@link SqlAdapterClient#executeBatch}. {@code target=memory} runs against
+ * {@link InMemorySqlAdapterClient}; {@code target=postgres} needs a migrated database in
+ * {@code BENCHMARK_JDBC_URL} (plus {@code BENCHMARK_JDBC_USER} / {@code BENCHMARK_JDBC_PASSWORD})
+ * and writes to a scratch {@code batch_benchmark} table that is dropped afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchExecuteBenchmark {
+  @Param({"memory"})
+  private String target;
+
+  @Param({"100"})
+  private int rows;
+
+  private SqlAdapterClient client;
+  private HikariDataSource dataSource;
+  private AuditLogWriter auditLogWriter;
+  private String insertSql;
+  private List<Map<String, Object>> batch;
+
+  @Setup
+  public void setUp() {
+    String table = "loans";
+    if ("postgres".equals(target)) {
+      client = postgresClient();
+      table = "batch_benchmark";
+      new JdbcTemplate(dataSource).execute(
+          "create table if not exists batch_benchmark (id bigserial primary key, book_id bigint, "
+              + "member_id bigint, borrowed_at timestamp with time zone, due_date timestamp with time zone, "
+              + "returned_at timestamp with time zone)");
+    } else {
+      client = new InMemorySqlAdapterClient();
+    }
+    insertSql = "insert into " + table + " (book_id, member_id, borrowed_at, due_date, returned_at) "
+        + "values (:bookId, :memberId, :borrowedAt, :dueDate, null)";
+    Instant now = Instant.now();
+    batch = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      Map<String, Object> params = new HashMap<>();
+      params.put("bookId", (long) i);
+      params.put("memberId", (long) i);
+      params.put("borrowedAt", now);
+      params.put("dueDate", now.plus(14, ChronoUnit.DAYS));
+      batch.add(params);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (dataSource != null) {
+      new JdbcTemplate(dataSource).execute("drop table if exists batch_benchmark");
+      auditLogWriter.stop();
+      dataSource.close();
+    }
+  }
+
+  @Benchmark
+  public int singleStatements() {
+    int total = 0;
+    for (Map<String, Object> params : batch) {
+      total += client.execute(insertSql, params);
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int[] batched() {
+    return client.executeBatch(insertSql, batch);
+  }
+
+  private SqlAdapterClient postgresClient() {
+    String url = System.getenv("BENCHMARK_JDBC_URL");
+    if (url == null) {
+      throw new IllegalStateException("Set BENCHMARK_JDBC_URL to run with target=postgres");
+    }
+    dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl(url);
+    dataSource.setUsername(System.getenv().getOrDefault("BENCHMARK_JDBC_USER", "postgres"));
+    dataSource.setPassword(System.getenv().getOrDefault("BENCHMARK_JDBC_PASSWORD", "postgres"));
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    auditLogWriter = new AuditLogWriter(jdbcTemplate, new AuditProperties(), new SimpleMeterRegistry());
+    auditLogWriter.start();
+    NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    SqlMetrics sqlMetrics = new SqlMetrics(new SimpleMeterRegistry(), new SqlAdapterProperties());
+    return new JdbcSqlAdapterClient(
+        namedJdbcTemplate,
+        dataSource,
+        new DataSourceTransactionManager(dataSource),
+        new SqlAdapterProperties(),
+        auditLogWriter,
+        sqlMetrics,
+        new SlowQueryDetector(namedJdbcTemplate, new SlowQueryProperties(), sqlMetrics, new SimpleMeterRegistry())
+    );
+  }
+}
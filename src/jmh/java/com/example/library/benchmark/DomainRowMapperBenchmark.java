@@ -0,0 +1,117 @@
+package com.example.library.benchmark;
+
+import com.example.library.MapResultSet;
+import com.example.library.domain.AuditLogEntry;
+import com.example.library.domain.Book;
+import com.example.library.domain.Loan;
+import com.example.library.domain.Member;
+import com.example.library.domain.Reservation;
+import com.example.library.service.AuditLogRowMapper;
+import com.example.library.service.BookRowMapper;
+import com.example.library.service.LoanRowMapper;
+import com.example.library.service.MemberRowMapper;
+import com.example.library.service.ReservationRowMapper;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+
+/**
+ * Row-to-domain mapping for each service's row mapper over an in-memory result set, so changes to
+ * the mappers or {@code ColumnIndexRowMapper} show up without a database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DomainRowMapperBenchmark {
+  private static final Instant NOW = Instant.parse("2026-02-01T10:00:00Z");
+
+  @Param({"10000"})
+  private int rows;
+
+  private List<Map<String, Object>> books;
+  private List<Map<String, Object>> members;
+  private List<Map<String, Object>> loans;
+  private List<Map<String, Object>> reservations;
+  private List<Map<String, Object>> auditLogs;
+
+  @Setup
+  public void setUp() {
+    books = rows(i -> Map.of(
+        "id", (long) i, "title", "Title " + i, "author", "Author " + i, "isbn", "isbn-" + i,
+        "total_copies", 5, "available_copies", 3));
+    members = rows(i -> Map.of(
+        "id", (long) i, "name", "Member " + i, "email", "member" + i + "@example.com", "role_id", 3L));
+    loans = rows(i -> {
+      Map<String, Object> row = new HashMap<>(Map.of(
+          "id", (long) i, "book_id", (long) (i % 100), "member_id", (long) (i % 1000),
+          "borrowed_at", NOW, "due_date", NOW.plusSeconds(14 * 86400)));
+      row.put("returned_at", i % 2 == 0 ? NOW.plusSeconds(86400) : null);
+      return row;
+    });
+    reservations = rows(i -> {
+      Map<String, Object> row = new HashMap<>(Map.of(
+          "id", (long) i, "book_id", (long) (i % 100), "member_id", (long) (i % 1000),
+          "role_name", "MEMBER", "status", "PENDING", "created_at", NOW));
+      row.put("fulfilled_at", null);
+      row.put("canceled_at", null);
+      return row;
+    });
+    auditLogs = rows(i -> Map.of(
+        "id", (long) i, "user_name", "admin@example.com",
+        "sql_text", "select id, title from books where id = :id", "executed_at", NOW,
+        "rows_affected", 1, "success", true, "error_message", ""));
+  }
+
+  @Benchmark
+  public List<Book> books() throws SQLException {
+    return new RowMapperResultSetExtractor<>(new BookRowMapper()).extractData(MapResultSet.of(books));
+  }
+
+  @Benchmark
+  public List<Member> members() throws SQLException {
+    return new RowMapperResultSetExtractor<>(new MemberRowMapper()).extractData(MapResultSet.of(members));
+  }
+
+  @Benchmark
+  public List<Loan> loans() throws SQLException {
+    return new RowMapperResultSetExtractor<>(new LoanRowMapper()).extractData(MapResultSet.of(loans));
+  }
+
+  @Benchmark
+  public List<Reservation> reservations() throws SQLException {
+    return new RowMapperResultSetExtractor<>(new ReservationRowMapper()).extractData(MapResultSet.of(reservations));
+  }
+
+  @Benchmark
+  public List<AuditLogEntry> auditLogs() throws SQLException {
+    return new RowMapperResultSetExtractor<>(new AuditLogRowMapper()).extractData(MapResultSet.of(auditLogs));
+  }
+
+  private List<Map<String, Object>> rows(IntFunction<Map<String, Object>> row) {
+    List<Map<String, Object>> result = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      result.add(new HashMap<>(row.apply(i)));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,74 @@
+package com.example.library.benchmark;
+
+import com.example.library.service.BorrowOutcome;
+import com.example.library.service.BorrowRejectedException;
+import com.example.library.service.NotFoundException;
+import com.example.library.web.ApiExceptionHandler;
+import com.example.library.web.dto.BookRequest;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+/**
+ * Error body construction in {@link ApiExceptionHandler} for the common 404, 400 and validation
+ * responses. Exceptions are built once; only the handler is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorResponseBenchmark {
+  private ApiExceptionHandler handler;
+  private NotFoundException notFound;
+  private BorrowRejectedException borrowRejected;
+  private MethodArgumentNotValidException invalid;
+
+  @Setup
+  public void setUp() throws NoSuchMethodException {
+    handler = new ApiExceptionHandler();
+    notFound = new NotFoundException("Book not found");
+    borrowRejected = new BorrowRejectedException(BorrowOutcome.MAX_ACTIVE_LOANS, "Member has too many active loans");
+    BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new Object(), "bookRequest");
+    bindingResult.addError(new FieldError("bookRequest", "title", "must not be blank"));
+    bindingResult.addError(new FieldError("bookRequest", "isbn", "must not be blank"));
+    bindingResult.addError(new FieldError("bookRequest", "totalCopies", "must be greater than or equal to 0"));
+    MethodParameter parameter = new MethodParameter(
+        ErrorResponseBenchmark.class.getDeclaredMethod("accept", BookRequest.class), 0);
+    invalid = new MethodArgumentNotValidException(parameter, bindingResult);
+  }
+
+  @Benchmark
+  public ResponseEntity<Map<String, Object>> notFound() {
+    return handler.handleNotFound(notFound);
+  }
+
+  @Benchmark
+  public ResponseEntity<Map<String, Object>> borrowRejected() {
+    return handler.handleBorrowRejected(borrowRejected);
+  }
+
+  @Benchmark
+  public ResponseEntity<Map<String, Object>> validation() {
+    return handler.handleValidation(invalid);
+  }
+
+  @SuppressWarnings("unused")
+  private static void accept(BookRequest request) {
+  }
+}
@@ -0,0 +1,158 @@
+package com.example.library.benchmark;
+
+import com.example.library.config.AuditProperties;
+import com.example.library.config.BookCacheProperties;
+import com.example.library.config.BorrowingProperties;
+import com.example.library.config.EmbeddedStorageProperties;
+import com.example.library.config.FulfillmentProperties;
+import com.example.library.config.InventoryProperties;
+import com.example.library.config.SlowQueryProperties;
+import com.example.library.config.SqlAdapterProperties;
+import com.example.library.domain.Book;
+import com.example.library.domain.Loan;
+import com.example.library.service.BookCache;
+import com.example.library.service.BookService;
+import com.example.library.service.LoanService;
+import com.example.library.service.ReservationFulfillmentWorker;
+import com.example.library.sqladapter.AuditLogWriter;
+import com.example.library.sqladapter.JdbcSqlAdapterClient;
+import com.example.library.sqladapter.SlowQueryDetector;
+import com.example.library.sqladapter.SqlAdapterClient;
+import com.example.library.sqladapter.SqlMetrics;
+import com.example.library.sqladapter.embedded.EmbeddedSqlAdapterClient;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+/**
+ * Every benchmark thread is a member borrowing and returning copies of the same title, so the
+ * score is borrow + return pairs per second on one hot book. Run it at several thread counts
+ * ({@code -t}) to see how throughput scales with clients; {@code slots=1} keeps all copies in one
+ * row, as before stock slots. {@code target=embedded} runs against the embedded storage engine,
+ * which serializes writers anyway; {@code target=postgres} needs a migrated database in
+ * {@code BENCHMARK_JDBC_URL} (plus {@code BENCHMARK_JDBC_USER} / {@code BENCHMARK_JDBC_PASSWORD})
+ * and leaves the book, members and loans it creates behind.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotBookBenchmark {
+  // Enough that no thread ever finds the title out of stock.
+  private static final int COPIES = 1024;
+
+  @Param({"embedded"})
+  private String target;
+
+  @Param({"1", "8"})
+  private int slots;
+
+  private final AtomicInteger clients = new AtomicInteger();
+  private SqlAdapterClient adapter;
+  private HikariDataSource dataSource;
+  private AuditLogWriter auditLogWriter;
+  private LoanService loanService;
+  private String runId;
+  private long bookId;
+
+  @Setup
+  public void setUp() {
+    adapter = "postgres".equals(target) ? postgresClient() : new EmbeddedSqlAdapterClient(
+        new EmbeddedStorageProperties(), new SqlMetrics(new SimpleMeterRegistry(), new SqlAdapterProperties()));
+    InventoryProperties inventoryProperties = new InventoryProperties();
+    inventoryProperties.setSlotsPerBook(slots);
+    BookCache bookCache = new BookCache(new BookCacheProperties(), new SimpleMeterRegistry());
+    BookService bookService = new BookService(adapter, bookCache, inventoryProperties);
+    BorrowingProperties borrowingProperties = new BorrowingProperties();
+    loanService = new LoanService(borrowingProperties, adapter, bookCache, new ReservationFulfillmentWorker(
+        adapter, bookCache, borrowingProperties, new FulfillmentProperties(), new SimpleMeterRegistry()));
+
+    runId = Long.toString(System.currentTimeMillis(), 36);
+    Book book = new Book();
+    book.setTitle("Hot book");
+    book.setAuthor("Benchmark");
+    book.setIsbn("hot-" + runId + "-" + slots);
+    book.setTotalCopies(COPIES);
+    book.setAvailableCopies(COPIES);
+    bookId = bookService.create(book).getId();
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (dataSource != null) {
+      auditLogWriter.stop();
+      dataSource.close();
+    }
+  }
+
+  @Benchmark
+  public Loan borrowAndReturn(Client client) {
+    Loan loan = loanService.borrow(bookId, client.memberId);
+    return loanService.returnLoan(loan.getId());
+  }
+
+  @State(Scope.Thread)
+  public static class Client {
+    private long memberId;
+
+    @Setup
+    public void setUp(HotBookBenchmark benchmark) {
+      int client = benchmark.clients.incrementAndGet();
+      Map<String, Object> params = new HashMap<>();
+      params.put("name", "Hot book reader " + client);
+      params.put("email", "hot-" + benchmark.runId + "-" + benchmark.slots + "-" + client + "@example.com");
+      params.put("roleId", 3L);
+      memberId = benchmark.adapter.executeReturning(
+          "insert into members (name, email, role_id) values (:name, :email, :roleId) returning id",
+          params,
+          (rs, rowNum) -> rs.getLong(1)
+      ).get(0);
+    }
+  }
+
+  private SqlAdapterClient postgresClient() {
+    String url = System.getenv("BENCHMARK_JDBC_URL");
+    if (url == null) {
+      throw new IllegalStateException("Set BENCHMARK_JDBC_URL to run with target=postgres");
+    }
+    dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl(url);
+    dataSource.setUsername(System.getenv().getOrDefault("BENCHMARK_JDBC_USER", "postgres"));
+    dataSource.setPassword(System.getenv().getOrDefault("BENCHMARK_JDBC_PASSWORD", "postgres"));
+    dataSource.setMaximumPoolSize(64);
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    auditLogWriter = new AuditLogWriter(jdbcTemplate, new AuditProperties(), new SimpleMeterRegistry());
+    auditLogWriter.start();
+    NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    SqlMetrics sqlMetrics = new SqlMetrics(new SimpleMeterRegistry(), new SqlAdapterProperties());
+    return new JdbcSqlAdapterClient(
+        namedJdbcTemplate,
+        dataSource,
+        new DataSourceTransactionManager(dataSource),
+        new SqlAdapterProperties(),
+        auditLogWriter,
+        sqlMetrics,
+        new SlowQueryDetector(namedJdbcTemplate, new SlowQueryProperties(), sqlMetrics, new SimpleMeterRegistry())
+    );
+  }
+}
@@ -0,0 +1,80 @@
+package com.example.library.benchmark;
+
+import com.example.library.security.JwtAuthenticationFilter;
+import com.example.library.security.JwtProperties;
+import com.example.library.security.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Runs a bearer token through {@link JwtAuthenticationFilter} with the verified-token cache on
+ * ({@code verifiedCacheSize=10000}) and off ({@code 0}), plus the original per-request key and
+ * parser construction for reference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+  @Param({"0", "10000"})
+  private long verifiedCacheSize;
+
+  private JwtProperties properties;
+  private JwtAuthenticationFilter filter;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    properties = new JwtProperties();
+    properties.setSecret("benchmark-secret-benchmark-secret-benchmark-secret");
+    properties.setExpiration(Duration.ofHours(1));
+    properties.setVerifiedCacheSize(verifiedCacheSize);
+    JwtService jwtService = new JwtService(properties, new SimpleMeterRegistry());
+    filter = new JwtAuthenticationFilter(jwtService);
+    token = jwtService.generateToken("member@example.com", List.of("ROLE_MEMBER"));
+  }
+
+  @Benchmark
+  public Object filter() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+    request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    Object authentication = SecurityContextHolder.getContext().getAuthentication();
+    SecurityContextHolder.clearContext();
+    return authentication;
+  }
+
+  // What parseToken did before the key and parser were built once.
+  @Benchmark
+  public Claims rebuildKeyAndParser() {
+    return Jwts.parserBuilder()
+        .setSigningKey(Keys.hmacShaKeyFor(properties.getSecret().getBytes(StandardCharsets.UTF_8)))
+        .build()
+        .parseClaimsJws(token)
+        .getBody();
+  }
+}
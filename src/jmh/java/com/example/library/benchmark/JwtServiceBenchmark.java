@@ -0,0 +1,60 @@
+package com.example.library.benchmark;
+
+import com.example.library.security.JwtProperties;
+import com.example.library.security.JwtService;
+import com.example.library.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Token issue and verification cost in {@link JwtService}, with the verified-token cache off so
+ * every call checks the signature. {@link JwtFilterBenchmark} covers the cached filter path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+  private JwtService jwtService;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    JwtProperties properties = new JwtProperties();
+    properties.setSecret("benchmark-secret-benchmark-secret-benchmark-secret");
+    properties.setExpiration(Duration.ofHours(1));
+    properties.setVerifiedCacheSize(0);
+    jwtService = new JwtService(properties, new SimpleMeterRegistry());
+    token = jwtService.generateToken("member@example.com", List.of("ROLE_MEMBER"));
+  }
+
+  @Benchmark
+  public String generate() {
+    return jwtService.generateToken("member@example.com", List.of("ROLE_MEMBER"));
+  }
+
+  @Benchmark
+  public Claims parse() {
+    return jwtService.parseToken(token);
+  }
+
+  @Benchmark
+  public VerifiedToken verify() {
+    return jwtService.verify(token);
+  }
+}
@@ -0,0 +1,129 @@
+package com.example.library.benchmark;
+
+import com.example.library.InMemorySqlAdapterClient;
+import com.example.library.config.BookCacheProperties;
+import com.example.library.config.DeadlineProperties;
+import com.example.library.config.InventoryProperties;
+import com.example.library.config.PaginationProperties;
+import com.example.library.domain.Book;
+import com.example.library.domain.Member;
+import com.example.library.security.JwtProperties;
+import com.example.library.security.RefreshTokenService;
+import com.example.library.service.BookCache;
+import com.example.library.service.BookService;
+import com.example.library.service.MemberService;
+import com.example.library.service.RoleRegistry;
+import com.example.library.web.BookController;
+import com.example.library.web.JsonArrayWriter;
+import com.example.library.web.MemberController;
+import com.example.library.web.Pagination;
+import com.example.library.web.dto.BookResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Unpaged list endpoints end to end below the servlet layer: service read, DTO conversion in the
+ * controller and streamed JSON. {@code serializeBooks} writes the same book DTOs, prebuilt, with a
+ * plain {@link ObjectMapper}; the gap to {@code listBooks} is the controller and streaming overhead.
+ * The book listing is served from the cache; members go through the in-memory adapter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListResponseBenchmark {
+  // Stores passwords as given; hashing is not what these benchmarks measure.
+  private static final PasswordEncoder PLAIN_TEXT = new PasswordEncoder() {
+    @Override
+    public String encode(CharSequence rawPassword) {
+      return rawPassword.toString();
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      return rawPassword.toString().equals(encodedPassword);
+    }
+  };
+
+  @Param({"1000"})
+  private int rows;
+
+  private ObjectMapper objectMapper;
+  private BookController bookController;
+  private MemberController memberController;
+  private List<BookResponse> bookResponses;
+
+  @Setup
+  public void setUp() {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    InMemorySqlAdapterClient adapter = new InMemorySqlAdapterClient();
+    BookService bookService = new BookService(adapter,
+        new BookCache(new BookCacheProperties(), new SimpleMeterRegistry()), new InventoryProperties());
+    RoleRegistry roleRegistry = new RoleRegistry(adapter);
+    MemberService memberService = new MemberService(adapter, PLAIN_TEXT,
+        new RefreshTokenService(adapter, new JwtProperties(), roleRegistry), roleRegistry);
+    for (int i = 0; i < rows; i++) {
+      Book book = new Book();
+      book.setTitle("Title " + i);
+      book.setAuthor("Author " + i);
+      book.setIsbn("isbn-" + i);
+      book.setTotalCopies(5);
+      book.setAvailableCopies(3);
+      bookService.create(book);
+
+      Member member = new Member();
+      member.setName("Member " + i);
+      member.setEmail("member" + i + "@example.com");
+      member.setRoleId(3L);
+      member.setPassword("member-pass");
+      memberService.create(member);
+    }
+    JsonArrayWriter jsonArrayWriter = new JsonArrayWriter(objectMapper, new DeadlineProperties());
+    Pagination pagination = new Pagination(new PaginationProperties());
+    bookController = new BookController(bookService, jsonArrayWriter, pagination);
+    memberController = new MemberController(memberService, jsonArrayWriter, pagination);
+    bookResponses = bookService.list().stream()
+        .map(book -> new BookResponse(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+            book.getTotalCopies(), book.getAvailableCopies()))
+        .toList();
+  }
+
+  @Benchmark
+  public byte[] listBooks() throws IOException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    bookController.list(null, null, new MockHttpServletRequest("GET", "/api/books"), response);
+    return response.getContentAsByteArray();
+  }
+
+  @Benchmark
+  public byte[] serializeBooks() throws IOException {
+    return objectMapper.writeValueAsBytes(bookResponses);
+  }
+
+  @Benchmark
+  public byte[] listMembers() throws IOException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    memberController.list(null, null, new MockHttpServletRequest("GET", "/api/members"), response);
+    return response.getContentAsByteArray();
+  }
+}
@@ -0,0 +1,126 @@
+package com.example.library.benchmark;
+
+import com.example.library.MapResultSet;
+import com.example.library.domain.Book;
+import com.example.library.service.BookRowMapper;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+
+/**
+ * Compares the map-based query path (queryForList + per-column case probing) with the typed
+ * {@link BookRowMapper} path over the same in-memory result set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+  @Param({"10000"})
+  private int rows;
+
+  private List<Map<String, Object>> source;
+
+  @Setup
+  public void setUp() {
+    source = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      Map<String, Object> row = new HashMap<>();
+      row.put("id", (long) i);
+      row.put("title", "Title " + i);
+      row.put("author", "Author " + i);
+      row.put("isbn", "isbn-" + i);
+      row.put("total_copies", 5);
+      row.put("available_copies", 3);
+      source.add(row);
+    }
+  }
+
+  @Benchmark
+  public List<Book> mapBased() throws SQLException {
+    List<Map<String, Object>> maps =
+        new RowMapperResultSetExtractor<>(new ColumnMapRowMapper()).extractData(MapResultSet.of(source));
+    List<Book> books = new ArrayList<>(maps.size());
+    for (Map<String, Object> row : maps) {
+      books.add(mapBook(row));
+    }
+    return books;
+  }
+
+  @Benchmark
+  public List<Book> typed() throws SQLException {
+    return new RowMapperResultSetExtractor<>(new BookRowMapper()).extractData(MapResultSet.of(source));
+  }
+
+  // The mapping the services used before the typed overload existed.
+  private static Book mapBook(Map<String, Object> row) {
+    Book book = new Book();
+    book.setId(toLong(row, "id"));
+    book.setTitle(toString(row, "title"));
+    book.setAuthor(toString(row, "author"));
+    book.setIsbn(toString(row, "isbn"));
+    book.setTotalCopies(toInt(row, "total_copies"));
+    book.setAvailableCopies(toInt(row, "available_copies"));
+    return book;
+  }
+
+  private static Long toLong(Map<String, Object> row, String key) {
+    Object value = getValue(row, key);
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Number number) {
+      return number.longValue();
+    }
+    return Long.parseLong(value.toString());
+  }
+
+  private static int toInt(Map<String, Object> row, String key) {
+    Object value = getValue(row, key);
+    if (value == null) {
+      return 0;
+    }
+    if (value instanceof Number number) {
+      return number.intValue();
+    }
+    return Integer.parseInt(value.toString());
+  }
+
+  private static String toString(Map<String, Object> row, String key) {
+    Object value = getValue(row, key);
+    return value == null ? null : value.toString();
+  }
+
+  private static Object getValue(Map<String, Object> row, String key) {
+    if (row.containsKey(key)) {
+      return row.get(key);
+    }
+    String lower = key.toLowerCase();
+    if (row.containsKey(lower)) {
+      return row.get(lower);
+    }
+    String upper = key.toUpperCase();
+    if (row.containsKey(upper)) {
+      return row.get(upper);
+    }
+    return null;
+  }
+}
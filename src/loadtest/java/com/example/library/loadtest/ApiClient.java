@@ -0,0 +1,126 @@
+package com.example.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thin JSON client for the endpoints the workload drives. Every call is timed into the
+ * {@link EndpointStats} of its route template.
+ */
+final class ApiClient {
+  static final String LOGIN = "POST /auth/login";
+  static final String GET_BOOK = "GET /api/books/{id}";
+  static final String LIST_BOOKS = "GET /api/books?limit";
+  static final String BORROW = "POST /api/loans/borrow";
+  static final String RETURN = "POST /api/loans/{id}/return";
+
+  private final HttpClient httpClient;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final String baseUrl;
+  private final ConcurrentMap<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+  ApiClient(String baseUrl) {
+    this.baseUrl = baseUrl;
+    this.httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+  }
+
+  Map<String, EndpointStats> stats() {
+    return stats;
+  }
+
+  Session login(String email, String password) throws IOException, InterruptedException {
+    Response response = send(LOGIN, "POST", "/auth/login", null, Map.of("username", email, "password", password));
+    if (response.status() != 200) {
+      return null;
+    }
+    String token = response.body().get("token").asText();
+    return new Session(token, expiresAt(token));
+  }
+
+  Response getBook(Session session, long id) throws IOException, InterruptedException {
+    return send(GET_BOOK, "GET", "/api/books/" + id, session, null);
+  }
+
+  Response listBooks(Session session, int limit) throws IOException, InterruptedException {
+    return send(LIST_BOOKS, "GET", "/api/books?limit=" + limit, session, null);
+  }
+
+  Response borrow(Session session, long bookId, long memberId) throws IOException, InterruptedException {
+    return send(BORROW, "POST", "/api/loans/borrow", session, Map.of("bookId", bookId, "memberId", memberId));
+  }
+
+  Response returnLoan(Session session, long loanId) throws IOException, InterruptedException {
+    return send(RETURN, "POST", "/api/loans/" + loanId + "/return", session, null);
+  }
+
+  /**
+   * Untimed call used while seeding data.
+   */
+  Response post(Session session, String path, Object body) throws IOException, InterruptedException {
+    return send(null, "POST", path, session, body);
+  }
+
+  private Response send(String endpoint, String method, String path, Session session, Object body)
+      throws IOException, InterruptedException {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .timeout(Duration.ofSeconds(30))
+        .header("Accept", "application/json");
+    if (session != null) {
+      request.header("Authorization", "Bearer " + session.token());
+    }
+    if (body == null) {
+      request.method(method, HttpRequest.BodyPublishers.noBody());
+    } else {
+      request.header("Content-Type", "application/json");
+      request.method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+    }
+    long started = System.nanoTime();
+    HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    long elapsed = System.nanoTime() - started;
+    if (endpoint != null) {
+      stats.computeIfAbsent(endpoint, key -> new EndpointStats()).record(response.statusCode(), elapsed);
+    }
+    byte[] bytes = response.body();
+    JsonNode json = bytes.length == 0 ? objectMapper.nullNode() : readOrNull(bytes);
+    return new Response(response.statusCode(), json,
+        response.headers().firstValue("Retry-After").map(Long::parseLong).orElse(0L));
+  }
+
+  private JsonNode readOrNull(byte[] bytes) {
+    try {
+      return objectMapper.readTree(bytes);
+    } catch (IOException ex) {
+      return objectMapper.nullNode();
+    }
+  }
+
+  private Instant expiresAt(String token) throws IOException {
+    String[] parts = token.split("\\.");
+    byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+    return Instant.ofEpochSecond(objectMapper.readTree(new String(payload, StandardCharsets.UTF_8)).get("exp").asLong());
+  }
+
+  record Session(String token, Instant expiresAt) {
+  }
+
+  record Response(int status, JsonNode body, long retryAfterSeconds) {
+    boolean ok() {
+      return status >= 200 && status < 300;
+    }
+  }
+}
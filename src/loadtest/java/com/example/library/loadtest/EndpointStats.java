@@ -0,0 +1,40 @@
+package com.example.library.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histogram and status-code counts for one endpoint.
+ */
+final class EndpointStats {
+  private final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+  private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+  void record(int status, long elapsedNanos) {
+    latency.recordValue(Math.min(latency.getHighestTrackableValue(), TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+    statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+  }
+
+  long count() {
+    return latency.getTotalCount();
+  }
+
+  double percentileMillis(double percentile) {
+    return latency.getValueAtPercentile(percentile) / 1000.0;
+  }
+
+  double maxMillis() {
+    return latency.getMaxValue() / 1000.0;
+  }
+
+  Map<Integer, Long> statuses() {
+    Map<Integer, Long> counts = new TreeMap<>();
+    statuses.forEach((status, count) -> counts.put(status, count.sum()));
+    return counts;
+  }
+}
@@ -0,0 +1,149 @@
+package com.example.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives the HTTP API with a library workload and reports throughput and latency percentiles per
+ * endpoint. Without {@code --base-url} the application is started in-process on the in-memory
+ * adapter; with it, any running instance (e.g. one on a local PostgreSQL) is targeted.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--clients=1000 --duration=2m"
+ * </pre>
+ */
+public final class LoadTest {
+  private static final String MEMBER_PASSWORD = "load-test-pass";
+  private static final long MEMBER_ROLE_ID = 3L;
+
+  private LoadTest() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    MemoryTarget memoryTarget = options.baseUrl() == null ? new MemoryTarget() : null;
+    try {
+      String baseUrl = memoryTarget != null ? memoryTarget.baseUrl() : options.baseUrl();
+      run(options, baseUrl);
+    } finally {
+      if (memoryTarget != null) {
+        memoryTarget.close();
+      }
+    }
+  }
+
+  private static void run(LoadTestOptions options, String baseUrl) throws Exception {
+    ApiClient api = new ApiClient(baseUrl);
+    ApiClient.Session admin = api.login(options.adminEmail(), options.adminPassword());
+    if (admin == null) {
+      throw new IllegalStateException("Admin login failed against " + baseUrl);
+    }
+    String runId = Long.toString(System.currentTimeMillis(), 36);
+    System.out.printf("Seeding %d books and %d members at %s%n", options.books(), options.members(), baseUrl);
+    long[] bookIds = seedBooks(api, admin, options.books(), runId);
+    List<VirtualUser.Member> members = seedMembers(api, admin, options.members(), runId);
+
+    Instant startAt = Instant.now();
+    Instant endAt = startAt.plus(options.rampUp()).plus(options.duration());
+    Zipf popularity = new Zipf(bookIds.length, options.zipfExponent());
+    LongAdder reservations = new LongAdder();
+    System.out.printf("Running %d clients for %s after a %s ramp-up%n", options.clients(), options.duration(),
+        options.rampUp());
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < options.clients(); i++) {
+        Instant clientStart = startAt.plusNanos(options.rampUp().toNanos() * i / options.clients());
+        executor.execute(new VirtualUser(api, options, popularity, bookIds, members.get(i % members.size()),
+            clientStart, endAt, reservations));
+      }
+    }
+    report(api, options, Duration.between(startAt, Instant.now()), reservations.sum());
+  }
+
+  private static long[] seedBooks(ApiClient api, ApiClient.Session admin, int count, String runId) throws Exception {
+    long[] ids = new long[count];
+    for (int i = 0; i < count; i++) {
+      int copies = 1 + ThreadLocalRandom.current().nextInt(5);
+      Map<String, Object> book = Map.of(
+          "title", "Load test title " + i, "author", "Author " + (i % 97), "isbn", "lt-" + runId + "-" + i,
+          "totalCopies", copies, "availableCopies", copies);
+      ids[i] = seed(api, admin, "/api/books", book).get("id").asLong();
+    }
+    return ids;
+  }
+
+  private static List<VirtualUser.Member> seedMembers(ApiClient api, ApiClient.Session admin, int count,
+                                                      String runId) throws Exception {
+    List<VirtualUser.Member> members = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String email = "lt-" + runId + "-" + i + "@example.com";
+      Map<String, Object> member = Map.of(
+          "name", "Load member " + i, "email", email, "roleId", MEMBER_ROLE_ID, "password", MEMBER_PASSWORD);
+      long id = seed(api, admin, "/api/members", member).get("id").asLong();
+      members.add(new VirtualUser.Member(id, email, MEMBER_PASSWORD));
+    }
+    return members;
+  }
+
+  private static JsonNode seed(ApiClient api, ApiClient.Session admin, String path, Object body) throws Exception {
+    while (true) {
+      ApiClient.Response response = api.post(admin, path, body);
+      if (response.ok()) {
+        return response.body();
+      }
+      if (response.status() != 503) {
+        throw new IllegalStateException("Seeding " + path + " failed with " + response.status() + ": "
+            + response.body());
+      }
+      Thread.sleep(Duration.ofSeconds(Math.max(1, response.retryAfterSeconds())));
+    }
+  }
+
+  private static void report(ApiClient api, LoadTestOptions options, Duration elapsed, long reservations)
+      throws Exception {
+    double seconds = elapsed.toNanos() / 1e9;
+    Map<String, Object> endpoints = new LinkedHashMap<>();
+    System.out.printf("%n%-28s %9s %9s %9s %9s %9s %9s  %s%n",
+        "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "statuses");
+    for (Map.Entry<String, EndpointStats> entry : new TreeMap<>(api.stats()).entrySet()) {
+      EndpointStats stats = entry.getValue();
+      System.out.printf("%-28s %9d %9.1f %9.2f %9.2f %9.2f %9.2f  %s%n",
+          entry.getKey(), stats.count(), stats.count() / seconds, stats.percentileMillis(50),
+          stats.percentileMillis(95), stats.percentileMillis(99), stats.maxMillis(), stats.statuses());
+      Map<String, Object> row = new LinkedHashMap<>();
+      row.put("requests", stats.count());
+      row.put("throughput", stats.count() / seconds);
+      row.put("p50Millis", stats.percentileMillis(50));
+      row.put("p95Millis", stats.percentileMillis(95));
+      row.put("p99Millis", stats.percentileMillis(99));
+      row.put("maxMillis", stats.maxMillis());
+      row.put("statuses", stats.statuses());
+      endpoints.put(entry.getKey(), row);
+    }
+    System.out.printf("%nReservations created: %d%n", reservations);
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("options", options);
+    report.put("elapsedSeconds", seconds);
+    report.put("reservations", reservations);
+    report.put("endpoints", endpoints);
+    File file = new File(options.report());
+    if (file.getParentFile() != null) {
+      file.getParentFile().mkdirs();
+    }
+    new ObjectMapper().findAndRegisterModules().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+    System.out.println("Report written to " + file.getPath());
+  }
+}
@@ -0,0 +1,67 @@
+package com.example.library.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Command-line options, given as {@code --name=value}.
+ */
+record LoadTestOptions(
+    String baseUrl,
+    int clients,
+    Duration duration,
+    Duration rampUp,
+    int books,
+    int members,
+    double zipfExponent,
+    int browseWeight,
+    int borrowWeight,
+    int listWeight,
+    Duration meanLoanDuration,
+    Duration meanThinkTime,
+    String adminEmail,
+    String adminPassword,
+    String report
+) {
+  static LoadTestOptions parse(String[] args) {
+    Map<String, String> values = new LinkedHashMap<>();
+    for (String arg : args) {
+      for (String token : arg.trim().split("\\s+")) {
+        if (token.startsWith("--") && token.contains("=")) {
+          values.put(token.substring(2, token.indexOf('=')), token.substring(token.indexOf('=') + 1));
+        } else if (!token.isEmpty()) {
+          throw new IllegalArgumentException("Expected --name=value, got " + token);
+        }
+      }
+    }
+    String[] mix = values.getOrDefault("mix", "browse:80,borrow:15,list:5").split(",");
+    Map<String, Integer> weights = new LinkedHashMap<>();
+    for (String entry : mix) {
+      String[] parts = entry.split(":");
+      weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+    }
+    return new LoadTestOptions(
+        values.get("base-url"),
+        Integer.parseInt(values.getOrDefault("clients", "100")),
+        duration(values, "duration", "60s"),
+        duration(values, "ramp-up", "10s"),
+        Integer.parseInt(values.getOrDefault("books", "500")),
+        Integer.parseInt(values.getOrDefault("members", "200")),
+        Double.parseDouble(values.getOrDefault("zipf", "1.1")),
+        weights.getOrDefault("browse", 0),
+        weights.getOrDefault("borrow", 0),
+        weights.getOrDefault("list", 0),
+        duration(values, "loan-duration", "20s"),
+        duration(values, "think-time", "100ms"),
+        values.getOrDefault("admin-email", "admin@example.com"),
+        values.getOrDefault("admin-password", "admin-pass"),
+        values.getOrDefault("report", "target/loadtest-report.json")
+    );
+  }
+
+  private static Duration duration(Map<String, String> values, String name, String defaultValue) {
+    return DurationStyle.detectAndParse(values.getOrDefault(name, defaultValue));
+  }
+}
@@ -0,0 +1,36 @@
+package com.example.library.loadtest;
+
+import com.example.library.LibraryBffApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application in this JVM on a random port with the {@code embedded} storage profile,
+ * so a run measures the HTTP and service layers at memory speed without PostgreSQL.
+ */
+final class MemoryTarget implements AutoCloseable {
+  private final ConfigurableApplicationContext context;
+
+  MemoryTarget() {
+    context = new SpringApplicationBuilder(LibraryBffApplication.class)
+        .web(WebApplicationType.SERVLET)
+        .run(
+            "--spring.profiles.active=embedded",
+            "--server.port=0",
+            "--logging.level.root=warn",
+            "--logging.level.com.example.library.security=warn",
+            "--logging.level.org.springframework.security=warn");
+  }
+
+  String baseUrl() {
+    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+    return "http://localhost:" + port;
+  }
+
+  @Override
+  public void close() {
+    context.close();
+  }
+}
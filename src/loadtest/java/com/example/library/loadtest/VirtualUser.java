@@ -0,0 +1,126 @@
+package com.example.library.loadtest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One simulated member. Logs in whenever its token is about to expire, returns loans once their
+ * sampled loan duration has passed, and otherwise browses, borrows or lists according to the mix.
+ * Borrowing a title with no copies left creates a reservation on the server.
+ */
+final class VirtualUser implements Runnable {
+  private static final Duration RELOGIN_MARGIN = Duration.ofSeconds(5);
+
+  private final ApiClient api;
+  private final LoadTestOptions options;
+  private final Zipf popularity;
+  private final long[] bookIds;
+  private final Member member;
+  private final Instant startAt;
+  private final Instant endAt;
+  private final LongAdder reservations;
+  private final List<Loan> loans = new ArrayList<>();
+  private ApiClient.Session session;
+
+  VirtualUser(ApiClient api, LoadTestOptions options, Zipf popularity, long[] bookIds, Member member,
+              Instant startAt, Instant endAt, LongAdder reservations) {
+    this.api = api;
+    this.options = options;
+    this.popularity = popularity;
+    this.bookIds = bookIds;
+    this.member = member;
+    this.startAt = startAt;
+    this.endAt = endAt;
+    this.reservations = reservations;
+  }
+
+  @Override
+  public void run() {
+    try {
+      sleepUntil(startAt);
+      while (Instant.now().isBefore(endAt)) {
+        if (session == null || Instant.now().isAfter(session.expiresAt().minus(RELOGIN_MARGIN))) {
+          session = api.login(member.email(), member.password());
+          if (session == null) {
+            pause(Duration.ofSeconds(1));
+            continue;
+          }
+        }
+        step();
+        pause(exponential(options.meanThinkTime()));
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (Exception ex) {
+      System.err.println("Virtual user " + member.email() + " stopped: " + ex);
+    }
+  }
+
+  private void step() throws Exception {
+    Loan due = nextDueLoan();
+    if (due != null) {
+      ApiClient.Response response = api.returnLoan(session, due.id());
+      if (response.ok() || response.status() == 400 || response.status() == 404) {
+        loans.remove(due);
+      }
+      return;
+    }
+    long bookId = bookIds[popularity.next()];
+    int total = options.browseWeight() + options.borrowWeight() + options.listWeight();
+    int pick = ThreadLocalRandom.current().nextInt(Math.max(1, total));
+    if (pick < options.browseWeight()) {
+      api.getBook(session, bookId);
+    } else if (pick < options.browseWeight() + options.borrowWeight()) {
+      borrow(bookId);
+    } else {
+      api.listBooks(session, 20);
+    }
+  }
+
+  private void borrow(long bookId) throws Exception {
+    ApiClient.Response response = api.borrow(session, bookId, member.id());
+    if (response.ok()) {
+      Instant dueAt = Instant.now().plus(exponential(options.meanLoanDuration()));
+      loans.add(new Loan(response.body().get("id").asLong(), dueAt));
+    } else if (response.status() == 400 && "RESERVED".equals(response.body().path("reason").asText())) {
+      reservations.increment();
+    }
+  }
+
+  private Loan nextDueLoan() {
+    Instant now = Instant.now();
+    for (Iterator<Loan> it = loans.iterator(); it.hasNext(); ) {
+      Loan loan = it.next();
+      if (!loan.dueAt().isAfter(now)) {
+        return loan;
+      }
+    }
+    return null;
+  }
+
+  private static Duration exponential(Duration mean) {
+    double sample = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * mean.toNanos();
+    return Duration.ofNanos((long) sample);
+  }
+
+  private static void sleepUntil(Instant instant) throws InterruptedException {
+    pause(Duration.between(Instant.now(), instant));
+  }
+
+  private static void pause(Duration duration) throws InterruptedException {
+    if (!duration.isNegative() && !duration.isZero()) {
+      Thread.sleep(duration);
+    }
+  }
+
+  record Member(long id, String email, String password) {
+  }
+
+  private record Loan(long id, Instant dueAt) {
+  }
+}
@@ -0,0 +1,29 @@
+package com.example.library.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples ranks 0..n-1 with probability proportional to 1 / (rank + 1)^exponent, so a handful of
+ * titles take most of the traffic, as on a new-release morning.
+ */
+final class Zipf {
+  private final double[] cumulative;
+
+  Zipf(int n, double exponent) {
+    cumulative = new double[n];
+    double sum = 0;
+    for (int i = 0; i < n; i++) {
+      sum += 1.0 / Math.pow(i + 1, exponent);
+      cumulative[i] = sum;
+    }
+    for (int i = 0; i < n; i++) {
+      cumulative[i] /= sum;
+    }
+  }
+
+  int next() {
+    int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+    return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+  }
+}
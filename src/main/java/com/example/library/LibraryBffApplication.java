@@ -2,8 +2,10 @@ package com.example.library;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class LibraryBffApplication {
   public static void main(String[] args) {
     SpringApplication.run(LibraryBffApplication.class, args);
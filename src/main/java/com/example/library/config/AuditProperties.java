@@ -0,0 +1,56 @@
+package com.example.library.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.audit")
+public class AuditProperties {
+  private int queueCapacity = 10_000;
+  private int flushSize = 500;
+  private Duration flushInterval = Duration.ofSeconds(1);
+  private OverflowPolicy overflowPolicy = OverflowPolicy.SPILL;
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public int getFlushSize() {
+    return flushSize;
+  }
+
+  public void setFlushSize(int flushSize) {
+    this.flushSize = flushSize;
+  }
+
+  public Duration getFlushInterval() {
+    return flushInterval;
+  }
+
+  public void setFlushInterval(Duration flushInterval) {
+    this.flushInterval = flushInterval;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  /**
+   * What to do with an audit record when the queue is full.
+   * BLOCK waits for space, DROP discards the record, SPILL writes it on the caller thread.
+   */
+  public enum OverflowPolicy {
+    BLOCK,
+    DROP,
+    SPILL
+  }
+}
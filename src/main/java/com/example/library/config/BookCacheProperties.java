@@ -0,0 +1,46 @@
+package com.example.library.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.cache.books")
+public class BookCacheProperties {
+  private boolean enabled = true;
+  private long maxSize = 10_000;
+  private Duration ttl = Duration.ofMinutes(5);
+  private int listingMaxSize = 1_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public void setMaxSize(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public Duration getTtl() {
+    return ttl;
+  }
+
+  public void setTtl(Duration ttl) {
+    this.ttl = ttl;
+  }
+
+  public int getListingMaxSize() {
+    return listingMaxSize;
+  }
+
+  public void setListingMaxSize(int listingMaxSize) {
+    this.listingMaxSize = listingMaxSize;
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.library.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.concurrency")
+public class ConcurrencyLimitProperties {
+  private boolean enabled = true;
+  private Duration retryAfter = Duration.ofSeconds(1);
+  /**
+   * How far above the long-run average latency a sample may be before the limit starts to shrink.
+   */
+  private double tolerance = 1.5;
+  private Limit read = new Limit(100, 10, 400);
+  private Limit loan = new Limit(40, 5, 200);
+  private Limit admin = new Limit(10, 2, 50);
+  private Limit auth = new Limit(20, 2, 100);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  public void setRetryAfter(Duration retryAfter) {
+    this.retryAfter = retryAfter;
+  }
+
+  public double getTolerance() {
+    return tolerance;
+  }
+
+  public void setTolerance(double tolerance) {
+    this.tolerance = tolerance;
+  }
+
+  public Limit getRead() {
+    return read;
+  }
+
+  public void setRead(Limit read) {
+    this.read = read;
+  }
+
+  public Limit getLoan() {
+    return loan;
+  }
+
+  public void setLoan(Limit loan) {
+    this.loan = loan;
+  }
+
+  public Limit getAdmin() {
+    return admin;
+  }
+
+  public void setAdmin(Limit admin) {
+    this.admin = admin;
+  }
+
+  public Limit getAuth() {
+    return auth;
+  }
+
+  public void setAuth(Limit auth) {
+    this.auth = auth;
+  }
+
+  public static class Limit {
+    private int initial;
+    private int min;
+    private int max;
+
+    public Limit() {
+    }
+
+    public Limit(int initial, int min, int max) {
+      this.initial = initial;
+      this.min = min;
+      this.max = max;
+    }
+
+    public int getInitial() {
+      return initial;
+    }
+
+    public void setInitial(int initial) {
+      this.initial = initial;
+    }
+
+    public int getMin() {
+      return min;
+    }
+
+    public void setMin(int min) {
+      this.min = min;
+    }
+
+    public int getMax() {
+      return max;
+    }
+
+    public void setMax(int max) {
+      this.max = max;
+    }
+  }
+}
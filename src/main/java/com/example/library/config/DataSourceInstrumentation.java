@@ -0,0 +1,26 @@
+package com.example.library.config;
+
+import com.example.library.sqladapter.ConnectionQuotas;
+import com.example.library.sqladapter.InstrumentedDataSource;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+@Component
+public class DataSourceInstrumentation implements BeanPostProcessor {
+  // Resolved on first checkout; post-processors are created before ordinary beans.
+  private final ObjectProvider<ConnectionQuotas> connectionQuotas;
+
+  public DataSourceInstrumentation(ObjectProvider<ConnectionQuotas> connectionQuotas) {
+    this.connectionQuotas = connectionQuotas;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+      return new InstrumentedDataSource(dataSource, connectionQuotas::getIfAvailable);
+    }
+    return bean;
+  }
+}
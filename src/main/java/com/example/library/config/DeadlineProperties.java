@@ -0,0 +1,55 @@
+package com.example.library.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.deadlines")
+public class DeadlineProperties {
+  private boolean enabled = true;
+  private Duration defaultBudget = Duration.ofSeconds(5);
+  /**
+   * Budget of a streamed listing, counted from when it starts writing rows.
+   */
+  private Duration streamBudget = Duration.ofMinutes(2);
+  /**
+   * Budgets by route, checked in order. Keys are Ant path patterns, optionally prefixed with an HTTP
+   * method, e.g. {@code "GET /api/audit-logs/**"}.
+   */
+  private Map<String, Duration> routes = new LinkedHashMap<>();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getDefaultBudget() {
+    return defaultBudget;
+  }
+
+  public void setDefaultBudget(Duration defaultBudget) {
+    this.defaultBudget = defaultBudget;
+  }
+
+  public Duration getStreamBudget() {
+    return streamBudget;
+  }
+
+  public void setStreamBudget(Duration streamBudget) {
+    this.streamBudget = streamBudget;
+  }
+
+  public Map<String, Duration> getRoutes() {
+    return routes;
+  }
+
+  public void setRoutes(Map<String, Duration> routes) {
+    this.routes = routes;
+  }
+}
@@ -0,0 +1,37 @@
+package com.example.library.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.embedded")
+public class EmbeddedStorageProperties {
+  private Duration lockTimeout = Duration.ofSeconds(5);
+  private int statementCacheSize = 512;
+  private int auditCapacity = 100_000;
+
+  public Duration getLockTimeout() {
+    return lockTimeout;
+  }
+
+  public void setLockTimeout(Duration lockTimeout) {
+    this.lockTimeout = lockTimeout;
+  }
+
+  public int getStatementCacheSize() {
+    return statementCacheSize;
+  }
+
+  public void setStatementCacheSize(int statementCacheSize) {
+    this.statementCacheSize = statementCacheSize;
+  }
+
+  public int getAuditCapacity() {
+    return auditCapacity;
+  }
+
+  public void setAuditCapacity(int auditCapacity) {
+    this.auditCapacity = auditCapacity;
+  }
+}
@@ -0,0 +1,64 @@
+package com.example.library.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.fulfillment")
+public class FulfillmentProperties {
+  private boolean enabled = true;
+  private int workers = 2;
+  private Duration pollInterval = Duration.ofSeconds(1);
+  private int batchSize = 50;
+  private int scanSize = 100;
+  private Duration gaugeInterval = Duration.ofSeconds(30);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getWorkers() {
+    return workers;
+  }
+
+  public void setWorkers(int workers) {
+    this.workers = workers;
+  }
+
+  public Duration getPollInterval() {
+    return pollInterval;
+  }
+
+  public void setPollInterval(Duration pollInterval) {
+    this.pollInterval = pollInterval;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public int getScanSize() {
+    return scanSize;
+  }
+
+  public void setScanSize(int scanSize) {
+    this.scanSize = scanSize;
+  }
+
+  public Duration getGaugeInterval() {
+    return gaugeInterval;
+  }
+
+  public void setGaugeInterval(Duration gaugeInterval) {
+    this.gaugeInterval = gaugeInterval;
+  }
+}
@@ -0,0 +1,18 @@
+package com.example.library.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.inventory")
+public class InventoryProperties {
+  private int slotsPerBook = 8;
+
+  public int getSlotsPerBook() {
+    return slotsPerBook;
+  }
+
+  public void setSlotsPerBook(int slotsPerBook) {
+    this.slotsPerBook = slotsPerBook;
+  }
+}
@@ -0,0 +1,28 @@
+package com.example.library.config;
+
+import com.example.library.sqladapter.DeadlineJdbcTemplate;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.jdbc.JdbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+@EnableConfigurationProperties(JdbcProperties.class)
+@Profile("!embedded")
+public class JdbcTemplateConfig {
+
+  @Bean
+  public JdbcTemplate jdbcTemplate(DataSource dataSource, JdbcProperties properties) {
+    JdbcTemplate jdbcTemplate = new DeadlineJdbcTemplate(dataSource);
+    JdbcProperties.Template template = properties.getTemplate();
+    jdbcTemplate.setFetchSize(template.getFetchSize());
+    jdbcTemplate.setMaxRows(template.getMaxRows());
+    if (template.getQueryTimeout() != null) {
+      jdbcTemplate.setQueryTimeout((int) template.getQueryTimeout().getSeconds());
+    }
+    return jdbcTemplate;
+  }
+}
@@ -0,0 +1,139 @@
+package com.example.library.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.lanes")
+public class LaneProperties {
+  private boolean enabled = true;
+  private Duration queueTimeout = Duration.ofMillis(100);
+  private Duration retryAfter = Duration.ofSeconds(1);
+  private Quota staff = new Quota(40, 10);
+  private Quota member = new Quota(150, 5);
+  private Background background = new Background();
+  private int staffReserve = 3;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getQueueTimeout() {
+    return queueTimeout;
+  }
+
+  public void setQueueTimeout(Duration queueTimeout) {
+    this.queueTimeout = queueTimeout;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  public void setRetryAfter(Duration retryAfter) {
+    this.retryAfter = retryAfter;
+  }
+
+  public Quota getStaff() {
+    return staff;
+  }
+
+  public void setStaff(Quota staff) {
+    this.staff = staff;
+  }
+
+  public Quota getMember() {
+    return member;
+  }
+
+  public void setMember(Quota member) {
+    this.member = member;
+  }
+
+  public Background getBackground() {
+    return background;
+  }
+
+  public void setBackground(Background background) {
+    this.background = background;
+  }
+
+  public int getStaffReserve() {
+    return staffReserve;
+  }
+
+  public void setStaffReserve(int staffReserve) {
+    this.staffReserve = staffReserve;
+  }
+
+  /**
+   * Checks that the connection quotas fit a pool of {@code poolSize}: member and background
+   * connections together must leave {@code staffReserve} connections that only staff can take.
+   */
+  public void validate(int poolSize) {
+    if (staff.getConnections() > poolSize || staffReserve > staff.getConnections()) {
+      throw new IllegalStateException("app.lanes.staff.connections (" + staff.getConnections()
+          + ") must be between app.lanes.staffReserve (" + staffReserve + ") and the pool size (" + poolSize + ")");
+    }
+    if (member.getConnections() + background.getConnections() > poolSize - staffReserve) {
+      throw new IllegalStateException("app.lanes.member.connections (" + member.getConnections()
+          + ") plus app.lanes.background.connections (" + background.getConnections()
+          + ") must leave app.lanes.staffReserve (" + staffReserve + ") of the pool size (" + poolSize + ")");
+    }
+  }
+
+  public static class Quota {
+    private int requests;
+    private int connections;
+
+    public Quota() {
+    }
+
+    public Quota(int requests, int connections) {
+      this.requests = requests;
+      this.connections = connections;
+    }
+
+    public int getRequests() {
+      return requests;
+    }
+
+    public void setRequests(int requests) {
+      this.requests = requests;
+    }
+
+    public int getConnections() {
+      return connections;
+    }
+
+    public void setConnections(int connections) {
+      this.connections = connections;
+    }
+  }
+
+  public static class Background {
+    private int connections = 2;
+    private Duration queueTimeout = Duration.ofSeconds(5);
+
+    public int getConnections() {
+      return connections;
+    }
+
+    public void setConnections(int connections) {
+      this.connections = connections;
+    }
+
+    public Duration getQueueTimeout() {
+      return queueTimeout;
+    }
+
+    public void setQueueTimeout(Duration queueTimeout) {
+      this.queueTimeout = queueTimeout;
+    }
+  }
+}
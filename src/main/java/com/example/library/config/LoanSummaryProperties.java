@@ -0,0 +1,28 @@
+package com.example.library.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.loan-summary")
+public class LoanSummaryProperties {
+  private Duration reconcileInterval = Duration.ofMinutes(15);
+  private int reconcileBatchSize = 500;
+
+  public Duration getReconcileInterval() {
+    return reconcileInterval;
+  }
+
+  public void setReconcileInterval(Duration reconcileInterval) {
+    this.reconcileInterval = reconcileInterval;
+  }
+
+  public int getReconcileBatchSize() {
+    return reconcileBatchSize;
+  }
+
+  public void setReconcileBatchSize(int reconcileBatchSize) {
+    this.reconcileBatchSize = reconcileBatchSize;
+  }
+}
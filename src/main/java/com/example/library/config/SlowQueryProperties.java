@@ -0,0 +1,37 @@
+package com.example.library.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.sql.slow-query")
+public class SlowQueryProperties {
+  private Duration threshold = Duration.ofMillis(500);
+  private int capacity = 100;
+  private double explainSampleRate = 0.1;
+
+  public Duration getThreshold() {
+    return threshold;
+  }
+
+  public void setThreshold(Duration threshold) {
+    this.threshold = threshold;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+  }
+
+  public double getExplainSampleRate() {
+    return explainSampleRate;
+  }
+
+  public void setExplainSampleRate(double explainSampleRate) {
+    this.explainSampleRate = explainSampleRate;
+  }
+}
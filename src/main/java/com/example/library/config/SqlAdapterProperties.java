@@ -0,0 +1,37 @@
+package com.example.library.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+
+@Component
+@ConfigurationProperties(prefix = "app.sql")
+public class SqlAdapterProperties {
+  private int streamFetchSize = 500;
+  private Isolation isolation = Isolation.READ_COMMITTED;
+  private int maxFingerprints = 256;
+
+  public int getStreamFetchSize() {
+    return streamFetchSize;
+  }
+
+  public void setStreamFetchSize(int streamFetchSize) {
+    this.streamFetchSize = streamFetchSize;
+  }
+
+  public Isolation getIsolation() {
+    return isolation;
+  }
+
+  public void setIsolation(Isolation isolation) {
+    this.isolation = isolation;
+  }
+
+  public int getMaxFingerprints() {
+    return maxFingerprints;
+  }
+
+  public void setMaxFingerprints(int maxFingerprints) {
+    this.maxFingerprints = maxFingerprints;
+  }
+}
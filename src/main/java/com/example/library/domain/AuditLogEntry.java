@@ -0,0 +1,75 @@
+package com.example.library.domain;
+
+import java.time.Instant;
+
+public class AuditLogEntry {
+  private Long id;
+
+  private String userName;
+
+  private String sqlText;
+
+  private Instant executedAt;
+
+  private Integer rowsAffected;
+
+  private Boolean success;
+
+  private String errorMessage;
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getUserName() {
+    return userName;
+  }
+
+  public void setUserName(String userName) {
+    this.userName = userName;
+  }
+
+  public String getSqlText() {
+    return sqlText;
+  }
+
+  public void setSqlText(String sqlText) {
+    this.sqlText = sqlText;
+  }
+
+  public Instant getExecutedAt() {
+    return executedAt;
+  }
+
+  public void setExecutedAt(Instant executedAt) {
+    this.executedAt = executedAt;
+  }
+
+  public Integer getRowsAffected() {
+    return rowsAffected;
+  }
+
+  public void setRowsAffected(Integer rowsAffected) {
+    this.rowsAffected = rowsAffected;
+  }
+
+  public Boolean getSuccess() {
+    return success;
+  }
+
+  public void setSuccess(Boolean success) {
+    this.success = success;
+  }
+
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  public void setErrorMessage(String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+}
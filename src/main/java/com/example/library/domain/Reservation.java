@@ -0,0 +1,85 @@
+package com.example.library.domain;
+
+import java.time.Instant;
+
+public class Reservation {
+  private Long id;
+
+  private Long bookId;
+
+  private Long memberId;
+
+  private String roleName;
+
+  private String status;
+
+  private Instant createdAt;
+
+  private Instant fulfilledAt;
+
+  private Instant canceledAt;
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public Long getBookId() {
+    return bookId;
+  }
+
+  public void setBookId(Long bookId) {
+    this.bookId = bookId;
+  }
+
+  public Long getMemberId() {
+    return memberId;
+  }
+
+  public void setMemberId(Long memberId) {
+    this.memberId = memberId;
+  }
+
+  public String getRoleName() {
+    return roleName;
+  }
+
+  public void setRoleName(String roleName) {
+    this.roleName = roleName;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public Instant getFulfilledAt() {
+    return fulfilledAt;
+  }
+
+  public void setFulfilledAt(Instant fulfilledAt) {
+    this.fulfilledAt = fulfilledAt;
+  }
+
+  public Instant getCanceledAt() {
+    return canceledAt;
+  }
+
+  public void setCanceledAt(Instant canceledAt) {
+    this.canceledAt = canceledAt;
+  }
+}
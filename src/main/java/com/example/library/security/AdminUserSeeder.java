@@ -1,6 +1,7 @@
 package com.example.library.security;
 
 import com.example.library.config.AdminUserProperties;
+import com.example.library.service.RoleRegistry;
 import com.example.library.sqladapter.SqlAdapterClient;
 import java.util.HashMap;
 import java.util.List;
@@ -16,13 +17,16 @@ public class AdminUserSeeder implements ApplicationRunner {
   private final SqlAdapterClient sqlAdapterClient;
   private final PasswordEncoder passwordEncoder;
   private final AdminUserProperties adminUserProperties;
+  private final RoleRegistry roleRegistry;
 
   public AdminUserSeeder(SqlAdapterClient sqlAdapterClient,
                          PasswordEncoder passwordEncoder,
-                         AdminUserProperties adminUserProperties) {
+                         AdminUserProperties adminUserProperties,
+                         RoleRegistry roleRegistry) {
     this.sqlAdapterClient = sqlAdapterClient;
     this.passwordEncoder = passwordEncoder;
     this.adminUserProperties = adminUserProperties;
+    this.roleRegistry = roleRegistry;
   }
 
   @Override
@@ -32,7 +36,7 @@ public class AdminUserSeeder implements ApplicationRunner {
           || !StringUtils.hasText(adminUserProperties.getPassword())) {
         return;
       }
-      Long roleId = resolveAdminRoleId();
+      Long roleId = roleRegistry.idOf("ADMIN").orElse(null);
       if (roleId == null) {
         System.err.println("WARNING: ADMIN role missing, skipping admin user seeding");
         return;
@@ -68,21 +72,6 @@ public class AdminUserSeeder implements ApplicationRunner {
     }
   }
 
-  private Long resolveAdminRoleId() {
-    List<Map<String, Object>> rows = sqlAdapterClient.query(
-        "select id from roles where name = :name",
-        Map.of("name", "ADMIN")
-    );
-    if (rows.isEmpty()) {
-      return null;
-    }
-    Object value = rows.get(0).get("id");
-    if (value instanceof Number number) {
-      return number.longValue();
-    }
-    return value == null ? null : Long.parseLong(value.toString());
-  }
-
   private Map<String, Object> findMemberByEmail(String email) {
     List<Map<String, Object>> rows = sqlAdapterClient.query(
         "select id, password_hash from members where email = :email and deleted_at is null",
@@ -1,6 +1,7 @@
 package com.example.library.security;
 
 import jakarta.validation.Valid;
+import java.util.List;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -14,11 +15,14 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthController {
   private final AuthenticationManager authenticationManager;
   private final JwtService jwtService;
+  private final RefreshTokenService refreshTokenService;
 
   public AuthController(AuthenticationManager authenticationManager,
-                        JwtService jwtService) {
+                        JwtService jwtService,
+                        RefreshTokenService refreshTokenService) {
     this.authenticationManager = authenticationManager;
     this.jwtService = jwtService;
+    this.refreshTokenService = refreshTokenService;
   }
 
   @PostMapping("/login")
@@ -27,6 +31,14 @@ public class AuthController {
         new UsernamePasswordAuthenticationToken(request.username(), request.password())
     );
     String token = jwtService.generateToken(authentication);
-    return new AuthResponse(token, "Bearer");
+    String refreshToken = refreshTokenService.issue(authentication.getName());
+    return new AuthResponse(token, "Bearer", refreshToken);
+  }
+
+  @PostMapping("/refresh")
+  public AuthResponse refresh(@Valid @RequestBody RefreshRequest request) {
+    RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.refreshToken());
+    String token = jwtService.generateToken(rotation.email(), List.of("ROLE_" + rotation.roleName()));
+    return new AuthResponse(token, "Bearer", rotation.refreshToken());
   }
 }
@@ -2,5 +2,6 @@ package com.example.library.security;
 
 public record AuthResponse(
     String token,
-    String tokenType
+    String tokenType,
+    String refreshToken
 ) {}
@@ -0,0 +1,109 @@
+package com.example.library.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Runs the delegate encoder on a small dedicated pool so a burst of logins cannot tie up request
+ * threads. When the pool and its queue are full, or a hash does not finish within the timeout, the
+ * call fails fast with {@link PasswordHashingUnavailableException}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+  private final PasswordEncoder delegate;
+  private final PasswordHashingProperties properties;
+  private final ThreadPoolExecutor executor;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+  private final Timer queueWait;
+  private final Counter rejected;
+  private final Counter timedOut;
+
+  public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingProperties properties,
+                                MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.properties = properties;
+    BlockingQueue<Runnable> queue = properties.getQueueCapacity() > 0
+        ? new ArrayBlockingQueue<>(properties.getQueueCapacity())
+        : new SynchronousQueue<>();
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(
+        properties.getThreads(), properties.getThreads(), 0L, TimeUnit.MILLISECONDS, queue,
+        runnable -> {
+          Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy()
+    );
+    this.encodeTimer = Timer.builder("password.hash.latency").tag("operation", "encode").register(meterRegistry);
+    this.matchesTimer = Timer.builder("password.hash.latency").tag("operation", "matches").register(meterRegistry);
+    this.queueWait = Timer.builder("password.hash.queue.wait").register(meterRegistry);
+    this.rejected = Counter.builder("password.hash.rejected").tag("reason", "queue_full").register(meterRegistry);
+    this.timedOut = Counter.builder("password.hash.rejected").tag("reason", "timeout").register(meterRegistry);
+    Gauge.builder("password.hash.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return submit(encodeTimer, () -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return submit(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private <T> T submit(Timer latency, Callable<T> work) {
+    long submittedAt = System.nanoTime();
+    Future<T> future;
+    try {
+      future = executor.submit(() -> {
+        queueWait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        return latency.recordCallable(work);
+      });
+    } catch (RejectedExecutionException ex) {
+      rejected.increment();
+      throw new PasswordHashingUnavailableException("Too many concurrent logins", properties.getRetryAfter());
+    }
+    try {
+      return future.get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException ex) {
+      future.cancel(true);
+      timedOut.increment();
+      throw new PasswordHashingUnavailableException("Password hashing timed out", properties.getRetryAfter());
+    } catch (InterruptedException ex) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new PasswordHashingUnavailableException("Password hashing interrupted", properties.getRetryAfter());
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+}
@@ -1,16 +1,12 @@
 package com.example.library.security;
 
-import io.jsonwebtoken.Claims;
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -35,14 +31,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     String token = header.substring("Bearer ".length());
     try {
-      Claims claims = jwtService.parseToken(token);
-      String subject = claims.getSubject();
-      @SuppressWarnings("unchecked")
-      List<String> roles = claims.get("roles", List.class);
-      List<SimpleGrantedAuthority> authorities = roles == null ? List.of() :
-          roles.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+      VerifiedToken verified = jwtService.verify(token);
       UsernamePasswordAuthenticationToken authentication =
-          new UsernamePasswordAuthenticationToken(subject, null, authorities);
+          new UsernamePasswordAuthenticationToken(verified.subject(), null, verified.authorities());
       SecurityContextHolder.getContext().setAuthentication(authentication);
     } catch (Exception ex) {
       SecurityContextHolder.clearContext();
@@ -9,7 +9,11 @@ import org.springframework.stereotype.Component;
 public class JwtProperties {
   private String secret = "abcde1234567890";
   private Duration expiration = Duration.ofMinutes(2);
+  private Duration refreshExpiration = Duration.ofDays(30);
+  private Duration reuseDetectionWindow = Duration.ofDays(1);
+  private Duration purgeInterval = Duration.ofHours(1);
   private String issuer = "library-bff";
+  private long verifiedCacheSize = 10_000;
 
   public String getSecret() {
     return secret;
@@ -27,6 +31,30 @@ public class JwtProperties {
     this.expiration = expiration;
   }
 
+  public Duration getRefreshExpiration() {
+    return refreshExpiration;
+  }
+
+  public void setRefreshExpiration(Duration refreshExpiration) {
+    this.refreshExpiration = refreshExpiration;
+  }
+
+  public Duration getReuseDetectionWindow() {
+    return reuseDetectionWindow;
+  }
+
+  public void setReuseDetectionWindow(Duration reuseDetectionWindow) {
+    this.reuseDetectionWindow = reuseDetectionWindow;
+  }
+
+  public Duration getPurgeInterval() {
+    return purgeInterval;
+  }
+
+  public void setPurgeInterval(Duration purgeInterval) {
+    this.purgeInterval = purgeInterval;
+  }
+
   public String getIssuer() {
     return issuer;
   }
@@ -34,4 +62,12 @@ public class JwtProperties {
   public void setIssuer(String issuer) {
     this.issuer = issuer;
   }
+
+  public long getVerifiedCacheSize() {
+    return verifiedCacheSize;
+  }
+
+  public void setVerifiedCacheSize(long verifiedCacheSize) {
+    this.verifiedCacheSize = verifiedCacheSize;
+  }
 }
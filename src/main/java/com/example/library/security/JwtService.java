@@ -1,10 +1,17 @@
 package com.example.library.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
 import java.util.List;
@@ -12,14 +19,30 @@ import java.util.stream.Collectors;
 import javax.crypto.SecretKey;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
 @Service
 public class JwtService {
   private final JwtProperties properties;
+  private final SecretKey signingKey;
+  private final JwtParser parser;
+  private final Cache<String, VerifiedToken> verifiedTokens;
 
-  public JwtService(JwtProperties properties) {
+  public JwtService(JwtProperties properties, MeterRegistry meterRegistry) {
     this.properties = properties;
+    this.signingKey = Keys.hmacShaKeyFor(properties.getSecret().getBytes(StandardCharsets.UTF_8));
+    this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    if (properties.getVerifiedCacheSize() > 0) {
+      this.verifiedTokens = Caffeine.newBuilder()
+          .maximumSize(properties.getVerifiedCacheSize())
+          .expireAfter(new UntilTokenExpiry())
+          .recordStats()
+          .build();
+      CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified");
+    } else {
+      this.verifiedTokens = null;
+    }
   }
 
   public String generateToken(Authentication authentication) {
@@ -39,20 +62,58 @@ public class JwtService {
       .setIssuedAt(Date.from(now))
       .setExpiration(Date.from(expiresAt))
       .claim("roles", roles)
-      .signWith(signingKey(), SignatureAlgorithm.HS256)
+      .signWith(signingKey, SignatureAlgorithm.HS256)
       .compact();
     }
 
   public Claims parseToken(String token) {
-    return Jwts.parserBuilder()
-        .setSigningKey(signingKey())
-        .build()
-        .parseClaimsJws(token)
-        .getBody();
+    return parser.parseClaimsJws(token).getBody();
+  }
+
+  /**
+   * Verifies {@code token} and returns its subject and authorities. Tokens that already passed
+   * verification are served from a cache keyed by their SHA-256 digest until they expire.
+   */
+  public VerifiedToken verify(String token) {
+    if (verifiedTokens == null) {
+      return toVerifiedToken(parseToken(token));
+    }
+    String digest = TokenDigests.sha256Hex(token);
+    VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+    if (cached != null) {
+      return cached;
+    }
+    VerifiedToken verified = toVerifiedToken(parseToken(token));
+    verifiedTokens.put(digest, verified);
+    return verified;
+  }
+
+  private static VerifiedToken toVerifiedToken(Claims claims) {
+    @SuppressWarnings("unchecked")
+    List<String> roles = claims.get("roles", List.class);
+    List<SimpleGrantedAuthority> authorities = roles == null ? List.of() :
+        roles.stream().map(SimpleGrantedAuthority::new).toList();
+    Instant expiresAt = claims.getExpiration() == null ? null : claims.getExpiration().toInstant();
+    return new VerifiedToken(claims.getSubject(), authorities, expiresAt);
   }
 
-  private SecretKey signingKey() {
-    byte[] keyBytes = properties.getSecret().getBytes(StandardCharsets.UTF_8);
-    return Keys.hmacShaKeyFor(keyBytes);
+  private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+    @Override
+    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+      if (value.expiresAt() == null) {
+        return 0;
+      }
+      return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
   }
 }
@@ -1,5 +1,6 @@
 package com.example.library.security;
 
+import com.example.library.service.RoleRegistry;
 import com.example.library.sqladapter.SqlAdapterClient;
 import java.util.List;
 import java.util.Map;
@@ -16,32 +17,34 @@ import org.springframework.util.StringUtils;
 public class MemberUserDetailsService implements UserDetailsService {
   private static final Logger log = LoggerFactory.getLogger(MemberUserDetailsService.class);
   private final SqlAdapterClient sqlAdapterClient;
+  private final RoleRegistry roleRegistry;
 
-  public MemberUserDetailsService(SqlAdapterClient sqlAdapterClient) {
+  public MemberUserDetailsService(SqlAdapterClient sqlAdapterClient, RoleRegistry roleRegistry) {
     this.sqlAdapterClient = sqlAdapterClient;
+    this.roleRegistry = roleRegistry;
   }
 
   @Override
   public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
     log.debug("Loading user by email: {}", email);
-    List<Map<String, Object>> rows = sqlAdapterClient.query(
-        "select m.email, m.password_hash, r.name as role_name "
-            + "from members m join roles r on m.role_id = r.id "
-            + "where m.email = :email and m.deleted_at is null",
-        Map.of("email", email)
+    List<Credentials> rows = sqlAdapterClient.query(
+        "select password_hash, role_id from members where email = :email and deleted_at is null",
+        Map.of("email", email),
+        (rs, rowNum) -> {
+          long roleId = rs.getLong("role_id");
+          return new Credentials(rs.getString("password_hash"), rs.wasNull() ? null : roleId);
+        }
     );
     if (rows.isEmpty()) {
       log.warn("User not found: {}", email);
       throw new UsernameNotFoundException("User not found");
     }
-    Map<String, Object> row = rows.get(0);
-    String passwordHash = toString(row, "password_hash");
+    String passwordHash = rows.get(0).passwordHash();
     if (!StringUtils.hasText(passwordHash)) {
       log.warn("User has no password hash: {}", email);
       throw new UsernameNotFoundException("User not found");
     }
-    String roleName = toString(row, "role_name");
-    String role = StringUtils.hasText(roleName) ? roleName : "MEMBER";
+    String role = roleRegistry.nameOf(rows.get(0).roleId()).orElse("MEMBER");
     log.debug("Loaded user {} with role {}", email, role);
 
     return User.withUsername(email)
@@ -50,23 +53,5 @@ public class MemberUserDetailsService implements UserDetailsService {
         .build();
   }
 
-  private static String toString(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    return value == null ? null : value.toString();
-  }
-
-  private static Object getValue(Map<String, Object> row, String key) {
-    if (row.containsKey(key)) {
-      return row.get(key);
-    }
-    String lower = key.toLowerCase();
-    if (row.containsKey(lower)) {
-      return row.get(lower);
-    }
-    String upper = key.toUpperCase();
-    if (row.containsKey(upper)) {
-      return row.get(upper);
-    }
-    return null;
-  }
+  private record Credentials(String passwordHash, Long roleId) {}
 }
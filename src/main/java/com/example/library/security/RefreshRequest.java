@@ -0,0 +1,7 @@
+package com.example.library.security;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshRequest(
+    @NotBlank String refreshToken
+) {}
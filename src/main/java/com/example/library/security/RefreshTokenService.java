@@ -0,0 +1,173 @@
+package com.example.library.security;
+
+import com.example.library.service.RoleRegistry;
+import com.example.library.sqladapter.SqlAdapterClient;
+import com.example.library.sqladapter.SqlStatement;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Issues and rotates opaque refresh tokens. Only the SHA-256 digest of a token is stored, so
+ * exchanging one costs a hash and two indexed statements instead of a BCrypt verify.
+ */
+@Service
+public class RefreshTokenService {
+  private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+  private static final int TOKEN_BYTES = 32;
+
+  private final SqlAdapterClient sqlAdapterClient;
+  private final JwtProperties properties;
+  private final RoleRegistry roleRegistry;
+  private final SecureRandom random = new SecureRandom();
+
+  public RefreshTokenService(SqlAdapterClient sqlAdapterClient, JwtProperties properties,
+                             RoleRegistry roleRegistry) {
+    this.sqlAdapterClient = sqlAdapterClient;
+    this.properties = properties;
+    this.roleRegistry = roleRegistry;
+  }
+
+  public String issue(String email) {
+    String token = newToken();
+    Map<String, Object> params = tokenParams(token);
+    params.put("email", email);
+    int rows = sqlAdapterClient.execute(
+        "insert into refresh_tokens (member_id, token_hash, issued_at, expires_at) "
+            + "select id, :tokenHash, :issuedAt, :expiresAt from members "
+            + "where email = :email and deleted_at is null",
+        params
+    );
+    if (rows <= 0) {
+      throw new BadCredentialsException("Member not found");
+    }
+    return token;
+  }
+
+  /**
+   * Consumes {@code token} and issues its replacement. Presenting a token that was already rotated
+   * or revoked revokes every outstanding token of its member, since it has most likely leaked.
+   */
+  public Rotation rotate(String token) {
+    String tokenHash = TokenDigests.sha256Hex(token);
+    Rotation rotation = sqlAdapterClient.inTransaction(() -> rotateInTransaction(tokenHash));
+    if (rotation == null) {
+      revokeOnReuse(tokenHash);
+      throw new BadCredentialsException("Invalid refresh token");
+    }
+    return rotation;
+  }
+
+  private Rotation rotateInTransaction(String tokenHash) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("tokenHash", tokenHash);
+    params.put("now", Instant.now());
+    List<Long> consumed = sqlAdapterClient.executeReturning(
+        "update refresh_tokens set revoked_at = :now "
+            + "where token_hash = :tokenHash and revoked_at is null and expires_at > :now "
+            + "returning member_id",
+        params,
+        (rs, rowNum) -> rs.getLong(1)
+    );
+    if (consumed.isEmpty()) {
+      return null;
+    }
+
+    Long memberId = consumed.get(0);
+    List<Rotation> members = sqlAdapterClient.query(
+        "select email, role_id from members where id = :memberId and deleted_at is null",
+        Map.of("memberId", memberId),
+        (rs, rowNum) -> {
+          long roleId = rs.getLong("role_id");
+          String roleName = rs.wasNull() ? null : roleRegistry.nameOf(roleId).orElse(null);
+          return new Rotation(rs.getString("email"), roleName == null ? "MEMBER" : roleName, null);
+        }
+    );
+    if (members.isEmpty()) {
+      throw new BadCredentialsException("Invalid refresh token");
+    }
+
+    String replacement = newToken();
+    Map<String, Object> insertParams = tokenParams(replacement);
+    insertParams.put("memberId", memberId);
+    sqlAdapterClient.execute(
+        "insert into refresh_tokens (member_id, token_hash, issued_at, expires_at) "
+            + "select id, :tokenHash, :issuedAt, :expiresAt from members "
+            + "where id = :memberId and deleted_at is null",
+        insertParams
+    );
+    Rotation member = members.get(0);
+    return new Rotation(member.email(), member.roleName(), replacement);
+  }
+
+  public void revokeAll(Long memberId) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("memberId", memberId);
+    params.put("now", Instant.now());
+    sqlAdapterClient.execute(
+        "update refresh_tokens set revoked_at = :now where member_id = :memberId and revoked_at is null",
+        params
+    );
+  }
+
+  @Scheduled(fixedDelayString = "#{@jwtProperties.purgeInterval.toMillis()}",
+      initialDelayString = "#{@jwtProperties.purgeInterval.toMillis()}")
+  public void scheduledPurge() {
+    int purged = purge(Instant.now());
+    if (purged > 0) {
+      log.info("Purged {} refresh tokens", purged);
+    }
+  }
+
+  /**
+   * Deletes tokens that expired before {@code now}, and tokens revoked longer ago than the reuse
+   * detection window. Presenting a purged token is rejected without revoking its member's tokens.
+   * Returns the number of rows deleted.
+   */
+  public int purge(Instant now) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("now", now);
+    params.put("revokedBefore", now.minus(properties.getReuseDetectionWindow()));
+    int[] rows = sqlAdapterClient.executeAll(List.of(
+        new SqlStatement("delete from refresh_tokens where expires_at <= :now", params),
+        new SqlStatement("delete from refresh_tokens where revoked_at <= :revokedBefore", params)
+    ));
+    return rows[0] + rows[1];
+  }
+
+  private void revokeOnReuse(String tokenHash) {
+    List<Long> revoked = sqlAdapterClient.query(
+        "select member_id from refresh_tokens where token_hash = :tokenHash and revoked_at is not null",
+        Map.of("tokenHash", tokenHash),
+        (rs, rowNum) -> rs.getLong(1)
+    );
+    if (!revoked.isEmpty()) {
+      revokeAll(revoked.get(0));
+    }
+  }
+
+  private Map<String, Object> tokenParams(String token) {
+    Instant now = Instant.now();
+    Map<String, Object> params = new HashMap<>();
+    params.put("tokenHash", TokenDigests.sha256Hex(token));
+    params.put("issuedAt", now);
+    params.put("expiresAt", now.plus(properties.getRefreshExpiration()));
+    return params;
+  }
+
+  private String newToken() {
+    byte[] bytes = new byte[TOKEN_BYTES];
+    random.nextBytes(bytes);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  public record Rotation(String email, String roleName, String refreshToken) {}
+}
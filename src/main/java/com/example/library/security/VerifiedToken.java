@@ -0,0 +1,8 @@
+package com.example.library.security;
+
+import java.time.Instant;
+import java.util.List;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+public record VerifiedToken(String subject, List<SimpleGrantedAuthority> authorities, Instant expiresAt) {
+}
@@ -0,0 +1,25 @@
+package com.example.library.service;
+
+import com.example.library.domain.AuditLogEntry;
+import com.example.library.sqladapter.ColumnIndexRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public final class AuditLogRowMapper extends ColumnIndexRowMapper<AuditLogEntry> {
+  public AuditLogRowMapper() {
+    super("id", "user_name", "sql_text", "executed_at", "rows_affected", "success", "error_message");
+  }
+
+  @Override
+  protected AuditLogEntry map(ResultSet rs, int[] columns) throws SQLException {
+    AuditLogEntry entry = new AuditLogEntry();
+    entry.setId(getLong(rs, columns[0]));
+    entry.setUserName(rs.getString(columns[1]));
+    entry.setSqlText(rs.getString(columns[2]));
+    entry.setExecutedAt(getInstant(rs, columns[3]));
+    entry.setRowsAffected(getInteger(rs, columns[4]));
+    entry.setSuccess(getBoolean(rs, columns[5]));
+    entry.setErrorMessage(rs.getString(columns[6]));
+    return entry;
+  }
+}
@@ -1,10 +1,11 @@
 package com.example.library.service;
 
+import com.example.library.domain.AuditLogEntry;
 import com.example.library.sqladapter.SqlAdapterClient;
 import java.time.Instant;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -15,11 +16,16 @@ public class AuditLogService {
     this.sqlAdapterClient = sqlAdapterClient;
   }
 
-  public List<Map<String, Object>> search(String user, Instant from, Instant to) {
+  public void search(String user, Instant from, Instant to, Consumer<AuditLogEntry> consumer) {
+    Map<String, Object> params = new HashMap<>();
+    String sql = searchSql(user, from, to, params);
+    sqlAdapterClient.stream(sql, params, new AuditLogRowMapper(), consumer);
+  }
+
+  private static String searchSql(String user, Instant from, Instant to, Map<String, Object> params) {
     StringBuilder sql = new StringBuilder(
         "select id, user_name, sql_text, executed_at, rows_affected, success, error_message "
             + "from audit_log where 1=1");
-    Map<String, Object> params = new HashMap<>();
 
     if (user != null && !user.isBlank()) {
       sql.append(" and user_name = :user");
@@ -35,6 +41,6 @@ public class AuditLogService {
     }
 
     sql.append(" order by executed_at desc");
-    return sqlAdapterClient.query(sql.toString(), params);
+    return sql.toString();
   }
 }
@@ -0,0 +1,122 @@
+package com.example.library.service;
+
+import com.example.library.config.BookCacheProperties;
+import com.example.library.domain.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of non-deleted books, by id and as the listing of a catalog of at most
+ * {@code listingMaxSize} books. Entries are immutable snapshots and every caller gets its own
+ * {@link Book}. Catalog writers call {@link #invalidate(Long)} after changing a book, and borrows and
+ * returns call {@link #availabilityChanged(Long)}; the TTL bounds staleness from other nodes, and
+ * that of the listing's copy counts.
+ */
+@Component
+public class BookCache {
+  private static final String LISTING_KEY = "all";
+  private static final Listing TOO_LARGE = new Listing(List.of(), false);
+
+  private final boolean enabled;
+  private final int listingMaxSize;
+  private final Cache<Long, Snapshot> books;
+  private final Cache<String, Listing> listing;
+
+  public BookCache(BookCacheProperties properties, MeterRegistry meterRegistry) {
+    this.enabled = properties.isEnabled();
+    this.listingMaxSize = properties.getListingMaxSize();
+    this.books = Caffeine.newBuilder()
+        .maximumSize(properties.getMaxSize())
+        .expireAfterWrite(properties.getTtl())
+        .recordStats()
+        .build();
+    this.listing = Caffeine.newBuilder()
+        .maximumSize(1)
+        .expireAfterWrite(properties.getTtl())
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, books, "books");
+    CaffeineCacheMetrics.monitor(meterRegistry, listing, "books.listing");
+  }
+
+  public Book get(Long id, Function<Long, Book> loader) {
+    if (!enabled) {
+      return loader.apply(id);
+    }
+    return books.get(id, key -> Snapshot.of(loader.apply(key))).toBook();
+  }
+
+  /**
+   * Passes the cached listing to {@code consumer} and returns {@code true}. Returns {@code false},
+   * without calling {@code consumer}, when the cache is off or the catalog is larger than
+   * {@code listingMaxSize}; the caller then reads the listing itself. {@code loader} returns at most
+   * the given number of books, in listing order.
+   */
+  public boolean forEachListed(IntFunction<List<Book>> loader, Consumer<Book> consumer) {
+    if (!enabled || listingMaxSize <= 0) {
+      return false;
+    }
+    Listing cached = listing.get(LISTING_KEY, key -> load(loader));
+    if (!cached.complete()) {
+      return false;
+    }
+    for (Snapshot book : cached.books()) {
+      consumer.accept(book.toBook());
+    }
+    return true;
+  }
+
+  /**
+   * Evicts the book and the listing, after the book was created, edited or deleted.
+   */
+  public void invalidate(Long id) {
+    books.invalidate(id);
+    listing.invalidateAll();
+  }
+
+  /**
+   * Evicts only the book, after a borrow, return or fulfillment changed its available copies. The
+   * listing keeps its counts until the TTL: under borrow traffic, clearing it on every loan would
+   * leave it all but uncached.
+   */
+  public void availabilityChanged(Long id) {
+    books.invalidate(id);
+  }
+
+  private Listing load(IntFunction<List<Book>> loader) {
+    List<Book> loaded = loader.apply(listingMaxSize + 1);
+    if (loaded.size() > listingMaxSize) {
+      // Remember that the catalog is too large until the next catalog write or the TTL.
+      return TOO_LARGE;
+    }
+    return new Listing(loaded.stream().map(Snapshot::of).toList(), true);
+  }
+
+  private record Listing(List<Snapshot> books, boolean complete) {}
+
+  private record Snapshot(Long id, String title, String author, String isbn, int totalCopies,
+                          int availableCopies) {
+    static Snapshot of(Book book) {
+      return new Snapshot(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+          book.getTotalCopies(), book.getAvailableCopies());
+    }
+
+    Book toBook() {
+      Book book = new Book();
+      book.setId(id);
+      book.setTitle(title);
+      book.setAuthor(author);
+      book.setIsbn(isbn);
+      book.setTotalCopies(totalCopies);
+      book.setAvailableCopies(availableCopies);
+      return book;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.example.library.service;
+
+import com.example.library.domain.Book;
+import com.example.library.sqladapter.ColumnIndexRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public final class BookRowMapper extends ColumnIndexRowMapper<Book> {
+  public BookRowMapper() {
+    super("id", "title", "author", "isbn", "total_copies", "available_copies");
+  }
+
+  @Override
+  protected Book map(ResultSet rs, int[] columns) throws SQLException {
+    Book book = new Book();
+    book.setId(getLong(rs, columns[0]));
+    book.setTitle(rs.getString(columns[1]));
+    book.setAuthor(rs.getString(columns[2]));
+    book.setIsbn(rs.getString(columns[3]));
+    book.setTotalCopies(rs.getInt(columns[4]));
+    book.setAvailableCopies(rs.getInt(columns[5]));
+    return book;
+  }
+}
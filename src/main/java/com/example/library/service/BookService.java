@@ -1,42 +1,116 @@
 package com.example.library.service;
 
+import com.example.library.config.InventoryProperties;
 import com.example.library.domain.Book;
 import com.example.library.sqladapter.SqlAdapterClient;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.springframework.stereotype.Service;
 
 @Service
 public class BookService {
+  // Copies are counted in book_stock_slots (see BookStock); readers see their sum.
+  private static final String COLUMNS = "id, title, author, isbn, total_copies, "
+      + "(select sum(available_copies) from book_stock_slots where book_id = books.id) as available_copies";
+
   private final SqlAdapterClient sqlAdapterClient;
+  private final BookCache bookCache;
+  private final BookStock bookStock;
 
-  public BookService(SqlAdapterClient sqlAdapterClient) {
+  public BookService(SqlAdapterClient sqlAdapterClient, BookCache bookCache, InventoryProperties inventoryProperties) {
     this.sqlAdapterClient = sqlAdapterClient;
+    this.bookCache = bookCache;
+    this.bookStock = new BookStock(sqlAdapterClient, inventoryProperties);
   }
 
   public List<Book> list() {
-    List<Map<String, Object>> rows = sqlAdapterClient.query(
-        "select id, title, author, isbn, total_copies, available_copies from books "
-            + "where deleted_at is null order by id",
-        Map.of()
+    List<Book> books = new ArrayList<>();
+    forEach(books::add);
+    return books;
+  }
+
+  /**
+   * Replays the cached listing when the catalog is small enough to be cached, otherwise streams it
+   * from the database.
+   */
+  public void forEach(Consumer<Book> consumer) {
+    if (bookCache.forEachListed(this::loadFirst, consumer)) {
+      return;
+    }
+    sqlAdapterClient.stream(
+        "select " + COLUMNS + " from books where deleted_at is null order by id",
+        Map.of(),
+        new BookRowMapper(),
+        consumer
+    );
+  }
+
+  private List<Book> loadFirst(int limit) {
+    return sqlAdapterClient.query(
+        "select " + COLUMNS + " from books where deleted_at is null order by id limit :limit",
+        Map.of("limit", limit),
+        new BookRowMapper()
+    );
+  }
+
+  public Page<Book> page(String cursor, int limit) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("afterId", cursor == null ? 0L : KeysetCursor.decode(cursor).id());
+    params.put("limit", limit + 1);
+    List<Book> rows = sqlAdapterClient.query(
+        "select " + COLUMNS + " from books where deleted_at is null and id > :afterId order by id limit :limit",
+        params,
+        new BookRowMapper()
     );
-    return rows.stream().map(BookService::mapBook).toList();
+    return Page.of(rows, limit, book -> KeysetCursor.afterId(book.getId()));
   }
 
   public Book get(Long id) {
-    List<Map<String, Object>> rows = sqlAdapterClient.query(
-      "select id, title, author, isbn, total_copies, available_copies from books "
-        + "where id = :id and deleted_at is null",
-        Map.of("id", id)
+    return bookCache.get(id, this::load);
+  }
+
+  private Book load(Long id) {
+    List<Book> rows = sqlAdapterClient.query(
+        "select " + COLUMNS + " from books where id = :id and deleted_at is null",
+        Map.of("id", id),
+        new BookRowMapper()
     );
     if (rows.isEmpty()) {
       throw new NotFoundException("Book not found");
     }
-    return mapBook(rows.get(0));
+    return rows.get(0);
   }
 
   public Book create(Book book) {
+    Book created = sqlAdapterClient.inTransaction(() -> insert(book));
+    bookCache.invalidate(created.getId());
+    return created;
+  }
+
+  public Book update(Long id, Book update) {
+    Book updated = sqlAdapterClient.inTransaction(() -> apply(id, update));
+    bookCache.invalidate(id);
+    return updated;
+  }
+
+  public void delete(Long id) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("id", id);
+    params.put("deletedAt", java.time.Instant.now());
+    int rows = sqlAdapterClient.execute(
+        "update books set deleted_at = :deletedAt where id = :id and deleted_at is null",
+        params
+    );
+    if (rows <= 0) {
+      throw new NotFoundException("Book not found");
+    }
+    bookCache.invalidate(id);
+  }
+
+  private Book insert(Book book) {
     if (book.getAvailableCopies() > book.getTotalCopies()) {
       throw new BusinessRuleException("Available copies cannot exceed total copies");
     }
@@ -48,25 +122,26 @@ public class BookService {
     params.put("author", book.getAuthor());
     params.put("isbn", book.getIsbn());
     params.put("totalCopies", book.getTotalCopies());
-    params.put("availableCopies", book.getAvailableCopies());
 
-    int rows = sqlAdapterClient.execute(
-        "insert into books (title, author, isbn, total_copies, available_copies) "
-            + "values (:title, :author, :isbn, :totalCopies, :availableCopies)",
-        params
+    List<Long> ids = sqlAdapterClient.executeReturning(
+        "insert into books (title, author, isbn, total_copies) "
+            + "values (:title, :author, :isbn, :totalCopies) returning id",
+        params,
+        (rs, rowNum) -> rs.getLong("id")
     );
-    if (rows <= 0) {
+    if (ids.isEmpty()) {
       throw new BusinessRuleException("Book insert failed");
     }
+    bookStock.create(ids.get(0), book.getTotalCopies(), book.getAvailableCopies());
 
-    return getByIsbn(book.getIsbn());
+    return load(ids.get(0));
   }
 
-  public Book update(Long id, Book update) {
+  private Book apply(Long id, Book update) {
     if (update.getAvailableCopies() > update.getTotalCopies()) {
       throw new BusinessRuleException("Available copies cannot exceed total copies");
     }
-    Book existing = get(id);
+    Book existing = load(id);
     if (!existing.getIsbn().equals(update.getIsbn()) && existsByIsbn(update.getIsbn())) {
       throw new BusinessRuleException("ISBN already exists");
     }
@@ -76,102 +151,26 @@ public class BookService {
     params.put("author", update.getAuthor());
     params.put("isbn", update.getIsbn());
     params.put("totalCopies", update.getTotalCopies());
-    params.put("availableCopies", update.getAvailableCopies());
 
     int rows = sqlAdapterClient.execute(
-        "update books set title = :title, author = :author, isbn = :isbn, "
-            + "total_copies = :totalCopies, available_copies = :availableCopies where id = :id",
+        "update books set title = :title, author = :author, isbn = :isbn, total_copies = :totalCopies "
+            + "where id = :id",
         params
     );
     if (rows <= 0) {
       throw new NotFoundException("Book not found");
     }
+    bookStock.adjust(id, update.getTotalCopies(), update.getAvailableCopies());
 
-    return get(id);
-  }
-
-  public void delete(Long id) {
-    Map<String, Object> params = new HashMap<>();
-    params.put("id", id);
-    params.put("deletedAt", java.time.Instant.now());
-    int rows = sqlAdapterClient.execute(
-        "update books set deleted_at = :deletedAt where id = :id and deleted_at is null",
-        params
-    );
-    if (rows <= 0) {
-      throw new NotFoundException("Book not found");
-    }
+    return load(id);
   }
 
   private boolean existsByIsbn(String isbn) {
-    List<Map<String, Object>> rows = sqlAdapterClient.query(
+    List<Long> rows = sqlAdapterClient.query(
         "select id from books where isbn = :isbn",
-        Map.of("isbn", isbn)
+        Map.of("isbn", isbn),
+        (rs, rowNum) -> rs.getLong(1)
     );
     return !rows.isEmpty();
   }
-
-  private Book getByIsbn(String isbn) {
-    List<Map<String, Object>> rows = sqlAdapterClient.query(
-        "select id, title, author, isbn, total_copies, available_copies from books where isbn = :isbn",
-        Map.of("isbn", isbn)
-    );
-    if (rows.isEmpty()) {
-      throw new NotFoundException("Book not found after insert");
-    }
-    return mapBook(rows.get(0));
-  }
-
-  private static Book mapBook(Map<String, Object> row) {
-    Book book = new Book();
-    book.setId(toLong(row, "id"));
-    book.setTitle(toString(row, "title"));
-    book.setAuthor(toString(row, "author"));
-    book.setIsbn(toString(row, "isbn"));
-    book.setTotalCopies(toInt(row, "total_copies"));
-    book.setAvailableCopies(toInt(row, "available_copies"));
-    return book;
-  }
-
-  private static Long toLong(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    if (value == null) {
-      return null;
-    }
-    if (value instanceof Number number) {
-      return number.longValue();
-    }
-    return Long.parseLong(value.toString());
-  }
-
-  private static int toInt(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    if (value == null) {
-      return 0;
-    }
-    if (value instanceof Number number) {
-      return number.intValue();
-    }
-    return Integer.parseInt(value.toString());
-  }
-
-  private static String toString(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    return value == null ? null : value.toString();
-  }
-
-  private static Object getValue(Map<String, Object> row, String key) {
-    if (row.containsKey(key)) {
-      return row.get(key);
-    }
-    String lower = key.toLowerCase();
-    if (row.containsKey(lower)) {
-      return row.get(lower);
-    }
-    String upper = key.toUpperCase();
-    if (row.containsKey(upper)) {
-      return row.get(upper);
-    }
-    return null;
-  }
 }
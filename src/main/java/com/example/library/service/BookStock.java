@@ -0,0 +1,183 @@
+package com.example.library.service;
+
+import com.example.library.config.InventoryProperties;
+import com.example.library.sqladapter.SqlAdapterClient;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the book_stock_slots rows a title's copies are spread over. Borrows and returns each
+ * touch a single slot; only catalogue edits go through here and look at all of them.
+ */
+final class BookStock {
+  private final SqlAdapterClient sqlAdapterClient;
+  private final InventoryProperties inventoryProperties;
+
+  BookStock(SqlAdapterClient sqlAdapterClient, InventoryProperties inventoryProperties) {
+    this.sqlAdapterClient = sqlAdapterClient;
+    this.inventoryProperties = inventoryProperties;
+  }
+
+  void create(long bookId, int totalCopies, int availableCopies) {
+    int slots = slotCount(totalCopies);
+    List<Map<String, Object>> batch = new ArrayList<>(slots);
+    for (int slot = 0; slot < slots; slot++) {
+      batch.add(slotParams(bookId, slot, share(totalCopies, slots, slot), share(availableCopies, slots, slot)));
+    }
+    sqlAdapterClient.executeBatch(
+        "insert into book_stock_slots (book_id, slot, total_copies, available_copies) "
+            + "values (:bookId, :slot, :totalCopies, :availableCopies)",
+        batch
+    );
+  }
+
+  /**
+   * Brings the slots to new totals one copy at a time, with the slots locked in the caller's
+   * transaction. Copies are taken off the shelf from the fullest slots and put back where a slot
+   * has room beyond the copies its active loans will return, and slots are added when the title
+   * grows, so borrows stay spread out and returns still find room in their slot.
+   */
+  void adjust(long bookId, int totalCopies, int availableCopies) {
+    List<Slot> current = sqlAdapterClient.query(
+        "select id, slot, total_copies, available_copies from book_stock_slots "
+            + "where book_id = :bookId order by slot for update",
+        Map.of("bookId", bookId),
+        (rs, rowNum) -> new Slot(rs.getLong("id"), rs.getInt("slot"), rs.getInt("total_copies"),
+            rs.getInt("available_copies"))
+    );
+    List<Integer> loanSlots = sqlAdapterClient.query(
+        "select stock_slot from loans where book_id = :bookId and returned_at is null",
+        Map.of("bookId", bookId),
+        (rs, rowNum) -> {
+          int slot = rs.getInt(1);
+          return rs.wasNull() ? null : slot;
+        }
+    );
+    int slots = Math.max(current.size(), slotCount(totalCopies));
+    int[] total = new int[slots];
+    int[] available = new int[slots];
+    int[] onLoan = new int[slots];
+    for (int i = 0; i < current.size(); i++) {
+      total[i] = current.get(i).totalCopies();
+      available[i] = current.get(i).availableCopies();
+      for (Integer loanSlot : loanSlots) {
+        if (loanSlot != null && loanSlot == current.get(i).slot()) {
+          onLoan[i]++;
+        }
+      }
+    }
+    for (int i = sum(available); i > availableCopies; i--) {
+      available[largest(available)]--;
+    }
+    for (int i = sum(total); i > totalCopies; i--) {
+      total[widestGap(total, available, onLoan)]--;
+    }
+    for (int i = sum(total); i < totalCopies; i++) {
+      total[smallest(total)]++;
+    }
+    for (int i = sum(available); i < availableCopies; i++) {
+      available[widestGap(total, available, onLoan)]++;
+    }
+
+    List<Map<String, Object>> updates = new ArrayList<>();
+    List<Map<String, Object>> inserts = new ArrayList<>();
+    int nextSlot = current.isEmpty() ? 0 : current.get(current.size() - 1).slot() + 1;
+    for (int i = 0; i < slots; i++) {
+      if (i >= current.size()) {
+        inserts.add(slotParams(bookId, nextSlot++, total[i], available[i]));
+        continue;
+      }
+      Slot slot = current.get(i);
+      if (total[i] != slot.totalCopies() || available[i] != slot.availableCopies()) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", slot.id());
+        params.put("totalDelta", total[i] - slot.totalCopies());
+        params.put("availableDelta", available[i] - slot.availableCopies());
+        updates.add(params);
+      }
+    }
+    if (!updates.isEmpty()) {
+      sqlAdapterClient.executeBatch(
+          "update book_stock_slots set total_copies = total_copies + :totalDelta, "
+              + "available_copies = available_copies + :availableDelta where id = :id",
+          updates
+      );
+    }
+    if (!inserts.isEmpty()) {
+      sqlAdapterClient.executeBatch(
+          "insert into book_stock_slots (book_id, slot, total_copies, available_copies) "
+              + "values (:bookId, :slot, :totalCopies, :availableCopies)",
+          inserts
+      );
+    }
+  }
+
+  private int slotCount(int totalCopies) {
+    return Math.max(1, Math.min(inventoryProperties.getSlotsPerBook(), totalCopies));
+  }
+
+  // Spreads copies evenly, the remainder going to the lowest slots. Since available <= total,
+  // every slot's available share is within its total share.
+  private static int share(int copies, int slots, int slot) {
+    return copies / slots + (slot < copies % slots ? 1 : 0);
+  }
+
+  private static int largest(int[] values) {
+    int best = 0;
+    for (int i = 1; i < values.length; i++) {
+      if (values[i] > values[best]) {
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  // Slot with the most room that no active loan is going to return into, or failing that with
+  // the most room at all.
+  private static int widestGap(int[] total, int[] available, int[] onLoan) {
+    int best = 0;
+    int bestFree = Integer.MIN_VALUE;
+    int bestGap = Integer.MIN_VALUE;
+    for (int i = 0; i < total.length; i++) {
+      int gap = total[i] - available[i];
+      int free = Math.max(0, gap - onLoan[i]);
+      if (free > bestFree || (free == bestFree && gap > bestGap)) {
+        best = i;
+        bestFree = free;
+        bestGap = gap;
+      }
+    }
+    return best;
+  }
+
+  private static int smallest(int[] values) {
+    int best = 0;
+    for (int i = 1; i < values.length; i++) {
+      if (values[i] < values[best]) {
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  private static int sum(int[] values) {
+    int total = 0;
+    for (int value : values) {
+      total += value;
+    }
+    return total;
+  }
+
+  private static Map<String, Object> slotParams(long bookId, int slot, int totalCopies, int availableCopies) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("bookId", bookId);
+    params.put("slot", slot);
+    params.put("totalCopies", totalCopies);
+    params.put("availableCopies", availableCopies);
+    return params;
+  }
+
+  private record Slot(long id, int slot, int totalCopies, int availableCopies) {}
+}
@@ -0,0 +1,14 @@
+package com.example.library.service;
+
+/**
+ * Result of a borrow attempt as reported by the borrow_book database function.
+ */
+public enum BorrowOutcome {
+  BORROWED,
+  BOOK_NOT_FOUND,
+  MEMBER_NOT_FOUND,
+  RESERVED,
+  MAX_ACTIVE_LOANS,
+  OVERDUE_LOANS,
+  NO_COPIES
+}
@@ -0,0 +1,14 @@
+package com.example.library.service;
+
+public class BorrowRejectedException extends BusinessRuleException {
+  private final BorrowOutcome outcome;
+
+  public BorrowRejectedException(BorrowOutcome outcome, String message) {
+    super(message);
+    this.outcome = outcome;
+  }
+
+  public BorrowOutcome getOutcome() {
+    return outcome;
+  }
+}
@@ -0,0 +1,53 @@
+package com.example.library.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a page. Lists ordered by id only carry the id; lists ordered by a
+ * timestamp carry the timestamp and the id as a tie-breaker. Clients see it as an opaque token.
+ */
+public record KeysetCursor(Instant position, long id) {
+  private static final String SEPARATOR = "|";
+
+  public static KeysetCursor afterId(long id) {
+    return new KeysetCursor(null, id);
+  }
+
+  public static KeysetCursor after(Instant position, long id) {
+    return new KeysetCursor(position, id);
+  }
+
+  public String encode() {
+    String payload = (position == null ? "" : position.toString()) + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static KeysetCursor decode(String token) {
+    try {
+      String payload = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = payload.lastIndexOf(SEPARATOR);
+      if (separator < 0) {
+        throw new BusinessRuleException("Invalid cursor");
+      }
+      String position = payload.substring(0, separator);
+      long id = Long.parseLong(payload.substring(separator + 1));
+      return new KeysetCursor(position.isEmpty() ? null : Instant.parse(position), id);
+    } catch (IllegalArgumentException | DateTimeParseException ex) {
+      throw new BusinessRuleException("Invalid cursor");
+    }
+  }
+
+  /**
+   * Decodes a cursor for a list ordered by a timestamp; id-only cursors are rejected.
+   */
+  public static KeysetCursor decodePositioned(String token) {
+    KeysetCursor cursor = decode(token);
+    if (cursor.position() == null) {
+      throw new BusinessRuleException("Invalid cursor");
+    }
+    return cursor;
+  }
+}
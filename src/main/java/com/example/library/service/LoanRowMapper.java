@@ -0,0 +1,40 @@
+package com.example.library.service;
+
+import com.example.library.domain.Book;
+import com.example.library.domain.Loan;
+import com.example.library.domain.Member;
+import com.example.library.sqladapter.ColumnIndexRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public final class LoanRowMapper extends ColumnIndexRowMapper<Loan> {
+  public LoanRowMapper() {
+    this("id");
+  }
+
+  /**
+   * For result sets that expose the loan id under another label, e.g. function results.
+   */
+  public LoanRowMapper(String idColumn) {
+    super(idColumn, "book_id", "member_id", "borrowed_at", "due_date", "returned_at");
+  }
+
+  @Override
+  protected Loan map(ResultSet rs, int[] columns) throws SQLException {
+    Loan loan = new Loan();
+    loan.setId(getLong(rs, columns[0]));
+
+    Book book = new Book();
+    book.setId(getLong(rs, columns[1]));
+    loan.setBook(book);
+
+    Member member = new Member();
+    member.setId(getLong(rs, columns[2]));
+    loan.setMember(member);
+
+    loan.setBorrowedAt(getInstant(rs, columns[3]));
+    loan.setDueDate(getInstant(rs, columns[4]));
+    loan.setReturnedAt(getInstant(rs, columns[5]));
+    return loan;
+  }
+}
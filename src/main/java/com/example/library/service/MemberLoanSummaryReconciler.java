@@ -0,0 +1,149 @@
+package com.example.library.service;
+
+import com.example.library.config.LoanSummaryProperties;
+import com.example.library.sqladapter.SqlAdapterClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compares member_loan_summary with the members' active loans, a batch of members at a time, and
+ * rewrites rows that drifted. A suspect row is checked again with the member and summary rows
+ * locked, so borrows and returns in flight are not mistaken for drift.
+ */
+@Component
+public class MemberLoanSummaryReconciler {
+  private static final Logger log = LoggerFactory.getLogger(MemberLoanSummaryReconciler.class);
+  private static final Summary NO_LOANS = new Summary(0, null);
+
+  private final SqlAdapterClient sqlAdapterClient;
+  private final LoanSummaryProperties loanSummaryProperties;
+  private final Counter checked;
+  private final Counter repaired;
+
+  public MemberLoanSummaryReconciler(SqlAdapterClient sqlAdapterClient,
+                                     LoanSummaryProperties loanSummaryProperties,
+                                     MeterRegistry meterRegistry) {
+    this.sqlAdapterClient = sqlAdapterClient;
+    this.loanSummaryProperties = loanSummaryProperties;
+    this.checked = Counter.builder("loan.summary.checked").register(meterRegistry);
+    this.repaired = Counter.builder("loan.summary.repaired").register(meterRegistry);
+  }
+
+  @Scheduled(fixedDelayString = "#{@loanSummaryProperties.reconcileInterval.toMillis()}",
+      initialDelayString = "#{@loanSummaryProperties.reconcileInterval.toMillis()}")
+  public void scheduledReconcile() {
+    reconcile();
+  }
+
+  /**
+   * Returns the number of summary rows that were repaired or created.
+   */
+  public int reconcile() {
+    int repairs = 0;
+    long afterId = 0;
+    while (true) {
+      Map<String, Object> params = new HashMap<>();
+      params.put("afterId", afterId);
+      params.put("limit", loanSummaryProperties.getReconcileBatchSize());
+      List<Long> memberIds = sqlAdapterClient.query(
+          "select id from members where id > :afterId order by id limit :limit",
+          params,
+          (rs, rowNum) -> rs.getLong("id")
+      );
+      if (memberIds.isEmpty()) {
+        break;
+      }
+      Map<String, Object> range = Map.of("first", memberIds.get(0), "last", memberIds.get(memberIds.size() - 1));
+      Map<Long, Summary> expected = new HashMap<>();
+      sqlAdapterClient.query(
+          "select member_id, due_date from loans "
+              + "where member_id >= :first and member_id <= :last and returned_at is null",
+          range,
+          (rs, rowNum) -> Map.entry(rs.getLong("member_id"), instant(rs.getTimestamp("due_date")))
+      ).forEach(loan -> expected.merge(loan.getKey(), new Summary(1, loan.getValue()), Summary::plus));
+      Map<Long, Summary> stored = new HashMap<>();
+      sqlAdapterClient.query(
+          "select member_id, active_loans, earliest_due_date from member_loan_summary "
+              + "where member_id >= :first and member_id <= :last",
+          range,
+          (rs, rowNum) -> Map.entry(rs.getLong("member_id"),
+              new Summary(rs.getInt("active_loans"), instant(rs.getTimestamp("earliest_due_date"))))
+      ).forEach(row -> stored.put(row.getKey(), row.getValue()));
+
+      for (Long memberId : memberIds) {
+        if (!expected.getOrDefault(memberId, NO_LOANS).equals(stored.get(memberId)) && repair(memberId)) {
+          repairs++;
+        }
+      }
+      checked.increment(memberIds.size());
+      afterId = memberIds.get(memberIds.size() - 1);
+    }
+    repaired.increment(repairs);
+    return repairs;
+  }
+
+  private boolean repair(Long memberId) {
+    return sqlAdapterClient.inTransaction(() -> {
+      Map<String, Object> params = new HashMap<>();
+      params.put("memberId", memberId);
+      // borrow_book locks the member row before it reads or creates the summary.
+      sqlAdapterClient.query("select id from members where id = :memberId for update", params,
+          (rs, rowNum) -> rs.getLong("id"));
+      List<Summary> stored = sqlAdapterClient.query(
+          "select active_loans, earliest_due_date from member_loan_summary where member_id = :memberId for update",
+          params,
+          (rs, rowNum) -> new Summary(rs.getInt("active_loans"), instant(rs.getTimestamp("earliest_due_date")))
+      );
+      Summary actual = sqlAdapterClient.query(
+          "select due_date from loans where member_id = :memberId and returned_at is null",
+          params,
+          (rs, rowNum) -> new Summary(1, instant(rs.getTimestamp("due_date")))
+      ).stream().reduce(NO_LOANS, Summary::plus);
+      if (!stored.isEmpty() && stored.get(0).equals(actual)) {
+        return false;
+      }
+
+      params.put("activeLoans", actual.activeLoans());
+      params.put("earliestDueDate", actual.earliestDueDate());
+      if (stored.isEmpty()) {
+        sqlAdapterClient.execute(
+            "insert into member_loan_summary (member_id, active_loans, earliest_due_date) "
+                + "values (:memberId, :activeLoans, :earliestDueDate)",
+            params
+        );
+        log.warn("Created missing loan summary for member {}: {}", memberId, actual);
+      } else {
+        sqlAdapterClient.execute(
+            "update member_loan_summary set active_loans = :activeLoans, earliest_due_date = :earliestDueDate "
+                + "where member_id = :memberId",
+            params
+        );
+        log.warn("Repaired loan summary for member {}: {} -> {}", memberId, stored.get(0), actual);
+      }
+      return true;
+    });
+  }
+
+  private static Instant instant(Timestamp timestamp) {
+    return timestamp == null ? null : timestamp.toInstant();
+  }
+
+  private record Summary(int activeLoans, Instant earliestDueDate) {
+    Summary plus(Summary other) {
+      Instant earliest = earliestDueDate == null
+          || (other.earliestDueDate != null && other.earliestDueDate.isBefore(earliestDueDate))
+          ? other.earliestDueDate : earliestDueDate;
+      return new Summary(activeLoans + other.activeLoans, earliest);
+    }
+  }
+}
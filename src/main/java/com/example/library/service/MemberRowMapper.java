@@ -0,0 +1,22 @@
+package com.example.library.service;
+
+import com.example.library.domain.Member;
+import com.example.library.sqladapter.ColumnIndexRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public final class MemberRowMapper extends ColumnIndexRowMapper<Member> {
+  public MemberRowMapper() {
+    super("id", "name", "email", "role_id");
+  }
+
+  @Override
+  protected Member map(ResultSet rs, int[] columns) throws SQLException {
+    Member member = new Member();
+    member.setId(getLong(rs, columns[0]));
+    member.setName(rs.getString(columns[1]));
+    member.setEmail(rs.getString(columns[2]));
+    member.setRoleId(getLong(rs, columns[3]));
+    return member;
+  }
+}
@@ -1,10 +1,12 @@
 package com.example.library.service;
 
 import com.example.library.domain.Member;
+import com.example.library.security.RefreshTokenService;
 import com.example.library.sqladapter.SqlAdapterClient;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -13,31 +15,51 @@ import org.springframework.util.StringUtils;
 public class MemberService {
   private final SqlAdapterClient sqlAdapterClient;
   private final PasswordEncoder passwordEncoder;
+  private final RefreshTokenService refreshTokenService;
+  private final RoleRegistry roleRegistry;
 
-  public MemberService(SqlAdapterClient sqlAdapterClient, PasswordEncoder passwordEncoder) {
+  public MemberService(SqlAdapterClient sqlAdapterClient, PasswordEncoder passwordEncoder,
+                       RefreshTokenService refreshTokenService, RoleRegistry roleRegistry) {
     this.sqlAdapterClient = sqlAdapterClient;
     this.passwordEncoder = passwordEncoder;
+    this.refreshTokenService = refreshTokenService;
+    this.roleRegistry = roleRegistry;
   }
 
-  public List<Member> list() {
-    List<Map<String, Object>> rows = sqlAdapterClient.query(
+  public void forEach(Consumer<Member> consumer) {
+    sqlAdapterClient.stream(
         "select id, name, email, role_id from members "
             + "where deleted_at is null order by id",
-        Map.of()
+        Map.of(),
+        new MemberRowMapper(),
+        consumer
     );
-    return rows.stream().map(MemberService::mapMember).toList();
+  }
+
+  public Page<Member> page(String cursor, int limit) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("afterId", cursor == null ? 0L : KeysetCursor.decode(cursor).id());
+    params.put("limit", limit + 1);
+    List<Member> rows = sqlAdapterClient.query(
+        "select id, name, email, role_id from members "
+            + "where deleted_at is null and id > :afterId order by id limit :limit",
+        params,
+        new MemberRowMapper()
+    );
+    return Page.of(rows, limit, member -> KeysetCursor.afterId(member.getId()));
   }
 
   public Member get(Long id) {
-    List<Map<String, Object>> rows = sqlAdapterClient.query(
+    List<Member> rows = sqlAdapterClient.query(
       "select id, name, email, role_id from members "
         + "where id = :id and deleted_at is null",
-        Map.of("id", id)
+        Map.of("id", id),
+        new MemberRowMapper()
     );
     if (rows.isEmpty()) {
       throw new NotFoundException("Member not found");
     }
-    return mapMember(rows.get(0));
+    return rows.get(0);
   }
 
   public Member create(Member member) {
@@ -52,16 +74,18 @@ public class MemberService {
     params.put("roleId", roleId);
     params.put("passwordHash", passwordHash);
 
-    int rows = sqlAdapterClient.execute(
+    List<Member> rows = sqlAdapterClient.executeReturning(
       "insert into members (name, email, role_id, password_hash) "
-        + "values (:name, :email, :roleId, :passwordHash)",
-        params
+        + "values (:name, :email, :roleId, :passwordHash) "
+        + "returning id, name, email, role_id",
+        params,
+        new MemberRowMapper()
     );
-    if (rows <= 0) {
+    if (rows.isEmpty()) {
       throw new BusinessRuleException("Member insert failed");
     }
 
-    return getByEmail(member.getEmail());
+    return rows.get(0);
   }
 
   public Member update(Long id, Member update) {
@@ -77,74 +101,65 @@ public class MemberService {
     params.put("roleId", roleId);
     String newPasswordHash = hashIfPresent(update.getPassword());
 
-    int rows;
-    if (newPasswordHash != null) {
-      params.put("passwordHash", newPasswordHash);
-      rows = sqlAdapterClient.execute(
-        "update members set name = :name, email = :email, role_id = :roleId, "
-          + "password_hash = :passwordHash where id = :id",
-        params
-      );
-    } else {
-      rows = sqlAdapterClient.execute(
-        "update members set name = :name, email = :email, role_id = :roleId where id = :id",
-        params
-      );
-    }
-    if (rows <= 0) {
-      throw new NotFoundException("Member not found");
-    }
-
-    return get(id);
+    // Hashing stays outside the transaction so no connection is held during BCrypt.
+    Member updated = sqlAdapterClient.inTransaction(() -> {
+      int rows;
+      if (newPasswordHash != null) {
+        params.put("passwordHash", newPasswordHash);
+        rows = sqlAdapterClient.execute(
+          "update members set name = :name, email = :email, role_id = :roleId, "
+            + "password_hash = :passwordHash where id = :id",
+          params
+        );
+      } else {
+        rows = sqlAdapterClient.execute(
+          "update members set name = :name, email = :email, role_id = :roleId where id = :id",
+          params
+        );
+      }
+      if (rows <= 0) {
+        throw new NotFoundException("Member not found");
+      }
+      if (newPasswordHash != null) {
+        refreshTokenService.revokeAll(id);
+      }
+      return get(id);
+    });
+
+    return updated;
   }
 
   public void delete(Long id) {
     Map<String, Object> params = new HashMap<>();
     params.put("id", id);
     params.put("deletedAt", java.time.Instant.now());
-    int rows = sqlAdapterClient.execute(
-        "update members set deleted_at = :deletedAt where id = :id and deleted_at is null",
-        params
-    );
-    if (rows <= 0) {
-      throw new NotFoundException("Member not found");
-    }
+    sqlAdapterClient.inTransaction(() -> {
+      int rows = sqlAdapterClient.execute(
+          "update members set deleted_at = :deletedAt where id = :id and deleted_at is null",
+          params
+      );
+      if (rows <= 0) {
+        throw new NotFoundException("Member not found");
+      }
+      refreshTokenService.revokeAll(id);
+      return null;
+    });
   }
 
   private boolean existsByEmail(String email) {
-    List<Map<String, Object>> rows = sqlAdapterClient.query(
+    List<Long> rows = sqlAdapterClient.query(
         "select id from members where email = :email and deleted_at is null",
-        Map.of("email", email)
+        Map.of("email", email),
+        (rs, rowNum) -> rs.getLong(1)
     );
     return !rows.isEmpty();
   }
 
-  private Member getByEmail(String email) {
-    List<Map<String, Object>> rows = sqlAdapterClient.query(
-      "select id, name, email, role_id from members "
-        + "where email = :email and deleted_at is null",
-        Map.of("email", email)
-    );
-    if (rows.isEmpty()) {
-      throw new NotFoundException("Member not found after insert");
-    }
-    return mapMember(rows.get(0));
-  }
-
-  private static Member mapMember(Map<String, Object> row) {
-    Member member = new Member();
-    member.setId(toLong(row, "id"));
-    member.setName(toString(row, "name"));
-    member.setEmail(toString(row, "email"));
-    member.setRoleId(toLong(row, "role_id"));
-    return member;
-  }
-
   private Long requireRoleId(Long roleId) {
     if (roleId == null) {
       throw new BusinessRuleException("roleId is required");
     }
-    if (!roleExists(roleId)) {
+    if (!roleRegistry.exists(roleId)) {
       throw new BusinessRuleException("Role not found");
     }
     return roleId;
@@ -163,43 +178,4 @@ public class MemberService {
     }
     return passwordEncoder.encode(rawPassword);
   }
-
-  private boolean roleExists(Long roleId) {
-    List<Map<String, Object>> rows = sqlAdapterClient.query(
-        "select id from roles where id = :id",
-        Map.of("id", roleId)
-    );
-    return !rows.isEmpty();
-  }
-
-  private static Long toLong(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    if (value == null) {
-      return null;
-    }
-    if (value instanceof Number number) {
-      return number.longValue();
-    }
-    return Long.parseLong(value.toString());
-  }
-
-  private static String toString(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    return value == null ? null : value.toString();
-  }
-
-  private static Object getValue(Map<String, Object> row, String key) {
-    if (row.containsKey(key)) {
-      return row.get(key);
-    }
-    String lower = key.toLowerCase();
-    if (row.containsKey(lower)) {
-      return row.get(lower);
-    }
-    String upper = key.toUpperCase();
-    if (row.containsKey(upper)) {
-      return row.get(upper);
-    }
-    return null;
-  }
 }
@@ -0,0 +1,22 @@
+package com.example.library.service;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is null on the last page.
+ */
+public record Page<T>(List<T> items, String nextCursor) {
+
+  /**
+   * Builds a page from a query that fetched up to {@code limit + 1} rows; the extra row only signals
+   * that another page exists.
+   */
+  public static <T> Page<T> of(List<T> rows, int limit, Function<T, KeysetCursor> cursorOf) {
+    if (rows.size() <= limit) {
+      return new Page<>(rows, null);
+    }
+    List<T> items = rows.subList(0, limit);
+    return new Page<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+  }
+}
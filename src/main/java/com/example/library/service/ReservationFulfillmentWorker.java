@@ -0,0 +1,364 @@
+package com.example.library.service;
+
+import com.example.library.config.BorrowingProperties;
+import com.example.library.config.FulfillmentProperties;
+import com.example.library.domain.Reservation;
+import com.example.library.sqladapter.SqlAdapterClient;
+import com.example.library.sqladapter.SqlStatement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands copies on the shelf to pending reservations, off the return path. Each worker thread
+ * claims one book at a time by locking its row with {@code skip locked}, so workers on this and
+ * other nodes never process the same book at once, and fulfils that book's reservations in
+ * priority order, one batch per transaction.
+ */
+@Component
+public class ReservationFulfillmentWorker implements SmartLifecycle, EnvironmentAware {
+  private static final Logger log = LoggerFactory.getLogger(ReservationFulfillmentWorker.class);
+  private static final RowMapper<Slot> SLOT_MAPPER = (rs, rowNum) -> new Slot(rs.getLong("id"), rs.getInt("slot"),
+      rs.getInt("available_copies"), instant(rs.getTimestamp("restocked_at")));
+
+  private final SqlAdapterClient sqlAdapterClient;
+  private final BookCache bookCache;
+  private final BorrowingProperties borrowingProperties;
+  private final FulfillmentProperties properties;
+  private final AtomicLong pending = new AtomicLong();
+  private final AtomicReference<Instant> oldestPending = new AtomicReference<>();
+  private final Counter fulfilled;
+  private final Timer lag;
+  private final List<Thread> workers = new ArrayList<>();
+
+  private volatile boolean running;
+  private boolean virtualThreads;
+
+  public ReservationFulfillmentWorker(SqlAdapterClient sqlAdapterClient,
+                                     BookCache bookCache,
+                                     BorrowingProperties borrowingProperties,
+                                     FulfillmentProperties properties,
+                                     MeterRegistry meterRegistry) {
+    this.sqlAdapterClient = sqlAdapterClient;
+    this.bookCache = bookCache;
+    this.borrowingProperties = borrowingProperties;
+    this.properties = properties;
+    Gauge.builder("reservations.pending", pending, AtomicLong::get)
+        .description("Pending reservations, as of the last gauge refresh")
+        .register(meterRegistry);
+    TimeGauge.builder("reservations.pending.oldest", oldestPending, TimeUnit.MILLISECONDS, oldest -> {
+          Instant since = oldest.get();
+          return since == null ? 0 : Math.max(0, Duration.between(since, Instant.now()).toMillis());
+        })
+        .description("Age of the oldest pending reservation, as of the last gauge refresh")
+        .register(meterRegistry);
+    this.fulfilled = Counter.builder("reservations.fulfilled").register(meterRegistry);
+    this.lag = Timer.builder("reservations.fulfillment.lag")
+        .description("Time from a copy being checked in, or the reservation if later, to its fulfillment")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void setEnvironment(Environment environment) {
+    this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+  }
+
+  @Override
+  public void start() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    running = true;
+    for (int i = 1; i <= Math.max(1, properties.getWorkers()); i++) {
+      String name = "reservation-fulfillment-" + i;
+      Thread worker = virtualThreads
+          ? Thread.ofVirtual().name(name).unstarted(this::workLoop)
+          : Thread.ofPlatform().name(name).daemon(true).unstarted(this::workLoop);
+      workers.add(worker);
+      worker.start();
+    }
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    for (Thread worker : workers) {
+      worker.interrupt();
+    }
+    for (Thread worker : workers) {
+      try {
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    workers.clear();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Fulfils reservations until no book has both pending reservations and a copy on the shelf, or
+   * every such book is claimed by another worker. Returns the number of reservations fulfilled.
+   */
+  public int fulfillPending() {
+    int total = 0;
+    int batch;
+    while ((batch = fulfillNext()) > 0) {
+      total += batch;
+    }
+    return total;
+  }
+
+  /**
+   * Fulfils the pending reservations of {@code bookId} in the calling thread, while copies and
+   * reservations last. Loans and returns call it when no workers run on this node, so copies held
+   * for the queue are still handed out. Returns the number fulfilled.
+   */
+  public int fulfillNow(Long bookId) {
+    int total = 0;
+    int batch;
+    while ((batch = sqlAdapterClient.inTransaction(() -> fulfillBook(bookId))) > 0) {
+      total += batch;
+    }
+    if (total > 0) {
+      bookCache.availabilityChanged(bookId);
+    }
+    return total;
+  }
+
+  private void workLoop() {
+    long pollMillis = Math.max(1L, properties.getPollInterval().toMillis());
+    while (running) {
+      try {
+        if (fulfillNext() == 0) {
+          Thread.sleep(pollMillis);
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException ex) {
+        log.warn("Reservation fulfillment failed: {}", ex.getMessage());
+        try {
+          Thread.sleep(pollMillis);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Refreshes the queue gauges. Kept off the worker loop, which polls far more often than the
+   * gauges need.
+   */
+  // @Scheduled only parses ISO-8601 durations; FulfillmentProperties also accepts values such as 30s.
+  @Scheduled(fixedDelayString = "#{@fulfillmentProperties.gaugeInterval.toMillis()}")
+  public void refreshQueueGauges() {
+    QueueDepth queue = sqlAdapterClient.poll(
+        "select count(*) as pending, min(created_at) as oldest from reservations where status = 'PENDING'",
+        Map.of(),
+        (rs, rowNum) -> new QueueDepth(rs.getLong("pending"), instant(rs.getObject("oldest")))
+    ).get(0);
+    pending.set(queue.pending());
+    oldestPending.set(queue.oldest());
+  }
+
+  /**
+   * Works one batch of the book with the oldest fulfillable reservation that no other worker holds.
+   * Returns the number fulfilled, 0 when there was nothing to do. The scan is not audited, so an
+   * idle queue costs one indexed read per poll and leaves no trace in the audit log.
+   */
+  private int fulfillNext() {
+    Set<Long> bookIds = new LinkedHashSet<>(sqlAdapterClient.poll(
+        "select book_id from reservations where status = 'PENDING' "
+            + "and exists (select 1 from book_stock_slots "
+            + "where book_id = reservations.book_id and available_copies > 0) "
+            + "order by created_at limit :limit",
+        Map.of("limit", properties.getScanSize()),
+        (rs, rowNum) -> rs.getLong("book_id")
+    ));
+    for (Long bookId : bookIds) {
+      int count = sqlAdapterClient.inTransaction(() -> fulfillBook(bookId));
+      if (count > 0) {
+        bookCache.availabilityChanged(bookId);
+        return count;
+      }
+    }
+    return 0;
+  }
+
+  private int fulfillBook(Long bookId) {
+    Map<String, Object> bookParams = Map.of("bookId", bookId);
+    List<Long> claimed = sqlAdapterClient.query(
+        "select id from books where id = :bookId and deleted_at is null for update skip locked",
+        bookParams,
+        (rs, rowNum) -> rs.getLong("id")
+    );
+    if (claimed.isEmpty()) {
+      return 0;
+    }
+    List<Slot> candidates = sqlAdapterClient.query(
+        "select id, slot, available_copies, restocked_at from book_stock_slots "
+            + "where book_id = :bookId and available_copies > 0 order by available_copies desc, slot",
+        bookParams,
+        SLOT_MAPPER
+    );
+    int copies = candidates.stream().mapToInt(Slot::availableCopies).sum();
+    if (copies == 0) {
+      return 0;
+    }
+
+    Map<String, Object> pendingParams = new HashMap<>();
+    pendingParams.put("bookId", bookId);
+    pendingParams.put("limit", Math.min(copies, Math.max(1, properties.getBatchSize())));
+    // Reservations being canceled right now are skipped rather than waited for.
+    List<Reservation> pending = sqlAdapterClient.query(
+        "select id, book_id, member_id, role_name, status, created_at, fulfilled_at, canceled_at "
+            + "from reservations where book_id = :bookId and status = 'PENDING' "
+            + "order by case role_name when 'ADMIN' then 1 when 'LIBRARIAN' then 2 else 3 end, created_at asc "
+            + "limit :limit for update skip locked",
+        pendingParams,
+        new ReservationRowMapper()
+    );
+
+    // Only the slots the batch draws from are locked, fullest first, and slots a borrow holds are
+    // skipped, so borrows of the title keep going on the other slots meanwhile.
+    List<Slot> slots = new ArrayList<>();
+    int locked = 0;
+    for (Slot candidate : candidates) {
+      if (locked >= pending.size()) {
+        break;
+      }
+      List<Slot> slot = sqlAdapterClient.query(
+          "select id, slot, available_copies, restocked_at from book_stock_slots "
+              + "where id = :id and available_copies > 0 for update skip locked",
+          Map.of("id", candidate.id()),
+          SLOT_MAPPER
+      );
+      if (!slot.isEmpty()) {
+        slots.add(slot.get(0));
+        locked += slot.get(0).availableCopies();
+      }
+    }
+
+    Instant fulfilledAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    Instant dueDate = fulfilledAt.plus(borrowingProperties.getMaxLoanDays(), ChronoUnit.DAYS);
+    int count = 0;
+    int next = 0;
+    int left = slots.isEmpty() ? 0 : slots.get(0).availableCopies();
+    for (Reservation reservation : pending) {
+      while (left == 0 && ++next < slots.size()) {
+        left = slots.get(next).availableCopies();
+      }
+      if (left == 0) {
+        break;
+      }
+      Slot slot = slots.get(next);
+      if (fulfill(reservation, slot, fulfilledAt, dueDate)) {
+        left--;
+        count++;
+        Instant ready = slot.restockedAt() == null || slot.restockedAt().isBefore(reservation.getCreatedAt())
+            ? reservation.getCreatedAt() : slot.restockedAt();
+        lag.record(Duration.between(ready, fulfilledAt));
+      }
+    }
+    fulfilled.increment(count);
+    return count;
+  }
+
+  /**
+   * Turns the reservation into a loan on {@code slot}. Each statement after the first only applies
+   * if the reservation was marked fulfilled by this call. A slot without a copy left fails the
+   * whole batch, which rolls back.
+   */
+  private boolean fulfill(Reservation reservation, Slot slot, Instant fulfilledAt, Instant dueDate) {
+    Map<String, Object> reservationParams = new HashMap<>();
+    reservationParams.put("id", reservation.getId());
+    reservationParams.put("fulfilledAt", fulfilledAt);
+
+    Map<String, Object> params = new HashMap<>();
+    params.put("reservationId", reservation.getId());
+    params.put("fulfilledAt", fulfilledAt);
+    params.put("bookId", reservation.getBookId());
+    params.put("memberId", reservation.getMemberId());
+    params.put("slotId", slot.id());
+    params.put("slot", slot.slot());
+    params.put("borrowedAt", fulfilledAt);
+    params.put("dueDate", dueDate);
+
+    int[] rows = sqlAdapterClient.executeAll(List.of(
+        new SqlStatement(
+            "update reservations set status = 'FULFILLED', fulfilled_at = :fulfilledAt "
+                + "where id = :id and status = 'PENDING'",
+            reservationParams
+        ),
+        new SqlStatement(
+            "update book_stock_slots set available_copies = available_copies - 1 "
+                + "where id = :slotId and book_id = :bookId and available_copies > 0 "
+                + "and exists (select 1 from reservations where id = :reservationId and fulfilled_at = :fulfilledAt)",
+            params
+        ),
+        new SqlStatement(
+            "insert into loans (book_id, member_id, borrowed_at, due_date, returned_at, stock_slot) "
+                + "select :bookId, :memberId, cast(:borrowedAt as timestamp with time zone), "
+                + "cast(:dueDate as timestamp with time zone), cast(null as timestamp with time zone), "
+                + "cast(:slot as integer) "
+                + "from reservations where id = :reservationId and fulfilled_at = :fulfilledAt",
+            params
+        ),
+        new SqlStatement(
+            "update member_loan_summary set active_loans = active_loans + 1, "
+                + "earliest_due_date = (select min(due_date) from loans "
+                + "where member_id = :memberId and returned_at is null) "
+                + "where member_id = :memberId "
+                + "and exists (select 1 from reservations where id = :reservationId and fulfilled_at = :fulfilledAt)",
+            params
+        )
+    ));
+    if (rows[0] == 0) {
+      return false;
+    }
+    if (rows[1] == 0) {
+      throw new IllegalStateException("Stock slot " + slot.id() + " has no copy left for reservation "
+          + reservation.getId());
+    }
+    return true;
+  }
+
+  private static Instant instant(Object timestamp) {
+    return timestamp instanceof Timestamp value ? value.toInstant() : (Instant) timestamp;
+  }
+
+  private record QueueDepth(long pending, Instant oldest) {}
+
+  private record Slot(long id, int slot, int availableCopies, Instant restockedAt) {}
+}
@@ -0,0 +1,26 @@
+package com.example.library.service;
+
+import com.example.library.domain.Reservation;
+import com.example.library.sqladapter.ColumnIndexRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public final class ReservationRowMapper extends ColumnIndexRowMapper<Reservation> {
+  public ReservationRowMapper() {
+    super("id", "book_id", "member_id", "role_name", "status", "created_at", "fulfilled_at", "canceled_at");
+  }
+
+  @Override
+  protected Reservation map(ResultSet rs, int[] columns) throws SQLException {
+    Reservation reservation = new Reservation();
+    reservation.setId(getLong(rs, columns[0]));
+    reservation.setBookId(getLong(rs, columns[1]));
+    reservation.setMemberId(getLong(rs, columns[2]));
+    reservation.setRoleName(rs.getString(columns[3]));
+    reservation.setStatus(rs.getString(columns[4]));
+    reservation.setCreatedAt(getInstant(rs, columns[5]));
+    reservation.setFulfilledAt(getInstant(rs, columns[6]));
+    reservation.setCanceledAt(getInstant(rs, columns[7]));
+    return reservation;
+  }
+}
@@ -1,34 +1,58 @@
 package com.example.library.service;
 
+import com.example.library.domain.Reservation;
 import com.example.library.sqladapter.SqlAdapterClient;
-import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ReservationService {
   private final SqlAdapterClient sqlAdapterClient;
+  private final RoleRegistry roleRegistry;
 
-  public ReservationService(SqlAdapterClient sqlAdapterClient) {
+  public ReservationService(SqlAdapterClient sqlAdapterClient, RoleRegistry roleRegistry) {
     this.sqlAdapterClient = sqlAdapterClient;
+    this.roleRegistry = roleRegistry;
   }
 
-  public List<Map<String, Object>> list() {
-    return sqlAdapterClient.query(
+  public void forEach(Consumer<Reservation> consumer) {
+    sqlAdapterClient.stream(
         "select id, book_id, member_id, role_name, status, created_at, fulfilled_at, canceled_at "
             + "from reservations order by created_at desc",
-        Map.of()
+        Map.of(),
+        new ReservationRowMapper(),
+        consumer
     );
   }
 
-  public Map<String, Object> get(Long id) {
-    List<Map<String, Object>> rows = sqlAdapterClient.query(
+  public Page<Reservation> page(String cursor, int limit) {
+    StringBuilder sql = new StringBuilder(
+        "select id, book_id, member_id, role_name, status, created_at, fulfilled_at, canceled_at "
+            + "from reservations");
+    Map<String, Object> params = new HashMap<>();
+    if (cursor != null) {
+      KeysetCursor after = KeysetCursor.decodePositioned(cursor);
+      sql.append(" where (created_at, id) < (:afterCreatedAt, :afterId)");
+      params.put("afterCreatedAt", after.position());
+      params.put("afterId", after.id());
+    }
+    sql.append(" order by created_at desc, id desc limit :limit");
+    params.put("limit", limit + 1);
+    List<Reservation> rows = sqlAdapterClient.query(sql.toString(), params, new ReservationRowMapper());
+    return Page.of(rows, limit,
+        reservation -> KeysetCursor.after(reservation.getCreatedAt(), reservation.getId()));
+  }
+
+  public Reservation get(Long id) {
+    List<Reservation> rows = sqlAdapterClient.query(
         "select id, book_id, member_id, role_name, status, created_at, fulfilled_at, canceled_at "
             + "from reservations where id = :id",
-        Map.of("id", id)
+        Map.of("id", id),
+        new ReservationRowMapper()
     );
     if (rows.isEmpty()) {
       throw new NotFoundException("Reservation not found");
@@ -36,7 +60,7 @@ public class ReservationService {
     return rows.get(0);
   }
 
-  public Map<String, Object> create(Long bookId, Long memberId, String roleName) {
+  public Reservation create(Long bookId, Long memberId, String roleName) {
     Instant now = Instant.now();
     Map<String, Object> params = new HashMap<>();
     params.put("bookId", bookId);
@@ -45,24 +69,17 @@ public class ReservationService {
     params.put("status", "PENDING");
     params.put("createdAt", now);
 
-    int rows = sqlAdapterClient.execute(
+    List<Reservation> rows = sqlAdapterClient.executeReturning(
         "insert into reservations (book_id, member_id, role_name, status, created_at) "
-            + "values (:bookId, :memberId, :roleName, :status, :createdAt)",
-        params
+            + "values (:bookId, :memberId, :roleName, :status, :createdAt) "
+            + "returning id, book_id, member_id, role_name, status, created_at, fulfilled_at, canceled_at",
+        params,
+        new ReservationRowMapper()
     );
-    if (rows <= 0) {
+    if (rows.isEmpty()) {
       throw new BusinessRuleException("Reservation insert failed");
     }
-
-    List<Map<String, Object>> result = sqlAdapterClient.query(
-        "select id, book_id, member_id, role_name, status, created_at, fulfilled_at, canceled_at "
-            + "from reservations where book_id = :bookId and member_id = :memberId and created_at = :createdAt",
-        Map.of("bookId", bookId, "memberId", memberId, "createdAt", now)
-    );
-    if (result.isEmpty()) {
-      throw new BusinessRuleException("Reservation not found after insert");
-    }
-    return result.get(0);
+    return rows.get(0);
   }
 
   public void cancel(Long id) {
@@ -80,71 +97,17 @@ public class ReservationService {
   }
 
   public String resolveRoleNameForMember(Long memberId) {
-    List<Map<String, Object>> memberRows = sqlAdapterClient.query(
+    List<Long> memberRows = sqlAdapterClient.query(
         "select role_id from members where id = :id and deleted_at is null",
-        Map.of("id", memberId)
+        Map.of("id", memberId),
+        (rs, rowNum) -> {
+          long roleId = rs.getLong(1);
+          return rs.wasNull() ? null : roleId;
+        }
     );
     if (memberRows.isEmpty()) {
       return "MEMBER";
     }
-    Object roleId = memberRows.get(0).get("role_id");
-    if (roleId == null) {
-      return "MEMBER";
-    }
-
-    List<Map<String, Object>> roleRows = sqlAdapterClient.query(
-        "select name from roles where id = :id",
-        Map.of("id", roleId)
-    );
-    if (roleRows.isEmpty()) {
-      return "MEMBER";
-    }
-    Object name = roleRows.get(0).get("name");
-    return name == null ? "MEMBER" : name.toString();
-  }
-
-  public Long toLong(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    if (value == null) {
-      return null;
-    }
-    if (value instanceof Number number) {
-      return number.longValue();
-    }
-    return Long.parseLong(value.toString());
-  }
-
-  public String toString(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    return value == null ? null : value.toString();
-  }
-
-  public Instant toInstant(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    if (value == null) {
-      return null;
-    }
-    if (value instanceof Instant instant) {
-      return instant;
-    }
-    if (value instanceof Timestamp timestamp) {
-      return timestamp.toInstant();
-    }
-    return Instant.parse(value.toString());
-  }
-
-  private Object getValue(Map<String, Object> row, String key) {
-    if (row.containsKey(key)) {
-      return row.get(key);
-    }
-    String lower = key.toLowerCase();
-    if (row.containsKey(lower)) {
-      return row.get(lower);
-    }
-    String upper = key.toUpperCase();
-    if (row.containsKey(upper)) {
-      return row.get(upper);
-    }
-    return null;
+    return roleRegistry.nameOf(memberRows.get(0)).orElse("MEMBER");
   }
 }
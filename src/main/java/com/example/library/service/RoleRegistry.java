@@ -0,0 +1,82 @@
+package com.example.library.service;
+
+import com.example.library.sqladapter.SqlAdapterClient;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Immutable id/name view of the {@code roles} table. Loaded when the application is ready, or by the
+ * first lookup before that, and reloaded on a schedule. A lookup miss does not reload, so a newly
+ * inserted role is found after the next scheduled refresh.
+ */
+@Component
+public class RoleRegistry {
+  private final SqlAdapterClient sqlAdapterClient;
+  private volatile Roles roles;
+
+  public RoleRegistry(SqlAdapterClient sqlAdapterClient) {
+    this.sqlAdapterClient = sqlAdapterClient;
+  }
+
+  public Optional<String> nameOf(Long id) {
+    if (id == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(roles().byId().get(id));
+  }
+
+  public Optional<Long> idOf(String name) {
+    return Optional.ofNullable(roles().byName().get(name));
+  }
+
+  public boolean exists(Long id) {
+    return nameOf(id).isPresent();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    refresh();
+  }
+
+  // @Scheduled only parses ISO-8601 durations; RoleProperties also accepts values such as 5m.
+  @Scheduled(fixedDelayString = "#{@roleProperties.refreshInterval.toMillis()}")
+  public void scheduledRefresh() {
+    refresh();
+  }
+
+  private Roles roles() {
+    Roles current = roles;
+    if (current != null) {
+      return current;
+    }
+    // Application runners look roles up before the ready event; load once for all of them.
+    synchronized (this) {
+      return roles != null ? roles : refresh();
+    }
+  }
+
+  private Roles refresh() {
+    List<Map.Entry<Long, String>> rows = sqlAdapterClient.query(
+        "select id, name from roles",
+        Map.of(),
+        (rs, rowNum) -> Map.entry(rs.getLong("id"), rs.getString("name"))
+    );
+    Map<Long, String> byId = new HashMap<>();
+    Map<String, Long> byName = new HashMap<>();
+    for (Map.Entry<Long, String> row : rows) {
+      byId.put(row.getKey(), row.getValue());
+      byName.put(row.getValue(), row.getKey());
+    }
+    Roles loaded = new Roles(Map.copyOf(byId), Map.copyOf(byName));
+    roles = loaded;
+    return loaded;
+  }
+
+  private record Roles(Map<Long, String> byId, Map<String, Long> byName) {}
+}
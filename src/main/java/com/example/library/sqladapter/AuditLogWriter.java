@@ -0,0 +1,227 @@
+package com.example.library.sqladapter;
+
+import com.example.library.config.AuditProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes audit_log rows off the request thread. Records are queued in a bounded buffer and
+ * flushed by a single background thread as multi-row inserts of up to flushSize rows, at most
+ * flushInterval after the first record of the batch arrived.
+ */
+@Component
+@Profile("!embedded")
+public class AuditLogWriter implements SmartLifecycle, EnvironmentAware {
+  private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+  private static final String INSERT_PREFIX =
+      "insert into audit_log (user_name, sql_text, executed_at, rows_affected, success, error_message) values ";
+  private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AuditProperties properties;
+  private final BlockingQueue<AuditRecord> queue;
+  private final Counter dropped;
+  private final Counter spilled;
+  private final Counter written;
+  private final Counter failed;
+  private final Timer flushLatency;
+
+  private volatile boolean running;
+  private boolean virtualThreads;
+  private Thread worker;
+
+  public AuditLogWriter(JdbcTemplate jdbcTemplate, AuditProperties properties, MeterRegistry meterRegistry) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.properties = properties;
+    this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    Gauge.builder("audit.queue.depth", queue, BlockingQueue::size)
+        .description("Audit records waiting to be flushed")
+        .register(meterRegistry);
+    this.dropped = Counter.builder("audit.records.dropped").register(meterRegistry);
+    this.spilled = Counter.builder("audit.records.spilled").register(meterRegistry);
+    this.written = Counter.builder("audit.records.written").register(meterRegistry);
+    this.failed = Counter.builder("audit.records.failed").register(meterRegistry);
+    this.flushLatency = Timer.builder("audit.flush.latency")
+        .description("Time spent writing one audit batch")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void setEnvironment(Environment environment) {
+    this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+  }
+
+  public void write(String actor, String sql, Integer rows, boolean success, String error) {
+    AuditRecord record = new AuditRecord(actor, sql, Timestamp.from(Instant.now()), rows, success, error);
+    if (!running) {
+      flush(List.of(record));
+      return;
+    }
+    if (enqueue(record) && !running) {
+      // stop() cleared running and may have drained the queue between the check above and the
+      // enqueue; write whatever it missed on this thread.
+      drainRemaining();
+    }
+  }
+
+  /**
+   * Queues {@code record}, applying the overflow policy when the queue is full. Returns whether the
+   * record ended up in the queue.
+   */
+  private boolean enqueue(AuditRecord record) {
+    if (queue.offer(record)) {
+      return true;
+    }
+    switch (properties.getOverflowPolicy()) {
+      case BLOCK -> {
+        try {
+          queue.put(record);
+          return true;
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          dropped.increment();
+        }
+      }
+      case DROP -> dropped.increment();
+      case SPILL -> {
+        spilled.increment();
+        flush(List.of(record));
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    worker = virtualThreads
+        ? Thread.ofVirtual().name("audit-log-writer").unstarted(this::drainLoop)
+        : Thread.ofPlatform().name("audit-log-writer").daemon(true).unstarted(this::drainLoop);
+    worker.start();
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    if (worker != null) {
+      worker.interrupt();
+      try {
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    drainRemaining();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    // Stop after the web server so in-flight requests can still enqueue their audit rows.
+    return SmartLifecycle.DEFAULT_PHASE - 4096;
+  }
+
+  private void drainLoop() {
+    int flushSize = Math.max(1, properties.getFlushSize());
+    long intervalNanos = Math.max(1L, properties.getFlushInterval().toNanos());
+    List<AuditRecord> batch = new ArrayList<>(flushSize);
+    try {
+      while (running) {
+        AuditRecord first = queue.poll(intervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        // Keep the batch open until it is full or its first record has waited flushInterval.
+        long deadline = System.nanoTime() + intervalNanos;
+        queue.drainTo(batch, flushSize - 1);
+        while (batch.size() < flushSize) {
+          AuditRecord next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+          queue.drainTo(batch, flushSize - batch.size());
+        }
+        flush(batch);
+        batch.clear();
+      }
+    } catch (InterruptedException ex) {
+      // Interrupted by stop(): write the open batch, stop() drains what is left in the queue.
+      flush(batch);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void drainRemaining() {
+    int flushSize = Math.max(1, properties.getFlushSize());
+    List<AuditRecord> batch = new ArrayList<>(flushSize);
+    while (queue.drainTo(batch, flushSize) > 0) {
+      flush(batch);
+      batch.clear();
+    }
+  }
+
+  private void flush(List<AuditRecord> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + batch.size() * 20);
+    sql.append(INSERT_PREFIX);
+    Object[] args = new Object[batch.size() * 6];
+    int i = 0;
+    for (AuditRecord record : batch) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(ROW_PLACEHOLDER);
+      args[i++] = record.userName();
+      args[i++] = record.sqlText();
+      args[i++] = record.executedAt();
+      args[i++] = record.rowsAffected();
+      args[i++] = record.success();
+      args[i++] = record.errorMessage();
+    }
+    long start = System.nanoTime();
+    try {
+      jdbcTemplate.update(sql.toString(), args);
+      written.increment(batch.size());
+    } catch (RuntimeException ex) {
+      failed.increment(batch.size());
+      log.warn("Failed to write {} audit records: {}", batch.size(), ex.getMessage());
+    } finally {
+      flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private record AuditRecord(
+      String userName,
+      String sqlText,
+      Timestamp executedAt,
+      Integer rowsAffected,
+      boolean success,
+      String errorMessage
+  ) {}
+}
@@ -0,0 +1,59 @@
+package com.example.library.sqladapter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Row mapper that resolves its column labels to indexes once per result set and reads every
+ * row by index. Instances keep the resolved indexes, so create a new one for each query.
+ */
+public abstract class ColumnIndexRowMapper<T> implements RowMapper<T> {
+  private final String[] labels;
+  private final int[] indexes;
+  private ResultSet resolvedFor;
+
+  protected ColumnIndexRowMapper(String... labels) {
+    this.labels = labels;
+    this.indexes = new int[labels.length];
+  }
+
+  @Override
+  public final T mapRow(ResultSet rs, int rowNum) throws SQLException {
+    if (rs != resolvedFor) {
+      for (int i = 0; i < labels.length; i++) {
+        indexes[i] = rs.findColumn(labels[i]);
+      }
+      resolvedFor = rs;
+    }
+    return map(rs, indexes);
+  }
+
+  /**
+   * Builds one row. {@code columns[i]} is the result set index of the i-th label passed to the
+   * constructor.
+   */
+  protected abstract T map(ResultSet rs, int[] columns) throws SQLException;
+
+  protected static Long getLong(ResultSet rs, int column) throws SQLException {
+    long value = rs.getLong(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  protected static Integer getInteger(ResultSet rs, int column) throws SQLException {
+    int value = rs.getInt(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  protected static Boolean getBoolean(ResultSet rs, int column) throws SQLException {
+    boolean value = rs.getBoolean(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  protected static Instant getInstant(ResultSet rs, int column) throws SQLException {
+    Timestamp value = rs.getTimestamp(column);
+    return value == null ? null : value.toInstant();
+  }
+}
@@ -0,0 +1,31 @@
+package com.example.library.sqladapter;
+
+/**
+ * Per-thread count of connections taken from the pool while a request is being served.
+ */
+public final class ConnectionCheckouts {
+  private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+  private ConnectionCheckouts() {
+  }
+
+  public static void begin() {
+    COUNT.set(new int[1]);
+  }
+
+  /**
+   * Stops counting on this thread and returns the number of checkouts since {@link #begin()}.
+   */
+  public static int end() {
+    int[] count = COUNT.get();
+    COUNT.remove();
+    return count == null ? 0 : count[0];
+  }
+
+  static void increment() {
+    int[] count = COUNT.get();
+    if (count != null) {
+      count[0]++;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.example.library.sqladapter;
+
+import com.example.library.config.LaneProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caps how many pool connections each {@link Lane} may hold at once, so a surge in member traffic
+ * or background work leaves connections free for staff. The lane is bound to the request thread by
+ * the web layer; any other thread counts as {@code BACKGROUND} once the application is ready. Startup
+ * work, such as migrations, runs before that and is not limited.
+ */
+@Component
+public class ConnectionQuotas {
+  private static final ThreadLocal<Lane> CURRENT = new ThreadLocal<>();
+
+  private final LaneProperties properties;
+  private final Map<Lane, Semaphore> permits = new EnumMap<>(Lane.class);
+  private final Map<Lane, Counter> rejected = new EnumMap<>(Lane.class);
+
+  private volatile boolean backgroundLimited;
+
+  public ConnectionQuotas(LaneProperties properties,
+                          @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                          MeterRegistry meterRegistry) {
+    if (properties.isEnabled()) {
+      properties.validate(poolSize);
+    }
+    this.properties = properties;
+    for (Lane lane : Lane.values()) {
+      int limit = switch (lane) {
+        case STAFF -> properties.getStaff().getConnections();
+        case MEMBER -> properties.getMember().getConnections();
+        case BACKGROUND -> properties.getBackground().getConnections();
+      };
+      Semaphore semaphore = new Semaphore(limit, true);
+      String tag = lane.name().toLowerCase();
+      Gauge.builder("lane.connections.inflight", semaphore, s -> limit - s.availablePermits())
+          .tag("lane", tag)
+          .register(meterRegistry);
+      permits.put(lane, semaphore);
+      rejected.put(lane, Counter.builder("lane.rejected").tag("lane", tag).tag("resource", "connection")
+          .register(meterRegistry));
+    }
+  }
+
+  public static void enter(Lane lane) {
+    CURRENT.set(lane);
+  }
+
+  public static void exit() {
+    CURRENT.remove();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void limitBackground() {
+    backgroundLimited = true;
+  }
+
+  /**
+   * Takes a connection permit for the current lane, waiting up to {@code app.lanes.queueTimeout} (or
+   * whatever is left of the request deadline, if shorter), or {@code app.lanes.background.queueTimeout}
+   * outside a request. Returns {@code null} when quotas are disabled or during startup.
+   */
+  Permit acquire() {
+    Lane lane = CURRENT.get();
+    if (lane == null && backgroundLimited) {
+      lane = Lane.BACKGROUND;
+    }
+    if (lane == null || !properties.isEnabled()) {
+      return null;
+    }
+    Duration wait = lane == Lane.BACKGROUND
+        ? properties.getBackground().getQueueTimeout()
+        : properties.getQueueTimeout();
+    RequestDeadline deadline = RequestDeadline.current();
+    if (deadline != null && deadline.remaining().compareTo(wait) < 0) {
+      wait = deadline.check();
+    }
+    Semaphore semaphore = permits.get(lane);
+    try {
+      if (!semaphore.tryAcquire(wait.toNanos(), TimeUnit.NANOSECONDS)) {
+        rejected.get(lane).increment();
+        throw new LaneQuotaExceededException("Connection quota exhausted for lane " + lane, lane,
+            properties.getRetryAfter());
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new LaneQuotaExceededException("Interrupted waiting for a connection", lane,
+          properties.getRetryAfter());
+    }
+    return new Permit(semaphore);
+  }
+
+  static final class Permit {
+    private final Semaphore semaphore;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Permit(Semaphore semaphore) {
+      this.semaphore = semaphore;
+    }
+
+    void release() {
+      if (released.compareAndSet(false, true)) {
+        semaphore.release();
+      }
+    }
+
+    /**
+     * Returns a view of {@code connection} that gives the permit back when it is closed.
+     */
+    Connection bind(Connection connection) {
+      return (Connection) Proxy.newProxyInstance(
+          Connection.class.getClassLoader(),
+          new Class<?>[] {Connection.class},
+          (proxy, method, args) -> {
+            switch (method.getName()) {
+              case "equals" -> {
+                return proxy == args[0];
+              }
+              case "hashCode" -> {
+                return System.identityHashCode(proxy);
+              }
+              case "close" -> release();
+              default -> {
+              }
+            }
+            try {
+              return method.invoke(connection, args);
+            } catch (InvocationTargetException ex) {
+              throw ex.getCause();
+            }
+          });
+    }
+  }
+}
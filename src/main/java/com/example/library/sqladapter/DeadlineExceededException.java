@@ -0,0 +1,14 @@
+package com.example.library.sqladapter;
+
+public class DeadlineExceededException extends RuntimeException {
+  private final String route;
+
+  public DeadlineExceededException(String message, String route) {
+    super(message);
+    this.route = route;
+  }
+
+  public String getRoute() {
+    return route;
+  }
+}
@@ -0,0 +1,61 @@
+package com.example.library.sqladapter;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Sets each statement's query timeout to the time left in the current {@link RequestDeadline}, so a
+ * stuck query is cancelled by the driver instead of holding a request thread and a connection.
+ * JDBC timeouts are whole seconds, so the remaining budget is rounded up. The statement stays
+ * registered for cancellation only while it runs.
+ */
+public class DeadlineJdbcTemplate extends JdbcTemplate {
+  // PostgreSQL reports both statement timeouts and cancel requests as query_canceled.
+  private static final String QUERY_CANCELED = "57014";
+
+  public DeadlineJdbcTemplate(DataSource dataSource) {
+    super(dataSource);
+  }
+
+  @Override
+  protected void applyStatementSettings(Statement stmt) throws SQLException {
+    super.applyStatementSettings(stmt);
+    RequestDeadline deadline = RequestDeadline.current();
+    if (deadline == null) {
+      return;
+    }
+    long remainingMillis = deadline.check().toMillis();
+    int seconds = (int) Math.max(1, (remainingMillis + 999) / 1000);
+    if (stmt.getQueryTimeout() == 0 || seconds < stmt.getQueryTimeout()) {
+      stmt.setQueryTimeout(seconds);
+    }
+    deadline.running(stmt);
+  }
+
+  @Override
+  protected void handleWarnings(Statement stmt) throws SQLException {
+    // Called once the statement has run and its results were consumed.
+    statementCompleted();
+    super.handleWarnings(stmt);
+  }
+
+  @Override
+  protected DataAccessException translateException(String task, String sql, SQLException ex) {
+    statementCompleted();
+    if (QUERY_CANCELED.equals(ex.getSQLState())) {
+      return new QueryTimeoutException(task + " cancelled: " + ex.getMessage(), ex);
+    }
+    return super.translateException(task, sql, ex);
+  }
+
+  private static void statementCompleted() {
+    RequestDeadline deadline = RequestDeadline.current();
+    if (deadline != null) {
+      deadline.completed();
+    }
+  }
+}
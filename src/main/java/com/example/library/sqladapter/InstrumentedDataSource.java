@@ -0,0 +1,69 @@
+package com.example.library.sqladapter;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Wraps the pool so every connection checkout is counted against the current request. A request
+ * whose deadline has already passed fails here instead of taking a connection, and every checkout
+ * must first get a permit for its {@link Lane} from {@link ConnectionQuotas}.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+  private final Supplier<ConnectionQuotas> quotas;
+
+  public InstrumentedDataSource(DataSource target) {
+    this(target, () -> null);
+  }
+
+  public InstrumentedDataSource(DataSource target, Supplier<ConnectionQuotas> quotas) {
+    super(target);
+    this.quotas = quotas;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    checkDeadline();
+    ConnectionQuotas.Permit permit = acquirePermit();
+    ConnectionCheckouts.increment();
+    return bind(permit, () -> super.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    checkDeadline();
+    ConnectionQuotas.Permit permit = acquirePermit();
+    ConnectionCheckouts.increment();
+    return bind(permit, () -> super.getConnection(username, password));
+  }
+
+  private ConnectionQuotas.Permit acquirePermit() {
+    ConnectionQuotas connectionQuotas = quotas.get();
+    return connectionQuotas == null ? null : connectionQuotas.acquire();
+  }
+
+  private static Connection bind(ConnectionQuotas.Permit permit, ConnectionSource source) throws SQLException {
+    if (permit == null) {
+      return source.get();
+    }
+    try {
+      return permit.bind(source.get());
+    } catch (SQLException | RuntimeException ex) {
+      permit.release();
+      throw ex;
+    }
+  }
+
+  private static void checkDeadline() {
+    RequestDeadline deadline = RequestDeadline.current();
+    if (deadline != null) {
+      deadline.check();
+    }
+  }
+
+  private interface ConnectionSource {
+    Connection get() throws SQLException;
+  }
+}
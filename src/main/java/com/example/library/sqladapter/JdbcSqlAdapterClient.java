@@ -1,65 +1,238 @@
 package com.example.library.sqladapter;
 
-import java.sql.Timestamp;
-import java.time.Instant;
+import com.example.library.config.SqlAdapterProperties;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSourceUtils;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
+@Profile("!embedded")
 public class JdbcSqlAdapterClient implements SqlAdapterClient {
-  private final JdbcTemplate jdbcTemplate;
   private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+  private final TransactionTemplate readOnlyTransaction;
+  private final TransactionTemplate transaction;
+  private final AuditLogWriter auditLogWriter;
+  private final SqlMetrics sqlMetrics;
+  private final SlowQueryDetector slowQueryDetector;
 
-  public JdbcSqlAdapterClient(JdbcTemplate jdbcTemplate,
-                              NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
-    this.jdbcTemplate = jdbcTemplate;
+  public JdbcSqlAdapterClient(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                              DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              SqlAdapterProperties properties,
+                              AuditLogWriter auditLogWriter,
+                              SqlMetrics sqlMetrics,
+                              SlowQueryDetector slowQueryDetector) {
     this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    // PostgreSQL only uses a server-side cursor when autocommit is off and a fetch size is set.
+    JdbcTemplate streaming = new DeadlineJdbcTemplate(dataSource);
+    streaming.setFetchSize(properties.getStreamFetchSize());
+    this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.readOnlyTransaction.setIsolationLevel(properties.getIsolation().value());
+    this.transaction = new TransactionTemplate(transactionManager);
+    this.transaction.setIsolationLevel(properties.getIsolation().value());
+    this.auditLogWriter = auditLogWriter;
+    this.sqlMetrics = sqlMetrics;
+    this.slowQueryDetector = slowQueryDetector;
   }
 
   @Override
   public int execute(String sql, Map<String, Object> params) {
+    long started = System.nanoTime();
     try {
       int rows = namedParameterJdbcTemplate.update(sql, params);
-      audit(actor(), sql, rows, true, null);
+      complete("execute", started, sql, params, rows, true, null);
       return rows;
     } catch (RuntimeException ex) {
-      audit(actor(), sql, null, false, ex.getMessage());
+      complete("execute", started, sql, params, null, false, ex.getMessage());
+      throw ex;
+    }
+  }
+
+  @Override
+  public <T> List<T> executeReturning(String sql, Map<String, Object> params, RowMapper<T> rowMapper) {
+    long started = System.nanoTime();
+    try {
+      List<T> rows = namedParameterJdbcTemplate.query(sql, params, rowMapper);
+      complete("returning", started, sql, params, rows.size(), true, null);
+      return rows;
+    } catch (RuntimeException ex) {
+      complete("returning", started, sql, params, null, false, ex.getMessage());
+      throw ex;
+    }
+  }
+
+  @Override
+  public int[] executeBatch(String sql, List<Map<String, Object>> batch) {
+    long started = System.nanoTime();
+    String audited = "batch[" + batch.size() + "] " + sql;
+    try {
+      int[] rows = namedParameterJdbcTemplate.batchUpdate(sql, SqlParameterSourceUtils.createBatch(batch));
+      complete("batch", started, audited, Map.of(), sum(rows), true, null);
+      return rows;
+    } catch (RuntimeException ex) {
+      complete("batch", started, audited, Map.of(), null, false, ex.getMessage());
+      throw ex;
+    }
+  }
+
+  @Override
+  public int[] executeAll(List<SqlStatement> statements) {
+    long started = System.nanoTime();
+    String audited = statements.stream().map(SqlStatement::sql).collect(Collectors.joining(";\n"));
+    // PgJDBC splits a multi-statement prepared statement into one parse/bind/execute per statement
+    // and sends them all before a single sync, so the whole unit is one round trip.
+    StringBuilder sql = new StringBuilder();
+    List<Object> args = new ArrayList<>();
+    for (SqlStatement statement : statements) {
+      ParsedSql parsed = NamedParameterUtils.parseSqlStatement(statement.sql());
+      MapSqlParameterSource source = new MapSqlParameterSource(statement.params());
+      if (!sql.isEmpty()) {
+        sql.append(";\n");
+      }
+      sql.append(NamedParameterUtils.substituteNamedParameters(parsed, source));
+      args.addAll(Arrays.asList(NamedParameterUtils.buildValueArray(parsed, source, null)));
+    }
+    try {
+      int[] rows = transaction.execute(status -> namedParameterJdbcTemplate.getJdbcOperations().execute(
+          sql.toString(),
+          (PreparedStatementCallback<int[]>) ps -> {
+            new ArgumentPreparedStatementSetter(args.toArray()).setValues(ps);
+            return updateCounts(ps, ps.execute(), statements.size());
+          }));
+      complete("transaction", started, audited, Map.of(), sum(rows), true, null);
+      return rows;
+    } catch (RuntimeException ex) {
+      complete("transaction", started, audited, Map.of(), null, false, ex.getMessage());
       throw ex;
     }
   }
 
   @Override
   public List<Map<String, Object>> query(String sql, Map<String, Object> params) {
+    long started = System.nanoTime();
     try {
       List<Map<String, Object>> rows = namedParameterJdbcTemplate.queryForList(sql, params);
-      audit(actor(), sql, rows.size(), true, null);
+      complete("query", started, sql, params, rows.size(), true, null);
       return rows;
     } catch (RuntimeException ex) {
-      audit(actor(), sql, null, false, ex.getMessage());
+      complete("query", started, sql, params, null, false, ex.getMessage());
       throw ex;
     }
   }
 
-  private void audit(String actor, String sql, Integer rows, boolean success, String error) {
+  @Override
+  public <T> List<T> query(String sql, Map<String, Object> params, RowMapper<T> rowMapper) {
+    long started = System.nanoTime();
     try {
-      jdbcTemplate.update(
-          "insert into audit_log (user_name, sql_text, executed_at, rows_affected, success, error_message) "
-              + "values (?, ?, ?, ?, ?, ?)",
-          actor,
-          sql,
-          Timestamp.from(Instant.now()),
-          rows,
-          success,
-          error
-      );
-    } catch (RuntimeException ignored) {
-      
+      List<T> rows = namedParameterJdbcTemplate.query(sql, params, rowMapper);
+      complete("query", started, sql, params, rows.size(), true, null);
+      return rows;
+    } catch (RuntimeException ex) {
+      complete("query", started, sql, params, null, false, ex.getMessage());
+      throw ex;
+    }
+  }
+
+  @Override
+  public <T> List<T> poll(String sql, Map<String, Object> params, RowMapper<T> rowMapper) {
+    return namedParameterJdbcTemplate.query(sql, params, rowMapper);
+  }
+
+  @Override
+  public <T> int stream(String sql, Map<String, Object> params, RowMapper<T> rowMapper,
+                        Consumer<? super T> consumer) {
+    long started = System.nanoTime();
+    try {
+      Integer rows = readOnlyTransaction.execute(status -> {
+        int[] count = {0};
+        streamingJdbcTemplate.query(sql, params, rs -> {
+          consumer.accept(rowMapper.mapRow(rs, count[0]));
+          count[0]++;
+        });
+        return count[0];
+      });
+      int streamed = rows == null ? 0 : rows;
+      complete("stream", started, sql, params, streamed, true, null);
+      return streamed;
+    } catch (RuntimeException ex) {
+      complete("stream", started, sql, params, null, false, ex.getMessage());
+      throw ex;
+    }
+  }
+
+  @Override
+  public <T> T inTransaction(Supplier<T> work) {
+    return transaction.execute(status -> work.get());
+  }
+
+  @Override
+  public <T> T inReadOnlyTransaction(Supplier<T> work) {
+    return readOnlyTransaction.execute(status -> work.get());
+  }
+
+  /**
+   * Collects one count per statement of a multi-statement execution: the update count, or the
+   * number of rows for a statement that returns a result set.
+   */
+  private static int[] updateCounts(Statement statement, boolean resultSet, int statements)
+      throws SQLException {
+    int[] counts = new int[statements];
+    for (int i = 0; i < statements; i++) {
+      if (resultSet) {
+        try (ResultSet rs = statement.getResultSet()) {
+          while (rs.next()) {
+            counts[i]++;
+          }
+        }
+      } else {
+        counts[i] = statement.getUpdateCount();
+      }
+      resultSet = statement.getMoreResults();
+    }
+    return counts;
+  }
+
+  private static int sum(int[] rows) {
+    int total = 0;
+    for (int count : rows) {
+      // Statement.SUCCESS_NO_INFO (-2) when the driver does not report per-row counts.
+      total += Math.max(count, 0);
     }
+    return total;
+  }
+
+  private void complete(String operation, long started, String sql, Map<String, ?> params,
+                        Integer rows, boolean success, String error) {
+    long elapsed = System.nanoTime() - started;
+    sqlMetrics.record(operation, sql, elapsed, success);
+    slowQueryDetector.check(operation, sql, params, rows, elapsed);
+    auditLogWriter.write(actor(), sql, rows, success, error);
   }
 
   private String actor() {
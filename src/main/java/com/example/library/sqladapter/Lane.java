@@ -0,0 +1,12 @@
+package com.example.library.sqladapter;
+
+/**
+ * Traffic class a request is served in. Staff (ADMIN, LIBRARIAN) and member traffic get separate
+ * request and connection quotas so one cannot starve the other. Threads outside a request (the audit
+ * writer, fulfillment workers, scheduled jobs) share the {@code BACKGROUND} connection quota.
+ */
+public enum Lane {
+  STAFF,
+  MEMBER,
+  BACKGROUND
+}
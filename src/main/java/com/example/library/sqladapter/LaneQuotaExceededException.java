@@ -0,0 +1,22 @@
+package com.example.library.sqladapter;
+
+import java.time.Duration;
+
+public class LaneQuotaExceededException extends RuntimeException {
+  private final Lane lane;
+  private final Duration retryAfter;
+
+  public LaneQuotaExceededException(String message, Lane lane, Duration retryAfter) {
+    super(message);
+    this.lane = lane;
+    this.retryAfter = retryAfter;
+  }
+
+  public Lane getLane() {
+    return lane;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
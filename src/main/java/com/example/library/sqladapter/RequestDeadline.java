@@ -0,0 +1,115 @@
+package com.example.library.sqladapter;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Latency budget of the request being served on this thread. Each JDBC statement gets whatever is
+ * left of it as its query timeout. A streamed listing also cancels its running statement once a
+ * write to the client fails; other requests only write after their statements have finished, so
+ * there is nothing left to cancel by the time a disconnect shows.
+ */
+public final class RequestDeadline {
+  private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+  private final String route;
+  private volatile long expiresAt;
+  private volatile boolean cancelled;
+  private volatile Statement running;
+
+  private RequestDeadline(String route, Duration budget) {
+    this.route = route;
+    this.expiresAt = System.nanoTime() + budget.toNanos();
+  }
+
+  public static RequestDeadline begin(String route, Duration budget) {
+    RequestDeadline deadline = new RequestDeadline(route, budget);
+    CURRENT.set(deadline);
+    return deadline;
+  }
+
+  public static void end() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Returns the deadline of the current request, or {@code null} outside a request.
+   */
+  public static RequestDeadline current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Cancels the current request's in-flight statement and fails any later ones. Called when writing
+   * to the client fails, the only point at which a servlet request learns the client has gone.
+   */
+  public static void cancelCurrent() {
+    RequestDeadline deadline = CURRENT.get();
+    if (deadline != null) {
+      deadline.cancel();
+    }
+  }
+
+  public String getRoute() {
+    return route;
+  }
+
+  public Duration remaining() {
+    return Duration.ofNanos(expiresAt - System.nanoTime());
+  }
+
+  /**
+   * Moves the deadline out to {@code budget} from now, unless it is already later. Streamed listings
+   * use this, since they run as long as the client keeps reading.
+   */
+  public void extendTo(Duration budget) {
+    long extended = System.nanoTime() + budget.toNanos();
+    if (extended - expiresAt > 0) {
+      expiresAt = extended;
+    }
+  }
+
+  public boolean isExpired() {
+    return expiresAt - System.nanoTime() <= 0;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Throws when the budget is spent or the request was cancelled; otherwise returns what is left.
+   */
+  public Duration check() {
+    if (cancelled) {
+      throw new DeadlineExceededException("Request cancelled by client", route);
+    }
+    Duration remaining = remaining();
+    if (remaining.isNegative() || remaining.isZero()) {
+      throw new DeadlineExceededException("Request deadline exceeded", route);
+    }
+    return remaining;
+  }
+
+  public void cancel() {
+    cancelled = true;
+    Statement statement = running;
+    if (statement == null) {
+      return;
+    }
+    try {
+      statement.cancel();
+    } catch (SQLException ignored) {
+      // The statement may already have completed and been closed.
+    }
+  }
+
+  void running(Statement statement) {
+    this.running = statement;
+  }
+
+  void completed() {
+    this.running = null;
+  }
+}
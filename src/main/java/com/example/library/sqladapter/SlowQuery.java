@@ -0,0 +1,20 @@
+package com.example.library.sqladapter;
+
+import java.time.Instant;
+import java.util.Map;
+
+public record SlowQuery(
+    long id,
+    Instant occurredAt,
+    String fingerprint,
+    String operation,
+    String sql,
+    Map<String, String> params,
+    Integer rows,
+    long durationMillis,
+    String plan
+) {
+  SlowQuery withPlan(String plan) {
+    return new SlowQuery(id, occurredAt, fingerprint, operation, sql, params, rows, durationMillis, plan);
+  }
+}
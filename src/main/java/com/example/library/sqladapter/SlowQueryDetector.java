@@ -0,0 +1,149 @@
+package com.example.library.sqladapter;
+
+import com.example.library.config.SlowQueryProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the most recent statements that ran longer than {@code app.sql.slow-query.threshold}. A
+ * sample of them is explained on a background thread, outside any request transaction, so the plan
+ * lookup uses its own connection and never delays the caller.
+ */
+@Component
+@Profile("!embedded")
+public class SlowQueryDetector implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(SlowQueryDetector.class);
+  private static final List<String> EXPLAINABLE = List.of("select", "with", "insert", "update", "delete");
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final SlowQueryProperties properties;
+  private final SqlMetrics sqlMetrics;
+  private final ThreadPoolExecutor explainer;
+  private final LinkedList<SlowQuery> recent = new LinkedList<>();
+  private final AtomicLong sequence = new AtomicLong();
+  private final Counter slow;
+  private final Counter explainsDropped;
+
+  public SlowQueryDetector(NamedParameterJdbcTemplate jdbcTemplate, SlowQueryProperties properties,
+                           SqlMetrics sqlMetrics, MeterRegistry meterRegistry) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.properties = properties;
+    this.sqlMetrics = sqlMetrics;
+    this.slow = Counter.builder("db.sql.slow").register(meterRegistry);
+    this.explainsDropped = Counter.builder("db.sql.slow.explain.dropped").register(meterRegistry);
+    this.explainer = new ThreadPoolExecutor(
+        1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16),
+        runnable -> {
+          Thread thread = new Thread(runnable, "slow-query-explain");
+          thread.setDaemon(true);
+          return thread;
+        },
+        (runnable, executor) -> explainsDropped.increment()
+    );
+  }
+
+  public void check(String operation, String sql, Map<String, ?> params, Integer rows, long elapsedNanos) {
+    long threshold = properties.getThreshold().toNanos();
+    if (threshold <= 0 || elapsedNanos < threshold) {
+      return;
+    }
+    slow.increment();
+    SlowQuery entry = new SlowQuery(
+        sequence.incrementAndGet(),
+        Instant.now(),
+        sqlMetrics.fingerprint(sql),
+        operation,
+        sql,
+        redact(params),
+        rows,
+        TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+        null
+    );
+    log.warn("Slow SQL {} ({} ms, {} rows, {}): {} {}", entry.fingerprint(), entry.durationMillis(),
+        rows, operation, sql, entry.params());
+    remember(entry);
+    if (shouldExplain(operation, sql)) {
+      Map<String, Object> bound = params == null ? Map.of() : new LinkedHashMap<>(params);
+      explainer.execute(() -> explain(entry.id(), sql, bound));
+    }
+  }
+
+  public List<SlowQuery> recent() {
+    synchronized (recent) {
+      List<SlowQuery> copy = new ArrayList<>(recent);
+      Collections.reverse(copy);
+      return copy;
+    }
+  }
+
+  @Override
+  public void close() {
+    explainer.shutdownNow();
+  }
+
+  private boolean shouldExplain(String operation, String sql) {
+    if (operation.equals("batch") || operation.equals("transaction")) {
+      return false;
+    }
+    double rate = properties.getExplainSampleRate();
+    if (rate <= 0 || (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate)) {
+      return false;
+    }
+    String head = sql.stripLeading().toLowerCase(Locale.ROOT);
+    return EXPLAINABLE.stream().anyMatch(head::startsWith);
+  }
+
+  private void explain(long id, String sql, Map<String, Object> params) {
+    String plan;
+    try {
+      plan = jdbcTemplate.queryForObject("explain (analyze off, format json) " + sql, params, String.class);
+    } catch (RuntimeException ex) {
+      log.debug("Could not explain slow SQL {}", id, ex);
+      return;
+    }
+    synchronized (recent) {
+      recent.replaceAll(entry -> entry.id() == id ? entry.withPlan(plan) : entry);
+    }
+  }
+
+  private void remember(SlowQuery entry) {
+    int capacity = properties.getCapacity();
+    if (capacity <= 0) {
+      return;
+    }
+    synchronized (recent) {
+      while (recent.size() >= capacity) {
+        recent.removeFirst();
+      }
+      recent.addLast(entry);
+    }
+  }
+
+  private static Map<String, String> redact(Map<String, ?> params) {
+    if (params == null || params.isEmpty()) {
+      return Map.of();
+    }
+    Map<String, String> redacted = new LinkedHashMap<>();
+    params.forEach((name, value) ->
+        redacted.put(name, value == null ? "null" : "<" + value.getClass().getSimpleName() + ">"));
+    return Collections.unmodifiableMap(redacted);
+  }
+}
@@ -2,9 +2,76 @@ package com.example.library.sqladapter;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.springframework.jdbc.core.RowMapper;
 
 public interface SqlAdapterClient {
   int execute(String sql, Map<String, Object> params);
 
+  /**
+   * Runs a data-modifying statement with a {@code returning} clause and maps the rows it produced,
+   * so callers do not need a follow-up select to read generated values.
+   */
+  <T> List<T> executeReturning(String sql, Map<String, Object> params, RowMapper<T> rowMapper);
+
+  /**
+   * Runs {@code sql} once per parameter map as a single JDBC batch. Returns the row count of each
+   * execution, in order.
+   */
+  default int[] executeBatch(String sql, List<Map<String, Object>> batch) {
+    int[] rows = new int[batch.size()];
+    for (int i = 0; i < batch.size(); i++) {
+      rows[i] = execute(sql, batch.get(i));
+    }
+    return rows;
+  }
+
+  /**
+   * Runs {@code statements} in order on one connection and in one transaction, sent to the database
+   * together. Later statements see the effects of earlier ones, so a statement can guard on a
+   * previous one with an {@code exists (...)} predicate.
+   * Returns the row count of each statement, in order.
+   */
+  default int[] executeAll(List<SqlStatement> statements) {
+    int[] rows = new int[statements.size()];
+    for (int i = 0; i < statements.size(); i++) {
+      rows[i] = execute(statements.get(i).sql(), statements.get(i).params());
+    }
+    return rows;
+  }
+
   List<Map<String, Object>> query(String sql, Map<String, Object> params);
+
+  <T> List<T> query(String sql, Map<String, Object> params, RowMapper<T> rowMapper);
+
+  /**
+   * Runs a read that is not audited, timed or sampled as a slow query. Meant for background polls
+   * that repeat every second or so and usually find nothing; the work they lead to goes through
+   * the audited calls.
+   */
+  default <T> List<T> poll(String sql, Map<String, Object> params, RowMapper<T> rowMapper) {
+    return query(sql, params, rowMapper);
+  }
+
+  /**
+   * Passes each mapped row to {@code consumer} as it is read instead of collecting the result.
+   * Returns the number of rows streamed.
+   */
+  <T> int stream(String sql, Map<String, Object> params, RowMapper<T> rowMapper, Consumer<? super T> consumer);
+
+  /**
+   * Runs {@code work} as one unit: every call it makes through this client shares one connection
+   * and commits or rolls back together. Calls nested inside an existing unit join it.
+   */
+  default <T> T inTransaction(Supplier<T> work) {
+    return work.get();
+  }
+
+  /**
+   * Like {@link #inTransaction(Supplier)} but marks the transaction read-only.
+   */
+  default <T> T inReadOnlyTransaction(Supplier<T> work) {
+    return work.get();
+  }
 }
@@ -0,0 +1,134 @@
+package com.example.library.sqladapter;
+
+import com.example.library.config.SqlAdapterProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times adapter calls as {@code db.sql}, tagged by statement fingerprint, operation, calling service
+ * method and outcome. The fingerprint is the first 64 bits of a SHA-256 of the SQL with literals and
+ * whitespace normalized; once {@code app.sql.maxFingerprints} distinct statements have been seen, new
+ * ones are tagged {@code other} so dynamically built SQL cannot grow the tag set without bound.
+ *
+ * <p>The fingerprint is resolved once per SQL string and cached. The caller is looked up on every
+ * call, so a statement issued from several methods gets a timer per method.
+ */
+@Component
+public class SqlMetrics {
+  static final String OVERFLOW = "other";
+
+  private static final Logger log = LoggerFactory.getLogger(SqlMetrics.class);
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+  private static final String BASE_PACKAGE = "com.example.library.";
+  private static final String ADAPTER_PACKAGE = SqlMetrics.class.getPackageName() + ".";
+
+  private final MeterRegistry meterRegistry;
+  private final int maxFingerprints;
+  private final Set<String> fingerprints = ConcurrentHashMap.newKeySet();
+  private final Cache<String, StatementTimers> bySql;
+
+  public SqlMetrics(MeterRegistry meterRegistry, SqlAdapterProperties properties) {
+    this.meterRegistry = meterRegistry;
+    this.maxFingerprints = properties.getMaxFingerprints();
+    this.bySql = Caffeine.newBuilder().maximumSize(properties.getMaxFingerprints() * 16L).build();
+  }
+
+  public void record(String operation, String sql, long elapsedNanos, boolean success) {
+    bySql.get(sql, this::register).timer(caller(), operation, success).record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  String fingerprint(String sql) {
+    return bySql.get(sql, this::register).fingerprint();
+  }
+
+  private StatementTimers register(String sql) {
+    return new StatementTimers(fingerprintOf(sql));
+  }
+
+  private String fingerprintOf(String sql) {
+    String normalized = normalize(sql);
+    String fingerprint = sha256Prefix(normalized);
+    if (fingerprints.contains(fingerprint)) {
+      return fingerprint;
+    }
+    if (fingerprints.size() >= maxFingerprints) {
+      return OVERFLOW;
+    }
+    if (fingerprints.add(fingerprint)) {
+      log.info("SQL fingerprint {}: {}", fingerprint, normalized);
+    }
+    return fingerprint;
+  }
+
+  private static String sha256Prefix(String normalized) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest, 0, 8);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  static String normalize(String sql) {
+    String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+    normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+    return WHITESPACE.matcher(normalized).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static String caller() {
+    Optional<String> frame = StackWalker.getInstance().walk(frames -> frames
+        .filter(f -> f.getClassName().startsWith(BASE_PACKAGE) && !f.getClassName().startsWith(ADAPTER_PACKAGE))
+        .findFirst()
+        .map(f -> simpleName(f.getClassName()) + "." + f.getMethodName()));
+    return frame.orElse("unknown");
+  }
+
+  private static String simpleName(String className) {
+    String name = className.substring(className.lastIndexOf('.') + 1);
+    int nested = name.indexOf('$');
+    return nested < 0 ? name : name.substring(0, nested);
+  }
+
+  private final class StatementTimers {
+    private final String fingerprint;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private StatementTimers(String fingerprint) {
+      this.fingerprint = fingerprint;
+    }
+
+    String fingerprint() {
+      return fingerprint;
+    }
+
+    Timer timer(String caller, String operation, boolean success) {
+      String outcome = success ? "success" : "error";
+      return timers.computeIfAbsent(caller + ":" + operation + ":" + outcome, key -> Timer.builder("db.sql")
+          .tag("fingerprint", fingerprint)
+          .tag("operation", operation)
+          .tag("caller", caller)
+          .tag("outcome", outcome)
+          .publishPercentiles(0.5, 0.95, 0.99)
+          .publishPercentileHistogram()
+          .register(meterRegistry));
+    }
+  }
+}
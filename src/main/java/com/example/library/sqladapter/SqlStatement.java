@@ -0,0 +1,5 @@
+package com.example.library.sqladapter;
+
+import java.util.Map;
+
+public record SqlStatement(String sql, Map<String, Object> params) {}
@@ -0,0 +1,192 @@
+package com.example.library.sqladapter.embedded;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+
+/**
+ * How a statement reads its table, chosen once when the statement is parsed: a primary key
+ * lookup, a hash index lookup, an ordered walk of the primary key or of an ordered index, or a
+ * full scan. The where clause is always re-checked on every row the access path returns.
+ */
+final class Access {
+  private enum Kind { PRIMARY_KEY, HASH_INDEX, PRIMARY_SCAN, ORDERED_INDEX, FULL_SCAN }
+
+  private final Table table;
+  private final Kind kind;
+  private final boolean ordered;
+  private Expression key;
+  private Table.HashIndex hashIndex;
+  private Expression lowerBound;
+  private boolean lowerInclusive;
+  private Table.OrderedIndex orderedIndex;
+  private boolean descending;
+  private List<Expression> rowBound;
+  private boolean rowBoundInclusive;
+
+  private Access(Table table, Kind kind, boolean ordered) {
+    this.table = table;
+    this.kind = kind;
+    this.ordered = ordered;
+  }
+
+  static Access plan(Table table, List<Condition> where, List<Select.Order> order) {
+    Access hashAccess = null;
+    for (Condition condition : where) {
+      if (!(condition instanceof Condition.Comparison comparison) || !comparison.operator().equals("=")) {
+        continue;
+      }
+      Expression.Column column = columnOf(comparison);
+      Expression value = column == comparison.left() ? comparison.right() : comparison.left();
+      if (column == null || !value.isConstant()) {
+        continue;
+      }
+      if (column.position() == 0) {
+        Access access = new Access(table, Kind.PRIMARY_KEY, true);
+        access.key = value;
+        return access;
+      }
+      Table.HashIndex index = table.hashIndex(column.position());
+      if (index != null && hashAccess == null) {
+        hashAccess = new Access(table, Kind.HASH_INDEX, order.isEmpty());
+        hashAccess.key = value;
+        hashAccess.hashIndex = index;
+      }
+    }
+    if (hashAccess != null) {
+      return hashAccess;
+    }
+
+    if (order.isEmpty() || isIdAscending(order)) {
+      Access access = new Access(table, Kind.PRIMARY_SCAN, true);
+      for (Condition condition : where) {
+        if (condition instanceof Condition.Comparison comparison
+            && comparison.left() instanceof Expression.Column column && column.position() == 0
+            && comparison.right().isConstant()
+            && (comparison.operator().equals(">") || comparison.operator().equals(">="))) {
+          access.lowerBound = comparison.right();
+          access.lowerInclusive = comparison.operator().equals(">=");
+        }
+      }
+      return access;
+    }
+
+    Access indexed = orderedIndexAccess(table, where, order);
+    return indexed != null ? indexed : new Access(table, Kind.FULL_SCAN, false);
+  }
+
+  /**
+   * Whether rows come back in the requested order, so the caller can stop at the limit.
+   */
+  boolean ordered() {
+    return ordered;
+  }
+
+  Iterable<Object[]> rows(Execution execution) {
+    return switch (kind) {
+      case PRIMARY_KEY -> {
+        Object[] row = table.get(key.evaluate(null, execution));
+        yield row == null ? List.of() : List.<Object[]>of(row);
+      }
+      case HASH_INDEX -> {
+        Object value = table.type(hashIndex.column()).coerce(key.evaluate(null, execution));
+        yield value == null ? List.of() : byId(hashIndex.lookup(value));
+      }
+      case PRIMARY_SCAN -> {
+        if (lowerBound == null) {
+          yield table.scan();
+        }
+        Object value = ColumnType.BIGINT.coerce(lowerBound.evaluate(null, execution));
+        yield value == null ? List.of() : table.primary().tailMap((Long) value, lowerInclusive).values();
+      }
+      case ORDERED_INDEX -> orderedRows(execution);
+      case FULL_SCAN -> table.scan();
+    };
+  }
+
+  private Iterable<Object[]> orderedRows(Execution execution) {
+    NavigableSet<Object[]> keys = orderedIndex.keys();
+    if (rowBound != null) {
+      int[] columns = orderedIndex.columns();
+      Object[] bound = new Object[columns.length];
+      for (int i = 0; i < columns.length; i++) {
+        bound[i] = table.type(columns[i]).coerce(rowBound.get(i).evaluate(null, execution));
+        if (bound[i] == null) {
+          return List.of();
+        }
+      }
+      keys = descending ? keys.headSet(bound, rowBoundInclusive) : keys.tailSet(bound, rowBoundInclusive);
+    }
+    NavigableSet<Object[]> walk = descending ? keys.descendingSet() : keys;
+    return () -> walk.stream()
+        .map(key -> table.primary().get(Table.OrderedIndex.id(key)))
+        .filter(Objects::nonNull)
+        .iterator();
+  }
+
+  private Iterable<Object[]> byId(Collection<Long> ids) {
+    return () -> ids.stream()
+        .map(id -> table.primary().get(id))
+        .filter(Objects::nonNull)
+        .iterator();
+  }
+
+  // order by <indexed column> [, id] in one direction, optionally resumed from a row value bound.
+  private static Access orderedIndexAccess(Table table, List<Condition> where, List<Select.Order> order) {
+    if (!(order.get(0).expression() instanceof Expression.Column first) || order.size() > 2) {
+      return null;
+    }
+    Table.OrderedIndex index = table.orderedIndex(first.position());
+    boolean descending = order.get(0).descending();
+    if (index == null) {
+      return null;
+    }
+    if (order.size() == 2 && (!(order.get(1).expression() instanceof Expression.Column second)
+        || second.position() != 0 || order.get(1).descending() != descending)) {
+      return null;
+    }
+    Access access = new Access(table, Kind.ORDERED_INDEX, true);
+    access.orderedIndex = index;
+    access.descending = descending;
+    for (Condition condition : where) {
+      if (condition instanceof Condition.RowComparison comparison && matchesIndex(comparison.left(), index)
+          && comparison.right().stream().allMatch(Expression::isConstant)) {
+        String operator = comparison.operator();
+        if (descending ? operator.startsWith("<") : operator.startsWith(">")) {
+          access.rowBound = comparison.right();
+          access.rowBoundInclusive = operator.endsWith("=");
+        }
+      }
+    }
+    return access;
+  }
+
+  private static boolean matchesIndex(List<Expression> expressions, Table.OrderedIndex index) {
+    int[] columns = index.columns();
+    if (expressions.size() != columns.length) {
+      return false;
+    }
+    for (int i = 0; i < columns.length; i++) {
+      if (!(expressions.get(i) instanceof Expression.Column column) || column.position() != columns[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isIdAscending(List<Select.Order> order) {
+    return order.size() == 1 && !order.get(0).descending()
+        && order.get(0).expression() instanceof Expression.Column column && column.position() == 0;
+  }
+
+  private static Expression.Column columnOf(Condition.Comparison comparison) {
+    if (comparison.left() instanceof Expression.Column column) {
+      return column;
+    }
+    if (comparison.right() instanceof Expression.Column column) {
+      return column;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,137 @@
+package com.example.library.sqladapter.embedded;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Embedded counterpart of the {@code borrow_book} database function (V11 migration), step for
+ * step. It runs inside the caller's write transaction, which already excludes every other writer,
+ * so it needs no row locks; the copy still comes from a random slot, as in PostgreSQL.
+ */
+final class BorrowBookFunction implements TableFunction {
+  private static final String[] COLUMNS = {
+      "outcome", "loan_id", "book_id", "member_id", "borrowed_at", "due_date", "returned_at", "reservation_id"
+  };
+
+  @Override
+  public String[] columns() {
+    return COLUMNS;
+  }
+
+  @Override
+  public boolean writes() {
+    return true;
+  }
+
+  @Override
+  public List<Object[]> call(Execution execution, Object[] arguments) {
+    EmbeddedDatabase database = execution.database();
+    Long bookId = (Long) ColumnType.BIGINT.coerce(arguments[0]);
+    Long memberId = (Long) ColumnType.BIGINT.coerce(arguments[1]);
+    long maxActiveLoans = (Long) ColumnType.BIGINT.coerce(arguments[2]);
+    long maxLoanDays = (Long) ColumnType.BIGINT.coerce(arguments[3]);
+    Instant now = (Instant) ColumnType.TIMESTAMP.coerce(arguments[4]);
+
+    List<Object[]> books = database.run(execution,
+        "select id from books where id = :bookId and deleted_at is null", Map.of("bookId", bookId));
+    if (books.isEmpty()) {
+      return outcome("BOOK_NOT_FOUND", bookId, memberId, null);
+    }
+    List<Object[]> slots = database.run(execution,
+        "select id, slot, available_copies from book_stock_slots where book_id = :bookId and available_copies > 0",
+        Map.of("bookId", bookId));
+    long available = 0;
+    for (Object[] slot : slots) {
+      available += (Integer) slot[2];
+    }
+    // Copies on the shelf are held for pending reservations.
+    long pending = (Long) database.run(execution,
+        "select count(*) from reservations where book_id = :bookId and status = 'PENDING'",
+        Map.of("bookId", bookId)).get(0)[0];
+
+    List<Object[]> members = database.run(execution,
+        "select role_id from members where id = :memberId and deleted_at is null",
+        Map.of("memberId", memberId));
+    if (members.isEmpty()) {
+      return outcome("MEMBER_NOT_FOUND", bookId, memberId, null);
+    }
+
+    List<Object[]> summary = database.run(execution,
+        "select active_loans, earliest_due_date from member_loan_summary where member_id = :memberId",
+        Map.of("memberId", memberId));
+    long activeLoans;
+    Instant earliestDueDate = null;
+    if (summary.isEmpty()) {
+      List<Object[]> active = database.run(execution,
+          "select due_date from loans where member_id = :memberId and returned_at is null",
+          Map.of("memberId", memberId));
+      activeLoans = active.size();
+      for (Object[] loan : active) {
+        if (earliestDueDate == null || ((Instant) loan[0]).isBefore(earliestDueDate)) {
+          earliestDueDate = (Instant) loan[0];
+        }
+      }
+      Map<String, Object> params = new HashMap<>();
+      params.put("memberId", memberId);
+      params.put("activeLoans", activeLoans);
+      params.put("earliestDueDate", earliestDueDate);
+      database.update(execution,
+          "insert into member_loan_summary (member_id, active_loans, earliest_due_date) "
+              + "values (:memberId, :activeLoans, :earliestDueDate)",
+          params);
+    } else {
+      activeLoans = ((Number) summary.get(0)[0]).longValue();
+      earliestDueDate = (Instant) summary.get(0)[1];
+    }
+
+    if (available - pending <= 0) {
+      List<Object[]> roles = database.run(execution,
+          "select name from roles where id = :roleId", Map.of("roleId", members.get(0)[0]));
+      String roleName = roles.isEmpty() ? "MEMBER" : (String) roles.get(0)[0];
+      List<Object[]> reservation = database.run(execution,
+          "insert into reservations (book_id, member_id, role_name, status, created_at) "
+              + "values (:bookId, :memberId, :roleName, 'PENDING', :now) returning id",
+          Map.of("bookId", bookId, "memberId", memberId, "roleName", roleName, "now", now));
+      return outcome("RESERVED", bookId, memberId, (Long) reservation.get(0)[0]);
+    }
+
+    if (activeLoans >= maxActiveLoans) {
+      return outcome("MAX_ACTIVE_LOANS", bookId, memberId, null);
+    }
+    if (earliestDueDate != null && earliestDueDate.isBefore(now)) {
+      return outcome("OVERDUE_LOANS", bookId, memberId, null);
+    }
+
+    Object[] slot = slots.get(ThreadLocalRandom.current().nextInt(slots.size()));
+    int decremented = database.update(execution,
+        "update book_stock_slots set available_copies = available_copies - 1 "
+            + "where id = :slotId and available_copies > 0",
+        Map.of("slotId", slot[0]));
+    if (decremented == 0) {
+      return outcome("NO_COPIES", bookId, memberId, null);
+    }
+
+    List<Object[]> loan = database.run(execution,
+        "insert into loans (book_id, member_id, borrowed_at, due_date, returned_at, stock_slot) "
+            + "values (:bookId, :memberId, :now, :dueDate, null, :slot) "
+            + "returning id, book_id, member_id, borrowed_at, due_date, returned_at",
+        Map.of("bookId", bookId, "memberId", memberId, "now", now,
+            "dueDate", now.plus(maxLoanDays * 24, ChronoUnit.HOURS), "slot", slot[1]));
+    Object[] row = loan.get(0);
+    Instant dueDate = (Instant) row[4];
+    Instant earliest = earliestDueDate == null || dueDate.isBefore(earliestDueDate) ? dueDate : earliestDueDate;
+    database.update(execution,
+        "update member_loan_summary set active_loans = active_loans + 1, earliest_due_date = :earliestDueDate "
+            + "where member_id = :memberId",
+        Map.of("memberId", memberId, "earliestDueDate", earliest));
+    return List.<Object[]>of(new Object[] {"BORROWED", row[0], row[1], row[2], row[3], row[4], row[5], null});
+  }
+
+  private static List<Object[]> outcome(String outcome, Long bookId, Long memberId, Long reservationId) {
+    return List.<Object[]>of(new Object[] {outcome, null, bookId, memberId, null, null, null, reservationId});
+  }
+}
@@ -0,0 +1,135 @@
+package com.example.library.sqladapter.embedded;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Locale;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Column types of the embedded tables. Values are stored in one canonical Java type per column so
+ * that comparisons and index lookups never depend on what the caller happened to bind.
+ */
+enum ColumnType {
+  BIGINT,
+  INTEGER,
+  TEXT,
+  BOOLEAN,
+  // Microsecond precision, like timestamp with time zone.
+  TIMESTAMP;
+
+  Object coerce(Object value) {
+    if (value == null) {
+      return null;
+    }
+    return switch (this) {
+      case BIGINT -> toNumber(value).longValue();
+      case INTEGER -> Math.toIntExact(toNumber(value).longValue());
+      case TEXT -> value.toString();
+      case BOOLEAN -> value instanceof Boolean bool ? bool : Boolean.parseBoolean(value.toString());
+      case TIMESTAMP -> toInstant(value);
+    };
+  }
+
+  /**
+   * Resolves the type named in a {@code cast(... as <type>)} expression.
+   */
+  static ColumnType named(String typeName) {
+    String name = typeName.toLowerCase(Locale.ROOT);
+    if (name.startsWith("timestamp")) {
+      return TIMESTAMP;
+    }
+    if (name.equals("bigint") || name.equals("int8")) {
+      return BIGINT;
+    }
+    if (name.equals("integer") || name.equals("int") || name.equals("int4")) {
+      return INTEGER;
+    }
+    if (name.equals("boolean") || name.equals("bool")) {
+      return BOOLEAN;
+    }
+    if (name.startsWith("varchar") || name.equals("text")) {
+      return TEXT;
+    }
+    throw new IllegalArgumentException("Unsupported type: " + typeName);
+  }
+
+  /**
+   * Brings a bound parameter into the form stored in tables: whole numbers as {@code Long} and
+   * temporal values as microsecond {@link Instant}s.
+   */
+  static Object normalize(Object value) {
+    if (value == null || value instanceof Long || value instanceof String || value instanceof Boolean) {
+      return value;
+    }
+    if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return ((Number) value).longValue();
+    }
+    if (value instanceof Instant || value instanceof Date
+        || value instanceof OffsetDateTime || value instanceof ZonedDateTime) {
+      return toInstant(value);
+    }
+    if (value instanceof Enum<?> constant) {
+      return constant.name();
+    }
+    return value;
+  }
+
+  /**
+   * SQL ordering of two non-null values. Numbers compare by value regardless of their Java type.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static int compare(Object left, Object right) {
+    if (left instanceof Number a && right instanceof Number b) {
+      if (isIntegral(a) && isIntegral(b)) {
+        return Long.compare(a.longValue(), b.longValue());
+      }
+      return Double.compare(a.doubleValue(), b.doubleValue());
+    }
+    if (left.getClass() == right.getClass() && left instanceof Comparable comparable) {
+      return comparable.compareTo(right);
+    }
+    throw new DataIntegrityViolationException(
+        "Cannot compare " + left.getClass().getSimpleName() + " with " + right.getClass().getSimpleName());
+  }
+
+  static boolean equal(Object left, Object right) {
+    return left != null && right != null && compare(left, right) == 0;
+  }
+
+  private static boolean isIntegral(Number number) {
+    return number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+  }
+
+  private static Number toNumber(Object value) {
+    if (value instanceof Number number) {
+      return number;
+    }
+    try {
+      return Long.parseLong(value.toString());
+    } catch (NumberFormatException ex) {
+      throw new DataIntegrityViolationException("Not a number: " + value);
+    }
+  }
+
+  private static Instant toInstant(Object value) {
+    Instant instant;
+    if (value instanceof Instant given) {
+      instant = given;
+    } else if (value instanceof Timestamp timestamp) {
+      instant = timestamp.toInstant();
+    } else if (value instanceof Date date) {
+      instant = date.toInstant();
+    } else if (value instanceof OffsetDateTime dateTime) {
+      instant = dateTime.toInstant();
+    } else if (value instanceof ZonedDateTime dateTime) {
+      instant = dateTime.toInstant();
+    } else {
+      throw new DataIntegrityViolationException("Not a timestamp: " + value);
+    }
+    return instant.truncatedTo(ChronoUnit.MICROS);
+  }
+}
@@ -0,0 +1,70 @@
+package com.example.library.sqladapter.embedded;
+
+import java.util.List;
+
+/**
+ * One conjunct of a {@code where} clause. Comparisons involving null are never true.
+ */
+sealed interface Condition {
+
+  boolean test(Object[] row, Execution execution);
+
+  record Comparison(Expression left, String operator, Expression right) implements Condition {
+    @Override
+    public boolean test(Object[] row, Execution execution) {
+      Object a = left.evaluate(row, execution);
+      Object b = right.evaluate(row, execution);
+      if (a == null || b == null) {
+        return false;
+      }
+      return matches(operator, ColumnType.compare(a, b));
+    }
+  }
+
+  /**
+   * Row value comparison such as {@code (borrowed_at, id) < (:afterBorrowedAt, :afterId)}.
+   */
+  record RowComparison(List<Expression> left, String operator, List<Expression> right) implements Condition {
+    @Override
+    public boolean test(Object[] row, Execution execution) {
+      for (int i = 0; i < left.size(); i++) {
+        Object a = left.get(i).evaluate(row, execution);
+        Object b = right.get(i).evaluate(row, execution);
+        if (a == null || b == null) {
+          return false;
+        }
+        int result = ColumnType.compare(a, b);
+        if (result != 0) {
+          return matches(operator, result);
+        }
+      }
+      return matches(operator, 0);
+    }
+  }
+
+  record IsNull(Expression operand, boolean negated) implements Condition {
+    @Override
+    public boolean test(Object[] row, Execution execution) {
+      return (operand.evaluate(row, execution) == null) != negated;
+    }
+  }
+
+  record Exists(Select query) implements Condition {
+    @Override
+    public boolean test(Object[] row, Execution execution) {
+      return query.exists(execution.correlated(row));
+    }
+  }
+
+  private static boolean matches(String operator, int comparison) {
+    return switch (operator) {
+      case "=" -> comparison == 0;
+      case "<>", "!=" -> comparison != 0;
+      case "<" -> comparison < 0;
+      case "<=" -> comparison <= 0;
+      case ">" -> comparison > 0;
+      case ">=" -> comparison >= 0;
+      default -> throw new IllegalArgumentException("Unsupported operator " + operator);
+    };
+  }
+}
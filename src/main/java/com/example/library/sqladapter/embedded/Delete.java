@@ -0,0 +1,32 @@
+package com.example.library.sqladapter.embedded;
+
+import java.util.List;
+
+/**
+ * {@code delete from <table> [where ...]}.
+ */
+final class Delete implements Statement {
+  private final Table table;
+  private final List<Condition> where;
+  private final Access access;
+
+  Delete(Table table, List<Condition> where) {
+    this.table = table;
+    this.where = where;
+    this.access = Access.plan(table, where, List.of());
+  }
+
+  @Override
+  public boolean writes() {
+    return true;
+  }
+
+  @Override
+  public Result execute(Execution execution) {
+    List<Object[]> matched = Update.matching(access, where, execution);
+    for (Object[] row : matched) {
+      table.delete(row, execution.transaction());
+    }
+    return new Result(new String[0], List.of(), matched.size());
+  }
+}
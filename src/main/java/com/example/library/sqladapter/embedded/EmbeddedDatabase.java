@@ -0,0 +1,258 @@
+package com.example.library.sqladapter.embedded;
+
+import com.example.library.sqladapter.RequestDeadline;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+/**
+ * In-memory tables with the same schema as the Flyway migrations, and the locking that turns
+ * them into a database.
+ *
+ * <p>Writers are serialized: a write statement, {@code executeAll} or an {@code inTransaction}
+ * block holds the write lock from its first statement to commit, and every change it makes is
+ * undo-logged so a failure rolls all of it back. Reads take no lock. They run against an
+ * optimistic stamp and are retried under the read lock only if a writer was active meanwhile, so a
+ * reader never sees half of a transaction.
+ */
+final class EmbeddedDatabase {
+  private final Map<String, Table> tables = new ConcurrentHashMap<>();
+  private final Map<String, TableFunction> functions = new ConcurrentHashMap<>();
+  private final Map<String, Statement> statements = new ConcurrentHashMap<>();
+  private final StampedLock lock = new StampedLock();
+  private final ThreadLocal<Transaction> current = new ThreadLocal<>();
+  private final Duration lockTimeout;
+  private final int statementCacheSize;
+  private final int auditCapacity;
+  private final Table auditLog;
+
+  EmbeddedDatabase(Duration lockTimeout, int statementCacheSize, int auditCapacity) {
+    this.lockTimeout = lockTimeout;
+    this.statementCacheSize = statementCacheSize;
+    this.auditCapacity = auditCapacity;
+
+    Table roles = create(new Table("roles")
+        .column("name", ColumnType.TEXT, false)
+        .uniqueIndex("name"));
+    Table books = create(new Table("books")
+        .column("title", ColumnType.TEXT, false)
+        .column("author", ColumnType.TEXT, false)
+        .column("isbn", ColumnType.TEXT, false)
+        .column("total_copies", ColumnType.INTEGER, false)
+        .column("deleted_at", ColumnType.TIMESTAMP, true)
+        .uniqueIndex("isbn"));
+    int bookTotal = books.position("total_copies");
+    books.check("total_copies >= 0", row -> (Integer) row[bookTotal] >= 0);
+    // Unique (book_id, slot) is not enforced; slots are only ever added by BookService.
+    Table slots = create(new Table("book_stock_slots")
+        .column("book_id", ColumnType.BIGINT, false)
+        .column("slot", ColumnType.INTEGER, false)
+        .column("total_copies", ColumnType.INTEGER, false)
+        .column("available_copies", ColumnType.INTEGER, false)
+        .column("restocked_at", ColumnType.TIMESTAMP, true)
+        .index("book_id")
+        .references("book_id", books));
+    int total = slots.position("total_copies");
+    int available = slots.position("available_copies");
+    slots.check("total_copies >= 0", row -> (Integer) row[total] >= 0)
+        .check("available_copies >= 0", row -> (Integer) row[available] >= 0)
+        .check("available_copies <= total_copies", row -> (Integer) row[available] <= (Integer) row[total]);
+    Table members = create(new Table("members")
+        .column("name", ColumnType.TEXT, false)
+        .column("email", ColumnType.TEXT, false)
+        .column("role_id", ColumnType.BIGINT, false)
+        .column("password_hash", ColumnType.TEXT, true)
+        .column("deleted_at", ColumnType.TIMESTAMP, true)
+        .uniqueIndex("email")
+        .references("role_id", roles));
+    create(new Table("loans")
+        .column("book_id", ColumnType.BIGINT, false)
+        .column("member_id", ColumnType.BIGINT, false)
+        .column("borrowed_at", ColumnType.TIMESTAMP, false)
+        .column("due_date", ColumnType.TIMESTAMP, false)
+        .column("returned_at", ColumnType.TIMESTAMP, true)
+        .column("stock_slot", ColumnType.INTEGER, true)
+        .index("member_id")
+        .index("book_id")
+        .orderedIndex("borrowed_at")
+        .references("book_id", books)
+        .references("member_id", members));
+    // Keyed by the unique member_id index; the id column every table has goes unused.
+    create(new Table("member_loan_summary")
+        .column("member_id", ColumnType.BIGINT, false)
+        .column("active_loans", ColumnType.INTEGER, false)
+        .column("earliest_due_date", ColumnType.TIMESTAMP, true)
+        .uniqueIndex("member_id")
+        .references("member_id", members));
+    create(new Table("reservations")
+        .column("book_id", ColumnType.BIGINT, false)
+        .column("member_id", ColumnType.BIGINT, false)
+        .column("role_name", ColumnType.TEXT, false)
+        .column("status", ColumnType.TEXT, false)
+        .column("created_at", ColumnType.TIMESTAMP, false)
+        .column("fulfilled_at", ColumnType.TIMESTAMP, true)
+        .column("canceled_at", ColumnType.TIMESTAMP, true)
+        .index("book_id")
+        .index("member_id")
+        .orderedIndex("created_at")
+        .references("book_id", books)
+        .references("member_id", members));
+    create(new Table("refresh_tokens")
+        .column("member_id", ColumnType.BIGINT, false)
+        .column("token_hash", ColumnType.TEXT, false)
+        .column("issued_at", ColumnType.TIMESTAMP, false)
+        .column("expires_at", ColumnType.TIMESTAMP, false)
+        .column("revoked_at", ColumnType.TIMESTAMP, true)
+        .uniqueIndex("token_hash")
+        .index("member_id")
+        .references("member_id", members));
+    this.auditLog = create(new Table("audit_log")
+        .column("user_name", ColumnType.TEXT, true)
+        .column("sql_text", ColumnType.TEXT, true)
+        .column("executed_at", ColumnType.TIMESTAMP, false)
+        .column("rows_affected", ColumnType.INTEGER, true)
+        .column("success", ColumnType.BOOLEAN, false)
+        .column("error_message", ColumnType.TEXT, true)
+        .index("user_name")
+        .orderedIndex("executed_at"));
+
+    functions.put("borrow_book", new BorrowBookFunction());
+
+    inTransaction(() -> execute(
+        "insert into roles (name) values ('ADMIN'), ('LIBRARIAN'), ('MEMBER')", Map.of()), false);
+  }
+
+  Statement.Result execute(String sql, Map<String, ?> params) {
+    Statement statement = statement(sql);
+    Transaction transaction = current.get();
+    if (transaction != null) {
+      if (statement.writes() && transaction.isReadOnly()) {
+        throw new InvalidDataAccessApiUsageException("cannot modify data in a read-only transaction: " + sql);
+      }
+      return statement.execute(new Execution(this, params, transaction));
+    }
+    if (statement.writes()) {
+      return inTransaction(() -> statement.execute(new Execution(this, params, current.get())), false);
+    }
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0L) {
+      try {
+        Statement.Result result = statement.execute(new Execution(this, params, null));
+        if (lock.validate(stamp)) {
+          return result;
+        }
+      } catch (RuntimeException ex) {
+        if (lock.validate(stamp)) {
+          throw ex;
+        }
+      }
+    }
+    return inTransaction(() -> statement.execute(new Execution(this, params, current.get())), true);
+  }
+
+  /**
+   * Runs {@code work} holding the write lock, or the read lock when {@code readOnly}, and rolls
+   * back everything it wrote if it throws. Nested calls join the outer transaction.
+   */
+  <T> T inTransaction(Supplier<T> work, boolean readOnly) {
+    Transaction existing = current.get();
+    if (existing != null) {
+      if (!readOnly && existing.isReadOnly()) {
+        throw new InvalidDataAccessApiUsageException("cannot start a write transaction inside a read-only one");
+      }
+      return work.get();
+    }
+    Transaction transaction = new Transaction(readOnly, acquire(readOnly));
+    current.set(transaction);
+    try {
+      return work.get();
+    } catch (RuntimeException | Error ex) {
+      transaction.rollback();
+      throw ex;
+    } finally {
+      current.remove();
+      lock.unlock(transaction.stamp());
+    }
+  }
+
+  /**
+   * Appends an audit_log row. The table is append-only and written nowhere else, so this needs no
+   * lock; the oldest rows are dropped beyond {@code auditCapacity}.
+   */
+  void audit(String userName, String sql, Integer rows, boolean success, String error) {
+    auditLog.insert(new Object[] {null, userName, sql, Instant.now(), rows, success, error}, null);
+    auditLog.trim(auditCapacity);
+  }
+
+  int size(String table) {
+    return tables.get(table).size();
+  }
+
+  /**
+   * Runs a statement from inside a table function, in the caller's transaction.
+   */
+  List<Object[]> run(Execution caller, String sql, Map<String, ?> params) {
+    return statement(sql).execute(new Execution(this, params, caller.transaction())).rows();
+  }
+
+  int update(Execution caller, String sql, Map<String, ?> params) {
+    return statement(sql).execute(new Execution(this, params, caller.transaction())).updateCount();
+  }
+
+  Table table(String name) {
+    return tables.get(name);
+  }
+
+  TableFunction function(String name) {
+    return functions.get(name);
+  }
+
+  private Table create(Table table) {
+    tables.put(table.name(), table);
+    return table;
+  }
+
+  // Dynamic SQL such as the search filters has few distinct shapes, so the cache stays small.
+  private Statement statement(String sql) {
+    Statement statement = statements.get(sql);
+    if (statement == null) {
+      statement = SqlParser.parse(this, sql);
+      if (statements.size() < statementCacheSize) {
+        statements.put(sql, statement);
+      }
+    }
+    return statement;
+  }
+
+  private long acquire(boolean readOnly) {
+    long timeoutNanos = lockTimeout.toNanos();
+    RequestDeadline deadline = RequestDeadline.current();
+    if (deadline != null) {
+      timeoutNanos = Math.min(timeoutNanos, deadline.check().toNanos());
+    }
+    long stamp;
+    try {
+      stamp = readOnly
+          ? lock.tryReadLock(timeoutNanos, TimeUnit.NANOSECONDS)
+          : lock.tryWriteLock(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new CannotAcquireLockException("Interrupted while waiting for the embedded storage lock", ex);
+    }
+    if (stamp == 0L) {
+      if (deadline != null) {
+        deadline.check();
+      }
+      throw new CannotAcquireLockException(
+          "Timed out after " + lockTimeout.toMillis() + "ms waiting for the embedded storage lock");
+    }
+    return stamp;
+  }
+}
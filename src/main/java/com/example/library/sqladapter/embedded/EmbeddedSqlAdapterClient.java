@@ -0,0 +1,238 @@
+package com.example.library.sqladapter.embedded;
+
+import com.example.library.config.EmbeddedStorageProperties;
+import com.example.library.sqladapter.RequestDeadline;
+import com.example.library.sqladapter.SqlAdapterClient;
+import com.example.library.sqladapter.SqlMetrics;
+import com.example.library.sqladapter.SqlStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+/**
+ * {@link SqlAdapterClient} backed by {@link EmbeddedDatabase} instead of PostgreSQL, active with
+ * the {@code embedded} profile. Statements are recorded in the same metrics and audit_log table as
+ * the JDBC client; the audit_log is capped at {@code app.embedded.auditCapacity} rows.
+ */
+@Service
+@Profile("embedded")
+public class EmbeddedSqlAdapterClient implements SqlAdapterClient {
+  private final EmbeddedDatabase database;
+  private final SqlMetrics sqlMetrics;
+
+  public EmbeddedSqlAdapterClient(EmbeddedStorageProperties properties, SqlMetrics sqlMetrics) {
+    this.database = new EmbeddedDatabase(
+        properties.getLockTimeout(), properties.getStatementCacheSize(), properties.getAuditCapacity());
+    this.sqlMetrics = sqlMetrics;
+  }
+
+  @Override
+  public int execute(String sql, Map<String, Object> params) {
+    long started = System.nanoTime();
+    try {
+      checkDeadline();
+      int rows = database.execute(sql, params).updateCount();
+      complete("execute", started, sql, rows, true, null);
+      return rows;
+    } catch (RuntimeException ex) {
+      complete("execute", started, sql, null, false, ex.getMessage());
+      throw ex;
+    }
+  }
+
+  @Override
+  public <T> List<T> executeReturning(String sql, Map<String, Object> params, RowMapper<T> rowMapper) {
+    long started = System.nanoTime();
+    try {
+      checkDeadline();
+      List<T> rows = map(database.execute(sql, params), rowMapper);
+      complete("returning", started, sql, rows.size(), true, null);
+      return rows;
+    } catch (RuntimeException ex) {
+      complete("returning", started, sql, null, false, ex.getMessage());
+      throw ex;
+    }
+  }
+
+  @Override
+  public int[] executeBatch(String sql, List<Map<String, Object>> batch) {
+    long started = System.nanoTime();
+    String audited = "batch[" + batch.size() + "] " + sql;
+    try {
+      checkDeadline();
+      int[] rows = database.inTransaction(() -> {
+        int[] counts = new int[batch.size()];
+        for (int i = 0; i < counts.length; i++) {
+          counts[i] = database.execute(sql, batch.get(i)).updateCount();
+        }
+        return counts;
+      }, false);
+      complete("batch", started, audited, sum(rows), true, null);
+      return rows;
+    } catch (RuntimeException ex) {
+      complete("batch", started, audited, null, false, ex.getMessage());
+      throw ex;
+    }
+  }
+
+  @Override
+  public int[] executeAll(List<SqlStatement> statements) {
+    long started = System.nanoTime();
+    String audited = statements.stream().map(SqlStatement::sql).collect(Collectors.joining(";\n"));
+    try {
+      checkDeadline();
+      int[] rows = database.inTransaction(() -> {
+        int[] counts = new int[statements.size()];
+        for (int i = 0; i < counts.length; i++) {
+          counts[i] = database.execute(statements.get(i).sql(), statements.get(i).params()).updateCount();
+        }
+        return counts;
+      }, false);
+      complete("transaction", started, audited, sum(rows), true, null);
+      return rows;
+    } catch (RuntimeException ex) {
+      complete("transaction", started, audited, null, false, ex.getMessage());
+      throw ex;
+    }
+  }
+
+  @Override
+  public List<Map<String, Object>> query(String sql, Map<String, Object> params) {
+    long started = System.nanoTime();
+    try {
+      checkDeadline();
+      Statement.Result result = database.execute(sql, params);
+      List<Map<String, Object>> rows = new ArrayList<>(result.rows().size());
+      for (Object[] values : result.rows()) {
+        Map<String, Object> row = new LinkedCaseInsensitiveMap<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+          Object value = values[i];
+          row.put(result.columns()[i], value instanceof Instant instant ? Timestamp.from(instant) : value);
+        }
+        rows.add(row);
+      }
+      complete("query", started, sql, rows.size(), true, null);
+      return rows;
+    } catch (RuntimeException ex) {
+      complete("query", started, sql, null, false, ex.getMessage());
+      throw ex;
+    }
+  }
+
+  @Override
+  public <T> List<T> query(String sql, Map<String, Object> params, RowMapper<T> rowMapper) {
+    long started = System.nanoTime();
+    try {
+      checkDeadline();
+      List<T> rows = map(database.execute(sql, params), rowMapper);
+      complete("query", started, sql, rows.size(), true, null);
+      return rows;
+    } catch (RuntimeException ex) {
+      complete("query", started, sql, null, false, ex.getMessage());
+      throw ex;
+    }
+  }
+
+  @Override
+  public <T> List<T> poll(String sql, Map<String, Object> params, RowMapper<T> rowMapper) {
+    return map(database.execute(sql, params), rowMapper);
+  }
+
+  /**
+   * Reads a consistent snapshot of the matching rows, then maps and emits them after the read has
+   * finished, so a slow consumer never holds up writers.
+   */
+  @Override
+  public <T> int stream(String sql, Map<String, Object> params, RowMapper<T> rowMapper,
+                        Consumer<? super T> consumer) {
+    long started = System.nanoTime();
+    try {
+      checkDeadline();
+      Statement.Result result = database.execute(sql, params);
+      ResultSet rs = RowResultSet.of(result.columns(), result.rows());
+      int count = 0;
+      while (rs.next()) {
+        consumer.accept(rowMapper.mapRow(rs, count));
+        count++;
+      }
+      complete("stream", started, sql, count, true, null);
+      return count;
+    } catch (SQLException ex) {
+      complete("stream", started, sql, null, false, ex.getMessage());
+      throw new IllegalStateException(ex);
+    } catch (RuntimeException ex) {
+      complete("stream", started, sql, null, false, ex.getMessage());
+      throw ex;
+    }
+  }
+
+  @Override
+  public <T> T inTransaction(Supplier<T> work) {
+    checkDeadline();
+    return database.inTransaction(work, false);
+  }
+
+  @Override
+  public <T> T inReadOnlyTransaction(Supplier<T> work) {
+    checkDeadline();
+    return database.inTransaction(work, true);
+  }
+
+  private static <T> List<T> map(Statement.Result result, RowMapper<T> rowMapper) {
+    ResultSet rs = RowResultSet.of(result.columns(), result.rows());
+    List<T> mapped = new ArrayList<>(result.rows().size());
+    try {
+      int rowNum = 0;
+      while (rs.next()) {
+        mapped.add(rowMapper.mapRow(rs, rowNum++));
+      }
+    } catch (SQLException ex) {
+      throw new IllegalStateException(ex);
+    } finally {
+      JdbcUtils.closeResultSet(rs);
+    }
+    return mapped;
+  }
+
+  private static void checkDeadline() {
+    RequestDeadline deadline = RequestDeadline.current();
+    if (deadline != null) {
+      deadline.check();
+    }
+  }
+
+  private static int sum(int[] rows) {
+    int total = 0;
+    for (int count : rows) {
+      total += count;
+    }
+    return total;
+  }
+
+  private void complete(String operation, long started, String sql, Integer rows, boolean success, String error) {
+    sqlMetrics.record(operation, sql, System.nanoTime() - started, success);
+    database.audit(actor(), sql, rows, success, error);
+  }
+
+  private String actor() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null || !authentication.isAuthenticated()) {
+      return "anonymous";
+    }
+    return authentication.getName();
+  }
+}
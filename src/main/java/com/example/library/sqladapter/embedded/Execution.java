@@ -0,0 +1,27 @@
+package com.example.library.sqladapter.embedded;
+
+import java.util.Map;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+/**
+ * Everything a statement needs while it runs: the database, the bound parameters, the
+ * transaction of the calling thread and, inside a correlated subquery, the current row of the
+ * enclosing query.
+ */
+record Execution(EmbeddedDatabase database, Map<String, ?> params, Transaction transaction, Object[] outer) {
+
+  Execution(EmbeddedDatabase database, Map<String, ?> params, Transaction transaction) {
+    this(database, params, transaction, null);
+  }
+
+  Object param(String name) {
+    if (!params.containsKey(name)) {
+      throw new InvalidDataAccessApiUsageException("No value supplied for the SQL parameter '" + name + "'");
+    }
+    return ColumnType.normalize(params.get(name));
+  }
+
+  Execution correlated(Object[] row) {
+    return new Execution(database, params, transaction, row);
+  }
+}
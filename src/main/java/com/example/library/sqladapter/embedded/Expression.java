@@ -0,0 +1,198 @@
+package com.example.library.sqladapter.embedded;
+
+import java.util.List;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Scalar expression of the supported SQL subset, evaluated against one row.
+ */
+sealed interface Expression {
+
+  Object evaluate(Object[] row, Execution execution);
+
+  /**
+   * Whether the value is the same for every row, i.e. the expression reads no column.
+   */
+  default boolean isConstant() {
+    return true;
+  }
+
+  default String label() {
+    return "?column?";
+  }
+
+  record Column(int position, String name) implements Expression {
+    @Override
+    public Object evaluate(Object[] row, Execution execution) {
+      return row[position];
+    }
+
+    @Override
+    public boolean isConstant() {
+      return false;
+    }
+
+    @Override
+    public String label() {
+      return name;
+    }
+  }
+
+  /**
+   * Column of the enclosing query's current row, referenced from a correlated subquery as
+   * {@code <table>.<column>}. It is fixed for one run of the subquery.
+   */
+  record Outer(int position, String name) implements Expression {
+    @Override
+    public Object evaluate(Object[] row, Execution execution) {
+      if (execution.outer() == null) {
+        throw new IllegalStateException("No enclosing row for " + name);
+      }
+      return execution.outer()[position];
+    }
+
+    @Override
+    public String label() {
+      return name;
+    }
+  }
+
+  record Param(String name) implements Expression {
+    @Override
+    public Object evaluate(Object[] row, Execution execution) {
+      return execution.param(name);
+    }
+
+    @Override
+    public String label() {
+      return name;
+    }
+  }
+
+  record Literal(Object value) implements Expression {
+    @Override
+    public Object evaluate(Object[] row, Execution execution) {
+      return value;
+    }
+  }
+
+  record Arithmetic(Expression left, char operator, Expression right) implements Expression {
+    @Override
+    public Object evaluate(Object[] row, Execution execution) {
+      Object a = left.evaluate(row, execution);
+      Object b = right.evaluate(row, execution);
+      if (a == null || b == null) {
+        return null;
+      }
+      if (!(a instanceof Number x) || !(b instanceof Number y)) {
+        throw new DataIntegrityViolationException("Arithmetic on non-numeric values");
+      }
+      return operator == '+' ? Math.addExact(x.longValue(), y.longValue())
+          : Math.subtractExact(x.longValue(), y.longValue());
+    }
+
+    @Override
+    public boolean isConstant() {
+      return left.isConstant() && right.isConstant();
+    }
+  }
+
+  record Cast(Expression operand, ColumnType type) implements Expression {
+    @Override
+    public Object evaluate(Object[] row, Execution execution) {
+      return type.coerce(operand.evaluate(row, execution));
+    }
+
+    @Override
+    public boolean isConstant() {
+      return operand.isConstant();
+    }
+
+    @Override
+    public String label() {
+      return operand.label();
+    }
+  }
+
+  /**
+   * Parenthesized select of one column used as a value: null without rows, an error with more
+   * than one.
+   */
+  record Subquery(Select query) implements Expression {
+    @Override
+    public Object evaluate(Object[] row, Execution execution) {
+      return query.scalar(execution.correlated(row));
+    }
+
+    @Override
+    public boolean isConstant() {
+      return false;
+    }
+  }
+
+  /**
+   * {@code sum}, {@code min} or {@code count} of an operand as a select item, folded over every
+   * matching row. Like in PostgreSQL, sum and min are null and count is 0 when no row has a value.
+   */
+  record Aggregate(String function, Expression operand) implements Expression {
+    @Override
+    public Object evaluate(Object[] row, Execution execution) {
+      throw new IllegalStateException(function + " is only evaluated over a set of rows");
+    }
+
+    Object fold(List<Object[]> rows, Execution execution) {
+      Object result = function.equals("count") ? (Object) 0L : null;
+      for (Object[] row : rows) {
+        Object value = operand.evaluate(row, execution);
+        if (value == null) {
+          continue;
+        }
+        if (function.equals("count")) {
+          result = (Long) result + 1;
+          continue;
+        }
+        if (function.equals("min")) {
+          result = result == null || ColumnType.compare(value, result) < 0 ? value : result;
+          continue;
+        }
+        if (!(value instanceof Number number)) {
+          throw new DataIntegrityViolationException(function + " of a non-numeric value");
+        }
+        result = result == null ? number.longValue() : Math.addExact((Long) result, number.longValue());
+      }
+      return result;
+    }
+
+    @Override
+    public boolean isConstant() {
+      return false;
+    }
+
+    @Override
+    public String label() {
+      return function;
+    }
+  }
+
+  /**
+   * Simple {@code case operand when value then result ... else result end}.
+   */
+  record Case(Expression operand, List<Expression> whens, List<Expression> thens, Expression otherwise)
+      implements Expression {
+    @Override
+    public Object evaluate(Object[] row, Execution execution) {
+      Object value = operand.evaluate(row, execution);
+      for (int i = 0; i < whens.size(); i++) {
+        if (ColumnType.equal(value, whens.get(i).evaluate(row, execution))) {
+          return thens.get(i).evaluate(row, execution);
+        }
+      }
+      return otherwise == null ? null : otherwise.evaluate(row, execution);
+    }
+
+    @Override
+    public boolean isConstant() {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.example.library.sqladapter.embedded;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code insert into <table> (<columns>) values (...)[, (...)] | select ... [returning ...]}.
+ * Omitted columns, including {@code id}, take their defaults.
+ */
+final class Insert implements Statement {
+  private final Table table;
+  private final int[] targets;
+  private final List<List<Expression>> values;
+  private final Select query;
+  private final List<Expression> returning;
+  private final String[] labels;
+
+  Insert(Table table, int[] targets, List<List<Expression>> values, Select query,
+         List<Expression> returning, String[] labels) {
+    this.table = table;
+    this.targets = targets;
+    this.values = values;
+    this.query = query;
+    this.returning = returning;
+    this.labels = labels;
+  }
+
+  @Override
+  public boolean writes() {
+    return true;
+  }
+
+  @Override
+  public Result execute(Execution execution) {
+    List<Object[]> sources = new ArrayList<>();
+    if (query != null) {
+      sources.addAll(query.execute(execution).rows());
+    } else {
+      Object[] none = new Object[0];
+      for (List<Expression> tuple : values) {
+        Object[] source = new Object[tuple.size()];
+        for (int i = 0; i < source.length; i++) {
+          source[i] = tuple.get(i).evaluate(none, execution);
+        }
+        sources.add(source);
+      }
+    }
+
+    List<Object[]> rows = new ArrayList<>();
+    for (Object[] source : sources) {
+      if (source.length != targets.length) {
+        throw new IllegalArgumentException("INSERT has " + source.length + " values for "
+            + targets.length + " columns");
+      }
+      Object[] row = new Object[table.columnCount()];
+      for (int i = 0; i < targets.length; i++) {
+        row[targets[i]] = source[i];
+      }
+      Object[] stored = table.insert(row, execution.transaction());
+      if (!returning.isEmpty()) {
+        rows.add(project(stored, execution));
+      }
+    }
+    return new Result(labels, rows, sources.size());
+  }
+
+  private Object[] project(Object[] row, Execution execution) {
+    Object[] projected = new Object[returning.size()];
+    for (int i = 0; i < projected.length; i++) {
+      projected[i] = returning.get(i).evaluate(row, execution);
+    }
+    return projected;
+  }
+}
@@ -0,0 +1,114 @@
+package com.example.library.sqladapter.embedded;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Forward-only, read-only {@link ResultSet} over embedded result rows, covering what the
+ * application's row mappers read.
+ */
+final class RowResultSet implements InvocationHandler {
+  private final String[] columns;
+  private final List<Object[]> rows;
+  private int cursor = -1;
+  private boolean lastWasNull;
+
+  private RowResultSet(String[] columns, List<Object[]> rows) {
+    this.columns = columns;
+    this.rows = rows;
+  }
+
+  static ResultSet of(String[] columns, List<Object[]> rows) {
+    return (ResultSet) Proxy.newProxyInstance(
+        RowResultSet.class.getClassLoader(),
+        new Class<?>[] {ResultSet.class},
+        new RowResultSet(columns, rows)
+    );
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+    return switch (method.getName()) {
+      case "next" -> ++cursor < rows.size();
+      case "getRow" -> cursor + 1;
+      case "close" -> null;
+      case "isClosed" -> false;
+      case "wasNull" -> lastWasNull;
+      case "findColumn" -> findColumn((String) args[0]);
+      case "getMetaData" -> metaData();
+      case "getObject" -> {
+        // pgjdbc returns timestamp with time zone columns as java.sql.Timestamp.
+        Object value = value(args[0]);
+        yield value instanceof Instant instant ? Timestamp.from(instant) : value;
+      }
+      case "getString" -> {
+        Object value = value(args[0]);
+        yield value == null ? null : value.toString();
+      }
+      case "getLong" -> {
+        Object value = value(args[0]);
+        yield value == null ? 0L : ((Number) value).longValue();
+      }
+      case "getInt" -> {
+        Object value = value(args[0]);
+        yield value == null ? 0 : ((Number) value).intValue();
+      }
+      case "getBigDecimal" -> {
+        Object value = value(args[0]);
+        yield value == null ? null : new BigDecimal(value.toString());
+      }
+      case "getBoolean" -> {
+        Object value = value(args[0]);
+        yield value != null && (Boolean) value;
+      }
+      case "getTimestamp" -> {
+        Object value = value(args[0]);
+        yield value == null ? null : Timestamp.from((Instant) value);
+      }
+      case "hashCode" -> System.identityHashCode(proxy);
+      case "equals" -> proxy == args[0];
+      case "toString" -> "RowResultSet" + List.of(columns);
+      default -> throw new SQLFeatureNotSupportedException("ResultSet." + method.getName());
+    };
+  }
+
+  private int findColumn(String label) throws SQLException {
+    for (int i = 0; i < columns.length; i++) {
+      if (columns[i].equalsIgnoreCase(label)) {
+        return i + 1;
+      }
+    }
+    throw new SQLException("The column name " + label + " was not found in this ResultSet.");
+  }
+
+  private Object value(Object column) throws SQLException {
+    int index = column instanceof String label ? findColumn(label) : (Integer) column;
+    if (cursor < 0 || cursor >= rows.size()) {
+      throw new SQLException("ResultSet not positioned on a row");
+    }
+    Object value = rows.get(cursor)[index - 1];
+    lastWasNull = value == null;
+    return value;
+  }
+
+  private ResultSetMetaData metaData() {
+    return (ResultSetMetaData) Proxy.newProxyInstance(
+        RowResultSet.class.getClassLoader(),
+        new Class<?>[] {ResultSetMetaData.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "getColumnCount" -> columns.length;
+          case "getColumnLabel", "getColumnName" -> columns[(Integer) args[0] - 1];
+          default -> throw new SQLFeatureNotSupportedException("ResultSetMetaData." + method.getName());
+        }
+    );
+  }
+}
@@ -0,0 +1,167 @@
+package com.example.library.sqladapter.embedded;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+
+/**
+ * {@code select <items> [from <table> | from <function>(<args>)] [where ...] [order by ...]
+ * [limit ...]}. Without a from clause the where clause is tested once against an empty row. When
+ * the items are aggregates the matching rows fold into a single result row.
+ */
+final class Select implements Statement {
+  private static final Object[] NO_COLUMNS = new Object[0];
+
+  private final Table table;
+  private final TableFunction function;
+  private final List<Expression> arguments;
+  private final List<Expression> items;
+  private final String[] labels;
+  private final List<Condition> where;
+  private final List<Order> order;
+  private final Expression limit;
+  private final Access access;
+  private final boolean aggregate;
+
+  Select(Table table, TableFunction function, List<Expression> arguments, List<Expression> items,
+         String[] labels, List<Condition> where, List<Order> order, Expression limit) {
+    this.table = table;
+    this.function = function;
+    this.arguments = arguments;
+    this.items = items;
+    this.labels = labels;
+    this.where = where;
+    this.order = order;
+    this.limit = limit;
+    this.access = table == null ? null : Access.plan(table, where, order);
+    this.aggregate = items.stream().anyMatch(Expression.Aggregate.class::isInstance);
+  }
+
+  @Override
+  public boolean writes() {
+    return function != null && function.writes();
+  }
+
+  @Override
+  public Result execute(Execution execution) {
+    List<Object[]> matched = matching(execution);
+    if (aggregate) {
+      Object[] folded = new Object[items.size()];
+      for (int i = 0; i < folded.length; i++) {
+        folded[i] = items.get(i) instanceof Expression.Aggregate function
+            ? function.fold(matched, execution)
+            : items.get(i).evaluate(NO_COLUMNS, execution);
+      }
+      return new Result(labels, List.<Object[]>of(folded), 0);
+    }
+    List<Object[]> rows = new ArrayList<>(matched.size());
+    for (Object[] row : matched) {
+      Object[] projected = new Object[items.size()];
+      for (int i = 0; i < projected.length; i++) {
+        projected[i] = items.get(i).evaluate(row, execution);
+      }
+      rows.add(projected);
+    }
+    return new Result(labels, rows, 0);
+  }
+
+  /**
+   * Value of a select used as an expression.
+   */
+  Object scalar(Execution execution) {
+    List<Object[]> rows = execute(execution).rows();
+    if (rows.size() > 1) {
+      throw new IncorrectResultSizeDataAccessException(
+          "more than one row returned by a subquery used as an expression", 1, rows.size());
+    }
+    return rows.isEmpty() ? null : rows.get(0)[0];
+  }
+
+  int width() {
+    return items.size();
+  }
+
+  boolean exists(Execution execution) {
+    for (Object[] row : source(execution)) {
+      if (accepts(row, execution)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<Object[]> matching(Execution execution) {
+    int max = limit == null || aggregate ? Integer.MAX_VALUE : limit(execution);
+    boolean sorted = aggregate || order.isEmpty() || (access != null && access.ordered());
+    List<Object[]> matched = new ArrayList<>();
+    if (max == 0) {
+      return matched;
+    }
+    for (Object[] row : source(execution)) {
+      if (accepts(row, execution)) {
+        matched.add(row);
+        if (sorted && matched.size() >= max) {
+          return matched;
+        }
+      }
+    }
+    if (!sorted) {
+      matched.sort(comparator(execution));
+    }
+    return matched.size() > max ? matched.subList(0, max) : matched;
+  }
+
+  private Iterable<Object[]> source(Execution execution) {
+    if (access != null) {
+      return access.rows(execution);
+    }
+    if (function == null) {
+      return List.<Object[]>of(NO_COLUMNS);
+    }
+    Object[] values = new Object[arguments.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = arguments.get(i).evaluate(NO_COLUMNS, execution);
+    }
+    return function.call(execution, values);
+  }
+
+  private boolean accepts(Object[] row, Execution execution) {
+    for (Condition condition : where) {
+      if (!condition.test(row, execution)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int limit(Execution execution) {
+    Object value = limit.evaluate(NO_COLUMNS, execution);
+    if (!(value instanceof Number number) || number.longValue() < 0) {
+      throw new IllegalArgumentException("LIMIT must be a non-negative number");
+    }
+    return (int) Math.min(Integer.MAX_VALUE, number.longValue());
+  }
+
+  // Nulls sort as the largest value, so they come last ascending and first descending.
+  private Comparator<Object[]> comparator(Execution execution) {
+    return (left, right) -> {
+      for (Order term : order) {
+        Object a = term.expression().evaluate(left, execution);
+        Object b = term.expression().evaluate(right, execution);
+        int result;
+        if (a == null || b == null) {
+          result = a == null ? (b == null ? 0 : 1) : -1;
+        } else {
+          result = ColumnType.compare(a, b);
+        }
+        if (result != 0) {
+          return term.descending() ? -result : result;
+        }
+      }
+      return 0;
+    };
+  }
+
+  record Order(Expression expression, boolean descending) {}
+}
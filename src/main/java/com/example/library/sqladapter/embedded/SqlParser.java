@@ -0,0 +1,604 @@
+package com.example.library.sqladapter.embedded;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+
+/**
+ * Recursive descent parser for the SQL the services issue: single-table {@code select},
+ * {@code insert}, {@code update} and {@code delete} with and-ed predicates, row value comparisons,
+ * {@code exists} and scalar subqueries (correlated through {@code <table>.<column>}), {@code sum},
+ * {@code min}, {@code count}, {@code cast}, simple {@code case}, {@code order by}, {@code limit},
+ * {@code returning} and set-returning functions in the from clause. Anything else is rejected
+ * rather than guessed at.
+ *
+ * <p>{@code for update [skip locked]} is accepted and ignored: writers are already serialized, so
+ * a row lock could never be contended.
+ */
+final class SqlParser {
+  private static final Set<String> CLAUSE_KEYWORDS = Set.of("where", "order", "limit", "returning");
+  private static final Set<String> COMPARISONS = Set.of("=", "<>", "!=", "<", "<=", ">", ">=");
+
+  private final EmbeddedDatabase database;
+  private final String sql;
+  private final List<Token> tokens;
+  private int position;
+
+  private SqlParser(EmbeddedDatabase database, String sql) {
+    this.database = database;
+    this.sql = sql;
+    this.tokens = tokenize(sql);
+  }
+
+  static Statement parse(EmbeddedDatabase database, String sql) {
+    SqlParser parser = new SqlParser(database, sql);
+    Statement statement = parser.statement();
+    parser.accept(";");
+    parser.expect(Kind.END, null);
+    return statement;
+  }
+
+  private Statement statement() {
+    if (acceptWord("select")) {
+      return select(Scope.NONE);
+    }
+    if (acceptWord("insert")) {
+      return insert();
+    }
+    if (acceptWord("update")) {
+      return update();
+    }
+    if (acceptWord("delete")) {
+      return delete();
+    }
+    throw unsupported();
+  }
+
+  // Called after "select"; stops at the end of input or at the ")" closing a subquery.
+  private Select select(Scope outer) {
+    Scope scope = Scope.NONE;
+    TableFunction function = null;
+    int from = findFrom();
+    if (from >= 0) {
+      String name = tokens.get(from + 1).text();
+      if (tokens.get(from + 2).is("(")) {
+        function = database.function(name);
+        if (function == null) {
+          throw unsupported("unknown function " + name);
+        }
+        scope = Scope.of(function.columns());
+      } else {
+        scope = Scope.of(table(name));
+      }
+    }
+    scope = scope.within(outer);
+
+    List<Expression> items = new ArrayList<>();
+    List<String> labels = new ArrayList<>();
+    do {
+      Expression item = isAggregate() ? aggregate(scope) : expression(scope);
+      items.add(item);
+      labels.add(acceptWord("as") ? word() : item.label());
+    } while (accept(","));
+    if (items.stream().anyMatch(Expression.Aggregate.class::isInstance)
+        && !items.stream().allMatch(item -> item instanceof Expression.Aggregate || item.isConstant())) {
+      throw unsupported("columns next to an aggregate without group by");
+    }
+
+    Table table = null;
+    List<Expression> arguments = List.of();
+    if (acceptWord("from")) {
+      String name = word();
+      if (function != null) {
+        expect(Kind.SYMBOL, "(");
+        arguments = expressions(Scope.NONE);
+        expect(Kind.SYMBOL, ")");
+      } else {
+        table = table(name);
+      }
+    }
+    List<Condition> where = acceptWord("where") ? conditions(scope) : List.of();
+    List<Select.Order> order = new ArrayList<>();
+    if (acceptWord("order")) {
+      expectWord("by");
+      do {
+        Expression expression = expression(scope);
+        boolean descending = acceptWord("desc");
+        if (!descending) {
+          acceptWord("asc");
+        }
+        order.add(new Select.Order(expression, descending));
+      } while (accept(","));
+    }
+    Expression limit = acceptWord("limit") ? expression(Scope.NONE) : null;
+    if (acceptWord("for")) {
+      expectWord("update");
+      if (acceptWord("skip")) {
+        expectWord("locked");
+      }
+    }
+    return new Select(table, function, arguments, items, labels.toArray(String[]::new), where, order, limit);
+  }
+
+  private Insert insert() {
+    expectWord("into");
+    Table table = table(word());
+    expect(Kind.SYMBOL, "(");
+    List<Integer> targets = new ArrayList<>();
+    do {
+      targets.add(column(table, word()));
+    } while (accept(","));
+    expect(Kind.SYMBOL, ")");
+
+    List<List<Expression>> values = new ArrayList<>();
+    Select query = null;
+    if (acceptWord("values")) {
+      do {
+        expect(Kind.SYMBOL, "(");
+        values.add(expressions(Scope.NONE));
+        expect(Kind.SYMBOL, ")");
+      } while (accept(","));
+    } else {
+      expectWord("select");
+      query = select(Scope.NONE);
+    }
+    List<Expression> returning = new ArrayList<>();
+    List<String> labels = new ArrayList<>();
+    if (acceptWord("returning")) {
+      items(Scope.of(table), returning, labels);
+    }
+    return new Insert(table, toArray(targets), values, query, returning, labels.toArray(String[]::new));
+  }
+
+  private Update update() {
+    Table table = table(word());
+    Scope scope = Scope.of(table);
+    expectWord("set");
+    List<Integer> targets = new ArrayList<>();
+    List<Expression> values = new ArrayList<>();
+    do {
+      targets.add(column(table, word()));
+      expect(Kind.SYMBOL, "=");
+      values.add(expression(scope));
+    } while (accept(","));
+    List<Condition> where = acceptWord("where") ? conditions(scope) : List.of();
+    List<Expression> returning = new ArrayList<>();
+    List<String> labels = new ArrayList<>();
+    if (acceptWord("returning")) {
+      items(scope, returning, labels);
+    }
+    return new Update(table, toArray(targets), values, where, returning, labels.toArray(String[]::new));
+  }
+
+  private Delete delete() {
+    expectWord("from");
+    Table table = table(word());
+    List<Condition> where = acceptWord("where") ? conditions(Scope.of(table)) : List.of();
+    return new Delete(table, where);
+  }
+
+  private void items(Scope scope, List<Expression> items, List<String> labels) {
+    do {
+      Expression expression = expression(scope);
+      items.add(expression);
+      labels.add(acceptWord("as") ? word() : expression.label());
+    } while (accept(","));
+  }
+
+  private List<Condition> conditions(Scope scope) {
+    List<Condition> conditions = new ArrayList<>();
+    do {
+      conditions.add(condition(scope));
+    } while (acceptWord("and"));
+    if (peek().isWord("or")) {
+      throw unsupported("or is not supported");
+    }
+    return conditions;
+  }
+
+  private Condition condition(Scope scope) {
+    if (acceptWord("exists")) {
+      expect(Kind.SYMBOL, "(");
+      expectWord("select");
+      Select query = select(scope);
+      expect(Kind.SYMBOL, ")");
+      return new Condition.Exists(query);
+    }
+    Expression left;
+    if (peek().is("(") && !peek(1).isWord("select")) {
+      position++;
+      List<Expression> row = expressions(scope);
+      expect(Kind.SYMBOL, ")");
+      if (row.size() > 1) {
+        String operator = comparison();
+        expect(Kind.SYMBOL, "(");
+        List<Expression> other = expressions(scope);
+        expect(Kind.SYMBOL, ")");
+        if (other.size() != row.size()) {
+          throw unsupported("row values of different sizes");
+        }
+        return new Condition.RowComparison(row, operator, other);
+      }
+      left = arithmetic(row.get(0), scope);
+    } else {
+      left = expression(scope);
+    }
+    if (acceptWord("is")) {
+      boolean negated = acceptWord("not");
+      expectWord("null");
+      return new Condition.IsNull(left, negated);
+    }
+    String operator = comparison();
+    return new Condition.Comparison(left, operator, expression(scope));
+  }
+
+  private String comparison() {
+    Token token = peek();
+    if (token.kind() != Kind.SYMBOL || !COMPARISONS.contains(token.text())) {
+      throw unsupported();
+    }
+    position++;
+    return token.text();
+  }
+
+  private List<Expression> expressions(Scope scope) {
+    List<Expression> expressions = new ArrayList<>();
+    do {
+      expressions.add(expression(scope));
+    } while (accept(","));
+    return expressions;
+  }
+
+  private Expression expression(Scope scope) {
+    return arithmetic(term(scope), scope);
+  }
+
+  private Expression arithmetic(Expression left, Scope scope) {
+    Expression result = left;
+    while (peek().is("+") || peek().is("-")) {
+      char operator = tokens.get(position++).text().charAt(0);
+      result = new Expression.Arithmetic(result, operator, term(scope));
+    }
+    return result;
+  }
+
+  private Expression term(Scope scope) {
+    Token token = tokens.get(position++);
+    switch (token.kind()) {
+      case PARAM:
+        return new Expression.Param(token.text());
+      case NUMBER:
+        return new Expression.Literal(number(token.text()));
+      case STRING:
+        return new Expression.Literal(token.text());
+      case SYMBOL:
+        if (token.is("(") && acceptWord("select")) {
+          Select query = select(scope);
+          expect(Kind.SYMBOL, ")");
+          if (query.width() != 1) {
+            throw unsupported("subquery must return one column");
+          }
+          return new Expression.Subquery(query);
+        }
+        if (token.is("(")) {
+          Expression inner = expression(scope);
+          expect(Kind.SYMBOL, ")");
+          return inner;
+        }
+        if (token.is("-") && peek().kind() == Kind.NUMBER) {
+          return new Expression.Literal(number("-" + tokens.get(position++).text()));
+        }
+        break;
+      case WORD:
+        switch (token.text()) {
+          case "null":
+            return new Expression.Literal(null);
+          case "true":
+          case "false":
+            return new Expression.Literal(Boolean.valueOf(token.text()));
+          case "cast":
+            return cast(scope);
+          case "case":
+            return caseWhen(scope);
+          default:
+            if (accept(".")) {
+              return qualified(scope, token.text(), word());
+            }
+            if (peek().is("(")) {
+              throw unsupported("function " + token.text() + " in an expression");
+            }
+            int column = scope.position(token.text());
+            if (column < 0) {
+              throw unsupported("unknown column " + token.text());
+            }
+            return new Expression.Column(column, token.text());
+        }
+      default:
+        break;
+    }
+    position--;
+    throw unsupported();
+  }
+
+  // <table>.<column> of the statement's own table, or of the enclosing query's.
+  private Expression qualified(Scope scope, String qualifier, String name) {
+    if (scope.isTable(qualifier) && scope.position(name) >= 0) {
+      return new Expression.Column(scope.position(name), name);
+    }
+    Scope outer = scope.outer();
+    if (outer != null && outer.isTable(qualifier) && outer.position(name) >= 0) {
+      return new Expression.Outer(outer.position(name), name);
+    }
+    throw unsupported("unknown column " + qualifier + "." + name);
+  }
+
+  private boolean isAggregate() {
+    Token token = peek();
+    return (token.isWord("sum") || token.isWord("min") || token.isWord("count")) && peek(1).is("(");
+  }
+
+  private Expression aggregate(Scope scope) {
+    String function = word();
+    expect(Kind.SYMBOL, "(");
+    // count(*) counts rows, like count of a value that is never null.
+    Expression operand = function.equals("count") && accept("*") ? new Expression.Literal(1L) : expression(scope);
+    expect(Kind.SYMBOL, ")");
+    return new Expression.Aggregate(function, operand);
+  }
+
+  private Expression cast(Scope scope) {
+    expect(Kind.SYMBOL, "(");
+    Expression operand = expression(scope);
+    expectWord("as");
+    StringBuilder type = new StringBuilder(word());
+    int depth = 0;
+    while (depth > 0 || !peek().is(")")) {
+      Token token = tokens.get(position++);
+      if (token.kind() == Kind.END) {
+        throw unsupported();
+      }
+      depth += token.is("(") ? 1 : token.is(")") ? -1 : 0;
+      if (token.kind() == Kind.WORD) {
+        type.append(' ').append(token.text());
+      }
+    }
+    expect(Kind.SYMBOL, ")");
+    try {
+      return new Expression.Cast(operand, ColumnType.named(type.toString()));
+    } catch (IllegalArgumentException ex) {
+      throw unsupported(ex.getMessage());
+    }
+  }
+
+  private Expression caseWhen(Scope scope) {
+    Expression operand = expression(scope);
+    List<Expression> whens = new ArrayList<>();
+    List<Expression> thens = new ArrayList<>();
+    while (acceptWord("when")) {
+      whens.add(expression(scope));
+      expectWord("then");
+      thens.add(expression(scope));
+    }
+    Expression otherwise = acceptWord("else") ? expression(scope) : null;
+    expectWord("end");
+    return new Expression.Case(operand, whens, thens, otherwise);
+  }
+
+  // Index of the from keyword of the select starting at the current position, or -1.
+  private int findFrom() {
+    int depth = 0;
+    for (int i = position; i < tokens.size(); i++) {
+      Token token = tokens.get(i);
+      if (token.kind() == Kind.END) {
+        return -1;
+      }
+      if (token.is("(")) {
+        depth++;
+      } else if (token.is(")")) {
+        if (depth == 0) {
+          return -1;
+        }
+        depth--;
+      } else if (depth == 0 && token.isWord("from")) {
+        return i;
+      } else if (depth == 0 && token.kind() == Kind.WORD && CLAUSE_KEYWORDS.contains(token.text())) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  private Table table(String name) {
+    Table table = database.table(name);
+    if (table == null) {
+      throw unsupported("unknown table " + name);
+    }
+    return table;
+  }
+
+  private int column(Table table, String name) {
+    if (!table.hasColumn(name)) {
+      throw unsupported("unknown column " + table.name() + "." + name);
+    }
+    return table.position(name);
+  }
+
+  private String word() {
+    Token token = peek();
+    if (token.kind() != Kind.WORD) {
+      throw unsupported();
+    }
+    position++;
+    return token.text();
+  }
+
+  private Token peek() {
+    return tokens.get(position);
+  }
+
+  private Token peek(int ahead) {
+    return tokens.get(Math.min(position + ahead, tokens.size() - 1));
+  }
+
+  private boolean accept(String symbol) {
+    if (peek().is(symbol)) {
+      position++;
+      return true;
+    }
+    return false;
+  }
+
+  private boolean acceptWord(String word) {
+    if (peek().isWord(word)) {
+      position++;
+      return true;
+    }
+    return false;
+  }
+
+  private void expectWord(String word) {
+    if (!acceptWord(word)) {
+      throw unsupported("expected " + word);
+    }
+  }
+
+  private void expect(Kind kind, String text) {
+    Token token = peek();
+    if (token.kind() != kind || (text != null && !token.text().equals(text))) {
+      throw unsupported(text == null ? "expected end of statement" : "expected " + text);
+    }
+    position++;
+  }
+
+  private InvalidDataAccessResourceUsageException unsupported() {
+    return unsupported(null);
+  }
+
+  private InvalidDataAccessResourceUsageException unsupported(String detail) {
+    Token token = peek();
+    String near = token.kind() == Kind.END ? "end of statement" : "\"" + token.text() + "\"";
+    return new InvalidDataAccessResourceUsageException("Embedded storage cannot run SQL near " + near
+        + (detail == null ? "" : " (" + detail + ")") + ": " + sql);
+  }
+
+  private static Object number(String text) {
+    return text.contains(".") ? new BigDecimal(text) : (Object) Long.parseLong(text);
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static List<Token> tokenize(String sql) {
+    List<Token> tokens = new ArrayList<>();
+    int i = 0;
+    while (i < sql.length()) {
+      char c = sql.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (Character.isLetter(c) || c == '_') {
+        int start = i;
+        while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+          i++;
+        }
+        tokens.add(new Token(Kind.WORD, sql.substring(start, i).toLowerCase(Locale.ROOT)));
+      } else if (c == ':' && i + 1 < sql.length() && Character.isJavaIdentifierStart(sql.charAt(i + 1))) {
+        int start = ++i;
+        while (i < sql.length() && Character.isJavaIdentifierPart(sql.charAt(i))) {
+          i++;
+        }
+        tokens.add(new Token(Kind.PARAM, sql.substring(start, i)));
+      } else if (Character.isDigit(c)) {
+        int start = i;
+        while (i < sql.length() && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+          i++;
+        }
+        tokens.add(new Token(Kind.NUMBER, sql.substring(start, i)));
+      } else if (c == '\'') {
+        StringBuilder text = new StringBuilder();
+        i++;
+        while (true) {
+          if (i >= sql.length()) {
+            throw new InvalidDataAccessResourceUsageException("Unterminated string literal: " + sql);
+          }
+          if (sql.charAt(i) == '\'') {
+            if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+              text.append('\'');
+              i += 2;
+              continue;
+            }
+            i++;
+            break;
+          }
+          text.append(sql.charAt(i++));
+        }
+        tokens.add(new Token(Kind.STRING, text.toString()));
+      } else {
+        String pair = i + 1 < sql.length() ? sql.substring(i, i + 2) : "";
+        if (pair.equals("<=") || pair.equals(">=") || pair.equals("<>") || pair.equals("!=")) {
+          tokens.add(new Token(Kind.SYMBOL, pair));
+          i += 2;
+        } else if ("(),=<>+-*;.".indexOf(c) >= 0) {
+          tokens.add(new Token(Kind.SYMBOL, String.valueOf(c)));
+          i++;
+        } else {
+          throw new InvalidDataAccessResourceUsageException(
+              "Embedded storage cannot run SQL near \"" + c + "\": " + sql);
+        }
+      }
+    }
+    tokens.add(new Token(Kind.END, ""));
+    return tokens;
+  }
+
+  private enum Kind { WORD, PARAM, NUMBER, STRING, SYMBOL, END }
+
+  private record Token(Kind kind, String text) {
+    boolean is(String symbol) {
+      return kind == Kind.SYMBOL && text.equals(symbol);
+    }
+
+    boolean isWord(String word) {
+      return kind == Kind.WORD && text.equals(word);
+    }
+  }
+
+  /**
+   * Columns visible to expressions: those of the table or function in the from clause, and for a
+   * subquery the scope of the enclosing query.
+   */
+  private record Scope(Table table, String[] names, Scope outer) {
+    static final Scope NONE = new Scope(null, new String[0], null);
+
+    static Scope of(Table table) {
+      return new Scope(table, null, null);
+    }
+
+    static Scope of(String[] names) {
+      return new Scope(null, names, null);
+    }
+
+    Scope within(Scope enclosing) {
+      return enclosing == NONE ? this : new Scope(table, names, enclosing);
+    }
+
+    boolean isTable(String name) {
+      return table != null && table.name().equals(name);
+    }
+
+    int position(String name) {
+      if (table != null) {
+        return table.hasColumn(name) ? table.position(name) : -1;
+      }
+      for (int i = 0; i < names.length; i++) {
+        if (names[i].equals(name)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.example.library.sqladapter.embedded;
+
+import java.util.List;
+
+/**
+ * Parsed statement. Instances are immutable and cached per SQL string, so they are shared by
+ * every thread that runs the same SQL.
+ */
+sealed interface Statement permits Select, Insert, Update, Delete {
+
+  /**
+   * Whether running the statement modifies a table and so needs the write lock.
+   */
+  boolean writes();
+
+  Result execute(Execution execution);
+
+  /**
+   * Column labels and rows produced by a statement, plus the number of rows it modified.
+   */
+  record Result(String[] columns, List<Object[]> rows, int updateCount) {}
+}
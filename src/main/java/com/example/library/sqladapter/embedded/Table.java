@@ -0,0 +1,358 @@
+package com.example.library.sqladapter.embedded;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+/**
+ * One table of the embedded database. Rows are immutable {@code Object[]} versions keyed by their
+ * {@code id} (always column 0), so readers can walk the primary key and the secondary indexes
+ * without locking while a single writer replaces whole rows.
+ */
+final class Table {
+  private final String name;
+  private final List<Column> columns = new ArrayList<>();
+  private final Map<String, Integer> positions = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<Long, Object[]> rows = new ConcurrentSkipListMap<>();
+  private final AtomicLong sequence = new AtomicLong();
+  private final AtomicInteger size = new AtomicInteger();
+  private final List<HashIndex> hashIndexes = new ArrayList<>();
+  private final List<OrderedIndex> orderedIndexes = new ArrayList<>();
+  private final List<ForeignKey> foreignKeys = new ArrayList<>();
+  private final List<Check> checks = new ArrayList<>();
+
+  Table(String name) {
+    this.name = name;
+    column("id", ColumnType.BIGINT, false);
+  }
+
+  Table column(String column, ColumnType type, boolean nullable) {
+    positions.put(column, columns.size());
+    columns.add(new Column(column, type, nullable));
+    return this;
+  }
+
+  Table uniqueIndex(String column) {
+    hashIndexes.add(new HashIndex(position(column), true));
+    return this;
+  }
+
+  Table index(String column) {
+    hashIndexes.add(new HashIndex(position(column), false));
+    return this;
+  }
+
+  /**
+   * Adds a sorted index over {@code column, id}, used for ordered scans and keyset pages.
+   */
+  Table orderedIndex(String column) {
+    orderedIndexes.add(new OrderedIndex(new int[] {position(column), 0}));
+    return this;
+  }
+
+  Table references(String column, Table target) {
+    foreignKeys.add(new ForeignKey(position(column), target));
+    return this;
+  }
+
+  Table check(String description, Predicate<Object[]> rule) {
+    checks.add(new Check(description, rule));
+    return this;
+  }
+
+  String name() {
+    return name;
+  }
+
+  int columnCount() {
+    return columns.size();
+  }
+
+  ColumnType type(int position) {
+    return columns.get(position).type();
+  }
+
+  String columnName(int position) {
+    return columns.get(position).name();
+  }
+
+  int position(String column) {
+    Integer position = positions.get(column);
+    if (position == null) {
+      throw new IllegalArgumentException("Unknown column " + name + "." + column);
+    }
+    return position;
+  }
+
+  boolean hasColumn(String column) {
+    return positions.containsKey(column);
+  }
+
+  int size() {
+    return size.get();
+  }
+
+  Object[] get(Object id) {
+    return id == null ? null : rows.get((Long) ColumnType.BIGINT.coerce(id));
+  }
+
+  NavigableMap<Long, Object[]> primary() {
+    return rows;
+  }
+
+  Collection<Object[]> scan() {
+    return rows.values();
+  }
+
+  HashIndex hashIndex(int column) {
+    for (HashIndex index : hashIndexes) {
+      if (index.column == column) {
+        return index;
+      }
+    }
+    return null;
+  }
+
+  OrderedIndex orderedIndex(int column) {
+    for (OrderedIndex index : orderedIndexes) {
+      if (index.columns[0] == column) {
+        return index;
+      }
+    }
+    return null;
+  }
+
+  Object[] insert(Object[] values, Transaction transaction) {
+    Object[] row = coerce(values);
+    if (row[0] == null) {
+      row[0] = sequence.incrementAndGet();
+    } else if (rows.containsKey((Long) row[0])) {
+      throw new DuplicateKeyException("duplicate key value violates primary key of " + name);
+    } else {
+      sequence.accumulateAndGet((Long) row[0], Math::max);
+    }
+    validate(row, null);
+    rows.put((Long) row[0], row);
+    size.incrementAndGet();
+    index(null, row);
+    if (transaction != null) {
+      transaction.logged(this, (Long) row[0], null);
+    }
+    return row;
+  }
+
+  Object[] update(Object[] before, Object[] values, Transaction transaction) {
+    Object[] row = coerce(values);
+    row[0] = before[0];
+    validate(row, before);
+    rows.put((Long) row[0], row);
+    index(before, row);
+    transaction.logged(this, (Long) row[0], before);
+    return row;
+  }
+
+  void delete(Object[] row, Transaction transaction) {
+    if (rows.remove((Long) row[0]) != null) {
+      size.decrementAndGet();
+      index(row, null);
+      transaction.logged(this, (Long) row[0], row);
+    }
+  }
+
+  /**
+   * Puts back the version of row {@code id} that a rolled back transaction replaced.
+   */
+  void restore(long id, Object[] before) {
+    Object[] current = before == null ? rows.remove(id) : rows.put(id, before);
+    if (current == null && before != null) {
+      size.incrementAndGet();
+    } else if (current != null && before == null) {
+      size.decrementAndGet();
+    }
+    index(current, before);
+  }
+
+  /**
+   * Removes the oldest rows until at most {@code capacity} remain. Used for append-only tables
+   * whose history is bounded rather than kept forever.
+   */
+  void trim(int capacity) {
+    while (size.get() > capacity) {
+      Map.Entry<Long, Object[]> oldest = rows.pollFirstEntry();
+      if (oldest == null) {
+        return;
+      }
+      size.decrementAndGet();
+      index(oldest.getValue(), null);
+    }
+  }
+
+  private Object[] coerce(Object[] values) {
+    if (values.length != columns.size()) {
+      throw new IllegalArgumentException("Expected " + columns.size() + " values for " + name);
+    }
+    Object[] row = new Object[values.length];
+    for (int i = 0; i < values.length; i++) {
+      row[i] = columns.get(i).type().coerce(values[i]);
+    }
+    return row;
+  }
+
+  private void validate(Object[] row, Object[] before) {
+    for (int i = 1; i < row.length; i++) {
+      if (row[i] == null && !columns.get(i).nullable()) {
+        throw new DataIntegrityViolationException(
+            "null value in column \"" + columns.get(i).name() + "\" of relation \"" + name + "\"");
+      }
+    }
+    for (Check check : checks) {
+      if (!check.rule().test(row)) {
+        throw new DataIntegrityViolationException(
+            "new row for relation \"" + name + "\" violates check constraint: " + check.description());
+      }
+    }
+    for (HashIndex index : hashIndexes) {
+      Object key = row[index.column];
+      if (index.unique && key != null && (before == null || !key.equals(before[index.column]))
+          && !index.lookup(key).isEmpty()) {
+        throw new DuplicateKeyException("duplicate key value violates unique constraint on "
+            + name + "." + columns.get(index.column).name());
+      }
+    }
+    for (ForeignKey foreignKey : foreignKeys) {
+      Object key = row[foreignKey.column()];
+      if (key != null && foreignKey.target().get(key) == null) {
+        throw new DataIntegrityViolationException("insert or update on table \"" + name
+            + "\" violates foreign key to \"" + foreignKey.target().name() + "\"");
+      }
+    }
+  }
+
+  private void index(Object[] before, Object[] after) {
+    for (HashIndex index : hashIndexes) {
+      Object oldKey = before == null ? null : before[index.column];
+      Object newKey = after == null ? null : after[index.column];
+      if (oldKey != null && oldKey.equals(newKey)) {
+        continue;
+      }
+      if (oldKey != null) {
+        index.remove(oldKey, (Long) before[0]);
+      }
+      if (newKey != null) {
+        index.add(newKey, (Long) after[0]);
+      }
+    }
+    for (OrderedIndex index : orderedIndexes) {
+      if (before != null) {
+        index.keys.remove(index.key(before));
+      }
+      if (after != null) {
+        index.keys.add(index.key(after));
+      }
+    }
+  }
+
+  record Column(String name, ColumnType type, boolean nullable) {}
+
+  private record ForeignKey(int column, Table target) {}
+
+  private record Check(String description, Predicate<Object[]> rule) {}
+
+  static final class HashIndex {
+    private final int column;
+    private final boolean unique;
+    private final ConcurrentHashMap<Object, Set<Long>> entries = new ConcurrentHashMap<>();
+
+    private HashIndex(int column, boolean unique) {
+      this.column = column;
+      this.unique = unique;
+    }
+
+    int column() {
+      return column;
+    }
+
+    Set<Long> lookup(Object key) {
+      Set<Long> ids = entries.get(key);
+      return ids == null ? Set.of() : ids;
+    }
+
+    // Both updates run inside compute so an add never lands in a set a concurrent remove dropped.
+    private void add(Object key, Long id) {
+      entries.compute(key, (k, ids) -> {
+        Set<Long> updated = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+        updated.add(id);
+        return updated;
+      });
+    }
+
+    private void remove(Object key, Long id) {
+      entries.computeIfPresent(key, (k, ids) -> {
+        ids.remove(id);
+        return ids.isEmpty() ? null : ids;
+      });
+    }
+  }
+
+  /**
+   * Sorted set of {@code (value, id)} keys. Values compare in SQL order with nulls first.
+   */
+  static final class OrderedIndex {
+    private static final Comparator<Object[]> ORDER = (left, right) -> {
+      for (int i = 0; i < left.length; i++) {
+        int result = compareNullsFirst(left[i], right[i]);
+        if (result != 0) {
+          return result;
+        }
+      }
+      return 0;
+    };
+
+    private final int[] columns;
+    private final ConcurrentSkipListSet<Object[]> keys = new ConcurrentSkipListSet<>(ORDER);
+
+    private OrderedIndex(int[] columns) {
+      this.columns = columns;
+    }
+
+    int[] columns() {
+      return columns;
+    }
+
+    NavigableSet<Object[]> keys() {
+      return keys;
+    }
+
+    static long id(Object[] key) {
+      return (Long) key[key.length - 1];
+    }
+
+    private Object[] key(Object[] row) {
+      Object[] key = new Object[columns.length];
+      for (int i = 0; i < columns.length; i++) {
+        key[i] = row[columns[i]];
+      }
+      return key;
+    }
+
+    private static int compareNullsFirst(Object left, Object right) {
+      if (left == null || right == null) {
+        return left == null ? (right == null ? 0 : -1) : 1;
+      }
+      return ColumnType.compare(left, right);
+    }
+  }
+}
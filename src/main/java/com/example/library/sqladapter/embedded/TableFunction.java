@@ -0,0 +1,15 @@
+package com.example.library.sqladapter.embedded;
+
+import java.util.List;
+
+/**
+ * Set-returning function that can appear in a from clause, the embedded counterpart of a
+ * PL/pgSQL function.
+ */
+interface TableFunction {
+  String[] columns();
+
+  boolean writes();
+
+  List<Object[]> call(Execution execution, Object[] arguments);
+}
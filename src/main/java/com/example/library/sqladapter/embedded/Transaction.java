@@ -0,0 +1,40 @@
+package com.example.library.sqladapter.embedded;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Unit of work bound to the thread that holds the database lock. Writes are applied in place and
+ * logged here so they can be undone in reverse order on rollback.
+ */
+final class Transaction {
+  private final boolean readOnly;
+  private final long stamp;
+  private final Deque<Undo> undo = new ArrayDeque<>();
+
+  Transaction(boolean readOnly, long stamp) {
+    this.readOnly = readOnly;
+    this.stamp = stamp;
+  }
+
+  boolean isReadOnly() {
+    return readOnly;
+  }
+
+  long stamp() {
+    return stamp;
+  }
+
+  void logged(Table table, long id, Object[] before) {
+    undo.push(new Undo(table, id, before));
+  }
+
+  void rollback() {
+    while (!undo.isEmpty()) {
+      Undo entry = undo.pop();
+      entry.table().restore(entry.id(), entry.before());
+    }
+  }
+
+  private record Undo(Table table, long id, Object[] before) {}
+}
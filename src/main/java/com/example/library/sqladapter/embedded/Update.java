@@ -0,0 +1,76 @@
+package com.example.library.sqladapter.embedded;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code update <table> set <column> = <expression>, ... [where ...] [returning ...]}. Every
+ * assignment is evaluated against the row as it was before the update.
+ */
+final class Update implements Statement {
+  private final Table table;
+  private final int[] targets;
+  private final List<Expression> values;
+  private final List<Condition> where;
+  private final List<Expression> returning;
+  private final String[] labels;
+  private final Access access;
+
+  Update(Table table, int[] targets, List<Expression> values, List<Condition> where,
+         List<Expression> returning, String[] labels) {
+    this.table = table;
+    this.targets = targets;
+    this.values = values;
+    this.where = where;
+    this.returning = returning;
+    this.labels = labels;
+    this.access = Access.plan(table, where, List.of());
+  }
+
+  @Override
+  public boolean writes() {
+    return true;
+  }
+
+  @Override
+  public Result execute(Execution execution) {
+    List<Object[]> matched = matching(access, where, execution);
+    List<Object[]> rows = new ArrayList<>();
+    for (Object[] before : matched) {
+      Object[] after = before.clone();
+      for (int i = 0; i < targets.length; i++) {
+        after[targets[i]] = values.get(i).evaluate(before, execution);
+      }
+      Object[] stored = table.update(before, after, execution.transaction());
+      if (!returning.isEmpty()) {
+        Object[] projected = new Object[returning.size()];
+        for (int i = 0; i < projected.length; i++) {
+          projected[i] = returning.get(i).evaluate(stored, execution);
+        }
+        rows.add(projected);
+      }
+    }
+    return new Result(labels, rows, matched.size());
+  }
+
+  /**
+   * Collects the target rows before any of them changes, so an update never revisits a row
+   * through an index entry it just moved.
+   */
+  static List<Object[]> matching(Access access, List<Condition> where, Execution execution) {
+    List<Object[]> matched = new ArrayList<>();
+    for (Object[] row : access.rows(execution)) {
+      boolean accepted = true;
+      for (Condition condition : where) {
+        if (!condition.test(row, execution)) {
+          accepted = false;
+          break;
+        }
+      }
+      if (accepted) {
+        matched.add(row);
+      }
+    }
+    return matched;
+  }
+}
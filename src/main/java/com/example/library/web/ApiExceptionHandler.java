@@ -1,12 +1,22 @@
 package com.example.library.web;
 
+import com.example.library.security.PasswordHashingUnavailableException;
+import com.example.library.service.BorrowRejectedException;
 import com.example.library.service.BusinessRuleException;
 import com.example.library.service.NotFoundException;
+import com.example.library.sqladapter.DeadlineExceededException;
+import com.example.library.sqladapter.LaneQuotaExceededException;
+import com.example.library.web.limit.LimitOutcome;
+import jakarta.servlet.http.HttpServletRequest;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -25,6 +35,66 @@ public class ApiExceptionHandler {
     return build(HttpStatus.BAD_REQUEST, ex.getMessage());
   }
 
+  @ExceptionHandler(BorrowRejectedException.class)
+  public ResponseEntity<Map<String, Object>> handleBorrowRejected(BorrowRejectedException ex) {
+    ResponseEntity<Map<String, Object>> response = build(HttpStatus.BAD_REQUEST, ex.getMessage());
+    response.getBody().put("reason", ex.getOutcome().name());
+    return response;
+  }
+
+  @ExceptionHandler(PasswordHashingUnavailableException.class)
+  public ResponseEntity<Map<String, Object>> handleHashingUnavailable(PasswordHashingUnavailableException ex,
+                                                                      HttpServletRequest request) {
+    LimitOutcome.mark(request, LimitOutcome.IGNORED);
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+        .body(build(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage()).getBody());
+  }
+
+  /**
+   * A statement that ran out of time is a timeout; a request refused because its deadline was
+   * already spent (or its client left) never got to the database, so it is only shed.
+   */
+  @ExceptionHandler({DeadlineExceededException.class, QueryTimeoutException.class})
+  public ResponseEntity<Map<String, Object>> handleDeadlineExceeded(RuntimeException ex, HttpServletRequest request) {
+    LimitOutcome.mark(request, ex instanceof QueryTimeoutException ? LimitOutcome.DROPPED : LimitOutcome.IGNORED);
+    return build(HttpStatus.SERVICE_UNAVAILABLE, "Request deadline exceeded");
+  }
+
+  @ExceptionHandler(LaneQuotaExceededException.class)
+  public ResponseEntity<Map<String, Object>> handleLaneQuotaExceeded(LaneQuotaExceededException ex,
+                                                                     HttpServletRequest request) {
+    LimitOutcome.mark(request, LimitOutcome.IGNORED);
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+        .body(build(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage()).getBody());
+  }
+
+  @ExceptionHandler(CannotAcquireLockException.class)
+  public ResponseEntity<Map<String, Object>> handleLockTimeout(CannotAcquireLockException ex,
+                                                               HttpServletRequest request) {
+    LimitOutcome.mark(request, LimitOutcome.DROPPED);
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(build(HttpStatus.SERVICE_UNAVAILABLE, "Storage busy").getBody());
+  }
+
+  /**
+   * Transactions wrap connection failures, including an exhausted lane quota or a spent deadline.
+   */
+  @ExceptionHandler(CannotCreateTransactionException.class)
+  public ResponseEntity<Map<String, Object>> handleNoConnection(CannotCreateTransactionException ex,
+                                                                HttpServletRequest request) {
+    if (ex.getCause() instanceof LaneQuotaExceededException quota) {
+      return handleLaneQuotaExceeded(quota, request);
+    }
+    if (ex.getCause() instanceof DeadlineExceededException deadline) {
+      return handleDeadlineExceeded(deadline, request);
+    }
+    LimitOutcome.mark(request, LimitOutcome.DROPPED);
+    return build(HttpStatus.SERVICE_UNAVAILABLE, "Database connection unavailable");
+  }
+
   @ExceptionHandler(MethodArgumentNotValidException.class)
   public ResponseEntity<Map<String, Object>> handleValidation(MethodArgumentNotValidException ex) {
     Map<String, String> fieldErrors = new HashMap<>();
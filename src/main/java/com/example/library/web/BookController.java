@@ -2,10 +2,17 @@ package com.example.library.web;
 
 import com.example.library.domain.Book;
 import com.example.library.service.BookService;
+import com.example.library.service.Page;
 import com.example.library.web.dto.BookRequest;
 import com.example.library.web.dto.BookResponse;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import java.util.List;
+import java.io.IOException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,21 +21,40 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
   private final BookService bookService;
+  private final JsonArrayWriter jsonArrayWriter;
+  private final Pagination pagination;
 
-  public BookController(BookService bookService) {
+  public BookController(BookService bookService, JsonArrayWriter jsonArrayWriter, Pagination pagination) {
     this.bookService = bookService;
+    this.jsonArrayWriter = jsonArrayWriter;
+    this.pagination = pagination;
   }
 
   @GetMapping
   @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','MEMBER')")
-  public List<BookResponse> list() {
-    return bookService.list().stream().map(BookController::toResponse).toList();
+  @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+      array = @ArraySchema(schema = @Schema(implementation = BookResponse.class))))
+  public void list(@RequestParam(required = false) String cursor,
+                   @RequestParam(required = false) Integer limit,
+                   HttpServletRequest request,
+                   HttpServletResponse response) throws IOException {
+    if (!pagination.isRequested(cursor, limit)) {
+      jsonArrayWriter.<BookResponse>write(response,
+          sink -> bookService.forEach(book -> sink.accept(toResponse(book))));
+      return;
+    }
+    int pageSize = pagination.pageSize(limit);
+    Page<Book> page = bookService.page(cursor, pageSize);
+    pagination.addNextLink(request, response, page.nextCursor(), pageSize);
+    jsonArrayWriter.<BookResponse>write(response,
+        sink -> page.items().forEach(book -> sink.accept(toResponse(book))));
   }
 
   @GetMapping("/{id}")
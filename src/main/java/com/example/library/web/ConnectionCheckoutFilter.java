@@ -0,0 +1,52 @@
+package com.example.library.web;
+
+import com.example.library.sqladapter.ConnectionCheckouts;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Records how many pool connections each request checked out as {@code db.connection.checkouts},
+ * tagged by HTTP method. Methods outside the standard set are tagged {@code other}, so clients cannot
+ * add tag values.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConnectionCheckoutFilter extends OncePerRequestFilter {
+  private static final Set<String> KNOWN_METHODS = Arrays.stream(HttpMethod.values())
+      .map(HttpMethod::name)
+      .collect(Collectors.toUnmodifiableSet());
+
+  private final MeterRegistry meterRegistry;
+
+  public ConnectionCheckoutFilter(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request,
+                                  HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+    ConnectionCheckouts.begin();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      DistributionSummary.builder("db.connection.checkouts")
+          .tag("method", KNOWN_METHODS.contains(request.getMethod()) ? request.getMethod() : "other")
+          .register(meterRegistry)
+          .record(ConnectionCheckouts.end());
+    }
+  }
+}
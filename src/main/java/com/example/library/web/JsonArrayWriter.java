@@ -0,0 +1,87 @@
+package com.example.library.web;
+
+import com.example.library.config.DeadlineProperties;
+import com.example.library.sqladapter.RequestDeadline;
+import com.example.library.web.limit.LimitOutcome;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes a JSON array to the response one element at a time, so large listings are never held in
+ * memory as a whole. The request deadline is extended to {@code app.deadlines.streamBudget}, since
+ * a full listing can take longer than the route budget.
+ */
+@Component
+public class JsonArrayWriter {
+  private final ObjectMapper objectMapper;
+  private final ObjectWriter elementWriter;
+  private final DeadlineProperties deadlineProperties;
+
+  public JsonArrayWriter(ObjectMapper objectMapper, DeadlineProperties deadlineProperties) {
+    this.objectMapper = objectMapper;
+    // Leave flushing to the response buffer; a flush per element commits the response on the
+    // first row and sends every row as its own chunk.
+    this.elementWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    this.deadlineProperties = deadlineProperties;
+  }
+
+  /**
+   * Opens the array, lets {@code producer} push elements into the supplied sink, then closes it.
+   * If the producer fails the array is left open: before anything was sent the response is reset
+   * so the exception handlers answer as usual, afterwards the connection is dropped, so a client
+   * never mistakes a partial listing for a complete one.
+   */
+  public <T> void write(HttpServletResponse response, Consumer<Consumer<T>> producer) throws IOException {
+    RequestDeadline deadline = RequestDeadline.current();
+    if (deadline != null) {
+      deadline.extendTo(deadlineProperties.getStreamBudget());
+    }
+    // A listing's time tracks its size and the client's pace, not the server's load.
+    LimitOutcome.markCurrent(LimitOutcome.IGNORED);
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream());
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    try {
+      generator.writeStartArray();
+      producer.accept(element -> writeElement(generator, element));
+      generator.writeEndArray();
+      generator.close();
+    } catch (UncheckedIOException ex) {
+      abort(response, ex.getCause());
+    } catch (IOException | RuntimeException ex) {
+      abort(response, ex);
+    }
+  }
+
+  private static void abort(HttpServletResponse response, Exception cause) throws IOException {
+    if (response.isCommitted()) {
+      throw new StreamAbortedException(cause);
+    }
+    response.reset();
+    if (cause instanceof IOException io) {
+      throw io;
+    }
+    throw (RuntimeException) cause;
+  }
+
+  private void writeElement(JsonGenerator generator, Object element) {
+    try {
+      elementWriter.writeValue(generator, element);
+    } catch (IOException ex) {
+      // The client has gone away; stop the query feeding this response.
+      RequestDeadline.cancelCurrent();
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
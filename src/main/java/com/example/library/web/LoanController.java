@@ -2,11 +2,18 @@ package com.example.library.web;
 
 import com.example.library.domain.Loan;
 import com.example.library.service.LoanService;
+import com.example.library.service.Page;
 import com.example.library.web.dto.LoanRequest;
 import com.example.library.web.dto.LoanResponse;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.Instant;
-import java.util.List;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -20,15 +27,31 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/loans")
 public class LoanController {
   private final LoanService loanService;
+  private final JsonArrayWriter jsonArrayWriter;
+  private final Pagination pagination;
 
-  public LoanController(LoanService loanService) {
+  public LoanController(LoanService loanService, JsonArrayWriter jsonArrayWriter, Pagination pagination) {
     this.loanService = loanService;
+    this.jsonArrayWriter = jsonArrayWriter;
+    this.pagination = pagination;
   }
 
   @GetMapping
   @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
-  public List<LoanResponse> list() {
-    return loanService.list().stream().map(LoanController::toResponse).toList();
+  @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+      array = @ArraySchema(schema = @Schema(implementation = LoanResponse.class))))
+  public void list(@RequestParam(required = false) String cursor,
+                   @RequestParam(required = false) Integer limit,
+                   HttpServletRequest request,
+                   HttpServletResponse response) throws IOException {
+    if (!pagination.isRequested(cursor, limit)) {
+      jsonArrayWriter.<LoanResponse>write(response,
+          sink -> loanService.forEach(loan -> sink.accept(toResponse(loan))));
+      return;
+    }
+    int pageSize = pagination.pageSize(limit);
+    Page<Loan> page = loanService.page(cursor, pageSize);
+    writePage(request, response, page, pageSize);
   }
 
   @GetMapping("/{id}")
@@ -45,15 +68,25 @@ public class LoanController {
 
   @GetMapping("/search")
   @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
-  public List<LoanResponse> search(@RequestParam(required = false) Long memberId,
-                                   @RequestParam(required = false) Long bookId,
-                                   @RequestParam(required = false) String status,
-                                   @RequestParam(required = false) Instant from,
-                                   @RequestParam(required = false) Instant to) {
-    return loanService.search(memberId, bookId, status, from, to)
-        .stream()
-        .map(LoanController::toResponse)
-        .toList();
+  @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+      array = @ArraySchema(schema = @Schema(implementation = LoanResponse.class))))
+  public void search(@RequestParam(required = false) Long memberId,
+                     @RequestParam(required = false) Long bookId,
+                     @RequestParam(required = false) String status,
+                     @RequestParam(required = false) Instant from,
+                     @RequestParam(required = false) Instant to,
+                     @RequestParam(required = false) String cursor,
+                     @RequestParam(required = false) Integer limit,
+                     HttpServletRequest request,
+                     HttpServletResponse response) throws IOException {
+    if (!pagination.isRequested(cursor, limit)) {
+      jsonArrayWriter.<LoanResponse>write(response,
+          sink -> loanService.search(memberId, bookId, status, from, to, loan -> sink.accept(toResponse(loan))));
+      return;
+    }
+    int pageSize = pagination.pageSize(limit);
+    Page<Loan> page = loanService.searchPage(memberId, bookId, status, from, to, cursor, pageSize);
+    writePage(request, response, page, pageSize);
   }
 
   @PostMapping("/{id}/return")
@@ -62,6 +95,13 @@ public class LoanController {
     return toResponse(loanService.returnLoan(id));
   }
 
+  private void writePage(HttpServletRequest request, HttpServletResponse response,
+                         Page<Loan> page, int pageSize) throws IOException {
+    pagination.addNextLink(request, response, page.nextCursor(), pageSize);
+    jsonArrayWriter.<LoanResponse>write(response,
+        sink -> page.items().forEach(loan -> sink.accept(toResponse(loan))));
+  }
+
   private static LoanResponse toResponse(Loan loan) {
     return new LoanResponse(
         loan.getId(),
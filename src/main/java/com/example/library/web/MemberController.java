@@ -2,10 +2,17 @@ package com.example.library.web;
 
 import com.example.library.domain.Member;
 import com.example.library.service.MemberService;
+import com.example.library.service.Page;
 import com.example.library.web.dto.MemberRequest;
 import com.example.library.web.dto.MemberResponse;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import java.util.List;
+import java.io.IOException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,21 +21,40 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/api/members")
 public class MemberController {
   private final MemberService memberService;
+  private final JsonArrayWriter jsonArrayWriter;
+  private final Pagination pagination;
 
-  public MemberController(MemberService memberService) {
+  public MemberController(MemberService memberService, JsonArrayWriter jsonArrayWriter, Pagination pagination) {
     this.memberService = memberService;
+    this.jsonArrayWriter = jsonArrayWriter;
+    this.pagination = pagination;
   }
 
   @GetMapping
   @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
-  public List<MemberResponse> list() {
-    return memberService.list().stream().map(MemberController::toResponse).toList();
+  @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+      array = @ArraySchema(schema = @Schema(implementation = MemberResponse.class))))
+  public void list(@RequestParam(required = false) String cursor,
+                   @RequestParam(required = false) Integer limit,
+                   HttpServletRequest request,
+                   HttpServletResponse response) throws IOException {
+    if (!pagination.isRequested(cursor, limit)) {
+      jsonArrayWriter.<MemberResponse>write(response,
+          sink -> memberService.forEach(member -> sink.accept(toResponse(member))));
+      return;
+    }
+    int pageSize = pagination.pageSize(limit);
+    Page<Member> page = memberService.page(cursor, pageSize);
+    pagination.addNextLink(request, response, page.nextCursor(), pageSize);
+    jsonArrayWriter.<MemberResponse>write(response,
+        sink -> page.items().forEach(member -> sink.accept(toResponse(member))));
   }
 
   @GetMapping("/{id}")
@@ -0,0 +1,52 @@
+package com.example.library.web;
+
+import com.example.library.config.PaginationProperties;
+import com.example.library.service.BusinessRuleException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Request-side helpers for keyset-paginated list endpoints. Paging is used when the client sends a
+ * {@code cursor} or {@code limit}; otherwise the endpoint streams the full listing.
+ */
+@Component
+public class Pagination {
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  private final PaginationProperties properties;
+
+  public Pagination(PaginationProperties properties) {
+    this.properties = properties;
+  }
+
+  public boolean isRequested(String cursor, Integer limit) {
+    return cursor != null || limit != null;
+  }
+
+  public int pageSize(Integer limit) {
+    if (limit == null) {
+      return properties.getDefaultPageSize();
+    }
+    if (limit < 1) {
+      throw new BusinessRuleException("limit must be positive");
+    }
+    return Math.min(limit, properties.getMaxPageSize());
+  }
+
+  public void addNextLink(HttpServletRequest request, HttpServletResponse response,
+                          String nextCursor, int pageSize) {
+    if (nextCursor == null) {
+      return;
+    }
+    String next = ServletUriComponentsBuilder.fromRequest(request)
+        .replaceQueryParam("cursor", nextCursor)
+        .replaceQueryParam("limit", pageSize)
+        .build()
+        .toUriString();
+    response.setHeader(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+    response.setHeader(NEXT_CURSOR_HEADER, nextCursor);
+  }
+}
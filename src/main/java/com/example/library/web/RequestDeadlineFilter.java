@@ -0,0 +1,79 @@
+package com.example.library.web;
+
+import com.example.library.config.DeadlineProperties;
+import com.example.library.sqladapter.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Starts the request's {@link RequestDeadline} using the first matching budget in
+ * {@code app.deadlines.routes}, and counts requests that ran past it as
+ * {@code request.deadline.exceeded} (or {@code request.cancelled} when the client of a streamed
+ * listing went away).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+  private static final String DEFAULT_ROUTE = "default";
+
+  private final DeadlineProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+  public RequestDeadlineFilter(DeadlineProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !properties.isEnabled();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request,
+                                  HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+    String route = DEFAULT_ROUTE;
+    Duration budget = properties.getDefaultBudget();
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    for (Map.Entry<String, Duration> entry : properties.getRoutes().entrySet()) {
+      if (matches(entry.getKey(), request.getMethod(), path)) {
+        route = entry.getKey();
+        budget = entry.getValue();
+        break;
+      }
+    }
+    RequestDeadline deadline = RequestDeadline.begin(route, budget);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      RequestDeadline.end();
+      if (deadline.isCancelled()) {
+        Counter.builder("request.cancelled").tag("route", route).register(meterRegistry).increment();
+      } else if (deadline.isExpired()) {
+        Counter.builder("request.deadline.exceeded").tag("route", route).register(meterRegistry).increment();
+      }
+    }
+  }
+
+  private boolean matches(String key, String method, String path) {
+    int space = key.indexOf(' ');
+    if (space < 0) {
+      return pathMatcher.match(key, path);
+    }
+    return key.substring(0, space).equalsIgnoreCase(method) && pathMatcher.match(key.substring(space + 1).trim(), path);
+  }
+}
@@ -0,0 +1,11 @@
+package com.example.library.web;
+
+/**
+ * Thrown when a streamed listing fails after part of it has reached the client. No handler maps
+ * it to a response, so the container drops the connection instead of completing the body.
+ */
+public class StreamAbortedException extends RuntimeException {
+  public StreamAbortedException(Throwable cause) {
+    super("Streamed response aborted after commit", cause);
+  }
+}
@@ -1,10 +1,15 @@
 package com.example.library.web.audit;
 
+import com.example.library.domain.AuditLogEntry;
 import com.example.library.service.AuditLogService;
-import java.sql.Timestamp;
+import com.example.library.web.JsonArrayWriter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.Instant;
-import java.util.List;
-import java.util.Map;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -17,95 +22,34 @@ import org.springframework.web.bind.annotation.RestController;
 
 public class AuditLogController {
   private final AuditLogService auditLogService;
+  private final JsonArrayWriter jsonArrayWriter;
 
-  public AuditLogController(AuditLogService auditLogService) {
+  public AuditLogController(AuditLogService auditLogService, JsonArrayWriter jsonArrayWriter) {
     this.auditLogService = auditLogService;
+    this.jsonArrayWriter = jsonArrayWriter;
   }
 
   @GetMapping
   @PreAuthorize("hasRole('ADMIN')")
-  public List<AuditLogResponse> search(@RequestParam(required = false) String user,
-                                       @RequestParam(required = false) Instant from,
-                                       @RequestParam(required = false) Instant to) {
-    return auditLogService.search(user, from, to).stream().map(this::toResponse).toList();
+  @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+      array = @ArraySchema(schema = @Schema(implementation = AuditLogResponse.class))))
+  public void search(@RequestParam(required = false) String user,
+                     @RequestParam(required = false) Instant from,
+                     @RequestParam(required = false) Instant to,
+                     HttpServletResponse response) throws IOException {
+    jsonArrayWriter.<AuditLogResponse>write(response,
+        sink -> auditLogService.search(user, from, to, entry -> sink.accept(toResponse(entry))));
   }
 
-  private AuditLogResponse toResponse(Map<String, Object> row) {
+  private static AuditLogResponse toResponse(AuditLogEntry entry) {
     return new AuditLogResponse(
-        toLong(row, "id"),
-        toString(row, "user_name"),
-        toString(row, "sql_text"),
-        toInstant(row, "executed_at"),
-        toInt(row, "rows_affected"),
-        toBoolean(row, "success"),
-        toString(row, "error_message")
+        entry.getId(),
+        entry.getUserName(),
+        entry.getSqlText(),
+        entry.getExecutedAt(),
+        entry.getRowsAffected(),
+        entry.getSuccess(),
+        entry.getErrorMessage()
     );
   }
-
-  private Long toLong(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    if (value == null) {
-      return null;
-    }
-    if (value instanceof Number number) {
-      return number.longValue();
-    }
-    return Long.parseLong(value.toString());
-  }
-
-  private Integer toInt(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    if (value == null) {
-      return null;
-    }
-    if (value instanceof Number number) {
-      return number.intValue();
-    }
-    return Integer.parseInt(value.toString());
-  }
-
-  private Boolean toBoolean(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    if (value == null) {
-      return null;
-    }
-    if (value instanceof Boolean bool) {
-      return bool;
-    }
-    return Boolean.parseBoolean(value.toString());
-  }
-
-  private String toString(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    return value == null ? null : value.toString();
-  }
-
-  private Instant toInstant(Map<String, Object> row, String key) {
-    Object value = getValue(row, key);
-    if (value == null) {
-      return null;
-    }
-    if (value instanceof Instant instant) {
-      return instant;
-    }
-    if (value instanceof Timestamp timestamp) {
-      return timestamp.toInstant();
-    }
-    return Instant.parse(value.toString());
-  }
-
-  private Object getValue(Map<String, Object> row, String key) {
-    if (row.containsKey(key)) {
-      return row.get(key);
-    }
-    String lower = key.toLowerCase();
-    if (row.containsKey(lower)) {
-      return row.get(lower);
-    }
-    String upper = key.toUpperCase();
-    if (row.containsKey(upper)) {
-      return row.get(upper);
-    }
-    return null;
-  }
 }
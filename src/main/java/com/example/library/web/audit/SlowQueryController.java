@@ -0,0 +1,40 @@
+package com.example.library.web.audit;
+
+import com.example.library.sqladapter.SlowQuery;
+import com.example.library.sqladapter.SlowQueryDetector;
+import java.util.List;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/audit-logs/slow-queries")
+@Profile("!embedded")
+public class SlowQueryController {
+  private final SlowQueryDetector slowQueryDetector;
+
+  public SlowQueryController(SlowQueryDetector slowQueryDetector) {
+    this.slowQueryDetector = slowQueryDetector;
+  }
+
+  @GetMapping
+  @PreAuthorize("hasRole('ADMIN')")
+  public List<SlowQueryResponse> recent() {
+    return slowQueryDetector.recent().stream().map(SlowQueryController::toResponse).toList();
+  }
+
+  private static SlowQueryResponse toResponse(SlowQuery query) {
+    return new SlowQueryResponse(
+        query.occurredAt(),
+        query.fingerprint(),
+        query.operation(),
+        query.sql(),
+        query.params(),
+        query.rows(),
+        query.durationMillis(),
+        query.plan()
+    );
+  }
+}
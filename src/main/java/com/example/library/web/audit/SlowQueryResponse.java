@@ -0,0 +1,16 @@
+package com.example.library.web.audit;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import java.time.Instant;
+import java.util.Map;
+
+public record SlowQueryResponse(
+    Instant occurredAt,
+    String fingerprint,
+    String operation,
+    String sql,
+    Map<String, String> params,
+    Integer rows,
+    long durationMillis,
+    @JsonRawValue String plan
+) {}
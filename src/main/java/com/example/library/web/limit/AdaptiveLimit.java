@@ -0,0 +1,87 @@
+package com.example.library.web.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows observed latency, in the style of a gradient limiter. A slow-moving
+ * average of request latency stands in for the no-load latency; while recent samples stay close to it
+ * the limit grows by roughly its square root per update, and as samples rise above it the limit shrinks
+ * in proportion. Dropped requests (server errors, timeouts) halve the limit, as in AIMD.
+ */
+public class AdaptiveLimit {
+  private static final double LONG_WINDOW_WEIGHT = 1.0 / 500;
+  private static final double SMOOTHING = 0.2;
+  private static final double BACKOFF_RATIO = 0.5;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double tolerance;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private volatile double limit;
+  private double longLatency;
+
+  public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.tolerance = tolerance;
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+  }
+
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= (int) limit) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Returns the permit taken by {@link #tryAcquire()} and feeds the request's latency into the limit.
+   */
+  public void release(long latencyNanos, boolean dropped) {
+    int active = inFlight.getAndDecrement();
+    synchronized (this) {
+      if (dropped) {
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        return;
+      }
+      if (longLatency == 0) {
+        longLatency = latencyNanos;
+      } else {
+        longLatency += (latencyNanos - longLatency) * LONG_WINDOW_WEIGHT;
+        // After a sustained slowdown the average lags behind; let it recover quickly once latency drops.
+        if (longLatency > 2 * latencyNanos) {
+          longLatency = (longLatency + latencyNanos) / 2;
+        }
+      }
+      double gradient = Math.max(0.5, Math.min(1.0, tolerance * longLatency / latencyNanos));
+      // Do not grow the limit while the lane is nowhere near using it.
+      if (gradient == 1.0 && active < limit / 2) {
+        return;
+      }
+      double target = limit * gradient + Math.sqrt(limit);
+      double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+      limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+  }
+
+  /**
+   * Returns the permit taken by {@link #tryAcquire()} without feeding the request into the limit.
+   */
+  public void releaseIgnored() {
+    inFlight.decrementAndGet();
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+}
@@ -0,0 +1,118 @@
+package com.example.library.web.limit;
+
+import com.example.library.config.ConcurrencyLimitProperties;
+import com.example.library.sqladapter.DeadlineExceededException;
+import com.example.library.sqladapter.LaneQuotaExceededException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Caps concurrent requests per {@link RouteClass} with an {@link AdaptiveLimit}. Requests over the
+ * limit are rejected immediately with HTTP 503 and a {@code Retry-After} header instead of queueing
+ * for a request thread or a pool connection. Only timeouts and database failures count as drops;
+ * requests shed further down (see {@link LimitOutcome}) leave the limit alone.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+  private final ConcurrencyLimitProperties properties;
+  private final ObjectMapper objectMapper;
+  private final Map<RouteClass, AdaptiveLimit> limits = new EnumMap<>(RouteClass.class);
+  private final Map<RouteClass, Counter> rejected = new EnumMap<>(RouteClass.class);
+
+  public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+    for (RouteClass routeClass : RouteClass.values()) {
+      ConcurrencyLimitProperties.Limit config = limitFor(routeClass);
+      AdaptiveLimit limit = new AdaptiveLimit(config.getInitial(), config.getMin(), config.getMax(),
+          properties.getTolerance());
+      String tag = routeClass.name().toLowerCase();
+      Gauge.builder("http.concurrency.limit", limit, AdaptiveLimit::getLimit)
+          .tag("routeClass", tag)
+          .register(meterRegistry);
+      Gauge.builder("http.concurrency.inflight", limit, AdaptiveLimit::getInFlight)
+          .tag("routeClass", tag)
+          .register(meterRegistry);
+      limits.put(routeClass, limit);
+      rejected.put(routeClass, Counter.builder("http.concurrency.rejected").tag("routeClass", tag)
+          .register(meterRegistry));
+    }
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !properties.isEnabled() || RouteClass.of(request) == null;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request,
+                                  HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+    RouteClass routeClass = RouteClass.of(request);
+    AdaptiveLimit limit = limits.get(routeClass);
+    if (!limit.tryAcquire()) {
+      rejected.get(routeClass).increment();
+      Rejections.serviceUnavailable(request, response, objectMapper, properties.getRetryAfter(),
+          "Too many concurrent requests");
+      return;
+    }
+    long started = System.nanoTime();
+    try {
+      filterChain.doFilter(request, response);
+    } catch (IOException | ServletException | RuntimeException ex) {
+      LimitOutcome.mark(request, storageFailure(ex) ? LimitOutcome.DROPPED : LimitOutcome.IGNORED);
+      throw ex;
+    } finally {
+      LimitOutcome outcome = LimitOutcome.of(request);
+      if (outcome == LimitOutcome.IGNORED) {
+        limit.releaseIgnored();
+      } else {
+        limit.release(System.nanoTime() - started, outcome == LimitOutcome.DROPPED);
+      }
+    }
+  }
+
+  /**
+   * Whether an exception that escaped the handlers came from the database. Lane quotas and spent
+   * deadlines reach here wrapped in data access exceptions too, but they are sheds, not overload.
+   */
+  private static boolean storageFailure(Throwable ex) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof LaneQuotaExceededException || cause instanceof DeadlineExceededException) {
+        return false;
+      }
+    }
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof DataAccessException || cause instanceof TransactionException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private ConcurrencyLimitProperties.Limit limitFor(RouteClass routeClass) {
+    return switch (routeClass) {
+      case READ -> properties.getRead();
+      case LOAN -> properties.getLoan();
+      case ADMIN -> properties.getAdmin();
+      case AUTH -> properties.getAuth();
+    };
+  }
+}
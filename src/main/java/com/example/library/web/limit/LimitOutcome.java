@@ -0,0 +1,40 @@
+package com.example.library.web.limit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * How a request feeds the {@link AdaptiveLimit} of its route class, kept as a request attribute by
+ * whichever component knows. An unmarked request is a latency sample.
+ */
+public enum LimitOutcome {
+  /** Shed before doing its work, or not comparable (a streamed listing): returns the permit only. */
+  IGNORED,
+  /** Timed out or failed in the database: the limit backs off. */
+  DROPPED;
+
+  private static final String ATTRIBUTE = LimitOutcome.class.getName();
+
+  /**
+   * Marks {@code request}. A drop is never downgraded, so a listing that fails stays a drop.
+   */
+  public static void mark(HttpServletRequest request, LimitOutcome outcome) {
+    if (request.getAttribute(ATTRIBUTE) != DROPPED) {
+      request.setAttribute(ATTRIBUTE, outcome);
+    }
+  }
+
+  /**
+   * Marks the request bound to the current thread, if any.
+   */
+  public static void markCurrent(LimitOutcome outcome) {
+    if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+      mark(attributes.getRequest(), outcome);
+    }
+  }
+
+  static LimitOutcome of(HttpServletRequest request) {
+    return (LimitOutcome) request.getAttribute(ATTRIBUTE);
+  }
+}
@@ -0,0 +1,37 @@
+package com.example.library.web.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+/**
+ * Writes the 503 body used when a request is shed before reaching a controller, in the same shape as
+ * {@code ApiExceptionHandler} errors, and marks the request {@link LimitOutcome#IGNORED}.
+ */
+final class Rejections {
+  private Rejections() {
+  }
+
+  static void serviceUnavailable(HttpServletRequest request, HttpServletResponse response, ObjectMapper objectMapper,
+                                 Duration retryAfter, String message) throws IOException {
+    LimitOutcome.mark(request, LimitOutcome.IGNORED);
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("timestamp", Instant.now().toString());
+    body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+    body.put("error", message);
+    response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    objectMapper.writeValue(response.getOutputStream(), body);
+  }
+}
@@ -0,0 +1,102 @@
+package com.example.library.web.limit;
+
+import com.example.library.config.LaneProperties;
+import com.example.library.sqladapter.ConnectionQuotas;
+import com.example.library.sqladapter.Lane;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Runs after {@code JwtAuthenticationFilter} and admits each request into its {@link Lane}: staff
+ * roles into {@code STAFF}, everything else (members and unauthenticated calls) into {@code MEMBER}.
+ * Each lane has its own cap on concurrent requests, so member traffic cannot take every request
+ * thread, and binds the lane to the thread so {@link ConnectionQuotas} can apply its connection cap.
+ */
+@Component
+public class RoleLaneFilter extends OncePerRequestFilter {
+  private static final Set<String> STAFF_AUTHORITIES = Set.of("ROLE_ADMIN", "ROLE_LIBRARIAN");
+
+  private final LaneProperties properties;
+  private final ObjectMapper objectMapper;
+  private final Map<Lane, Semaphore> permits = new EnumMap<>(Lane.class);
+  private final Map<Lane, Counter> rejected = new EnumMap<>(Lane.class);
+
+  public RoleLaneFilter(LaneProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+    for (Lane lane : EnumSet.of(Lane.STAFF, Lane.MEMBER)) {
+      int limit = (lane == Lane.STAFF ? properties.getStaff() : properties.getMember()).getRequests();
+      Semaphore semaphore = new Semaphore(limit, true);
+      String tag = lane.name().toLowerCase();
+      Gauge.builder("lane.requests.inflight", semaphore, s -> limit - s.availablePermits())
+          .tag("lane", tag)
+          .register(meterRegistry);
+      permits.put(lane, semaphore);
+      rejected.put(lane, Counter.builder("lane.rejected").tag("lane", tag).tag("resource", "request")
+          .register(meterRegistry));
+    }
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !properties.isEnabled();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request,
+                                  HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+    Lane lane = laneOf(SecurityContextHolder.getContext().getAuthentication());
+    Semaphore semaphore = permits.get(lane);
+    boolean acquired;
+    try {
+      acquired = semaphore.tryAcquire(properties.getQueueTimeout().toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+    if (!acquired) {
+      rejected.get(lane).increment();
+      Rejections.serviceUnavailable(request, response, objectMapper, properties.getRetryAfter(),
+          "Too many concurrent requests");
+      return;
+    }
+    ConnectionQuotas.enter(lane);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      ConnectionQuotas.exit();
+      semaphore.release();
+    }
+  }
+
+  static Lane laneOf(Authentication authentication) {
+    if (authentication == null) {
+      return Lane.MEMBER;
+    }
+    for (GrantedAuthority authority : authentication.getAuthorities()) {
+      if (STAFF_AUTHORITIES.contains(authority.getAuthority())) {
+        return Lane.STAFF;
+      }
+    }
+    return Lane.MEMBER;
+  }
+}
@@ -0,0 +1,36 @@
+package com.example.library.web.limit;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Groups API routes whose latency and cost are similar enough to share one concurrency limit.
+ */
+public enum RouteClass {
+  READ,
+  LOAN,
+  ADMIN,
+  AUTH;
+
+  /**
+   * Returns the class of {@code request}, or {@code null} for paths outside the API (actuator, docs).
+   */
+  public static RouteClass of(HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    if (path.startsWith("/auth/")) {
+      return AUTH;
+    }
+    if (!path.startsWith("/api/")) {
+      return null;
+    }
+    if (path.startsWith("/api/audit-logs")) {
+      return ADMIN;
+    }
+    if ("GET".equals(request.getMethod())) {
+      return READ;
+    }
+    if (path.startsWith("/api/loans") || path.startsWith("/api/reservations")) {
+      return LOAN;
+    }
+    return ADMIN;
+  }
+}
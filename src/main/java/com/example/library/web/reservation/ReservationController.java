@@ -1,30 +1,60 @@
 package com.example.library.web.reservation;
 
+import com.example.library.domain.Reservation;
+import com.example.library.service.Page;
 import com.example.library.service.ReservationService;
+import com.example.library.web.JsonArrayWriter;
+import com.example.library.web.Pagination;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/api/reservations")
 public class ReservationController {
   private final ReservationService reservationService;
+  private final JsonArrayWriter jsonArrayWriter;
+  private final Pagination pagination;
 
-  public ReservationController(ReservationService reservationService) {
+  public ReservationController(ReservationService reservationService,
+                               JsonArrayWriter jsonArrayWriter,
+                               Pagination pagination) {
     this.reservationService = reservationService;
+    this.jsonArrayWriter = jsonArrayWriter;
+    this.pagination = pagination;
   }
 
   @GetMapping
   @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
-  public List<ReservationResponse> list() {
-    return reservationService.list().stream().map(this::toResponse).toList();
+  @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+      array = @ArraySchema(schema = @Schema(implementation = ReservationResponse.class))))
+  public void list(@RequestParam(required = false) String cursor,
+                   @RequestParam(required = false) Integer limit,
+                   HttpServletRequest request,
+                   HttpServletResponse response) throws IOException {
+    if (!pagination.isRequested(cursor, limit)) {
+      jsonArrayWriter.<ReservationResponse>write(response,
+          sink -> reservationService.forEach(reservation -> sink.accept(toResponse(reservation))));
+      return;
+    }
+    int pageSize = pagination.pageSize(limit);
+    Page<Reservation> page = reservationService.page(cursor, pageSize);
+    pagination.addNextLink(request, response, page.nextCursor(), pageSize);
+    jsonArrayWriter.<ReservationResponse>write(response,
+        sink -> page.items().forEach(reservation -> sink.accept(toResponse(reservation))));
   }
 
   @GetMapping("/{id}")
@@ -37,8 +67,8 @@ public class ReservationController {
   @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','MEMBER')")
   public ReservationResponse create(@Valid @RequestBody ReservationRequest request) {
     String roleName = reservationService.resolveRoleNameForMember(request.memberId());
-    Map<String, Object> row = reservationService.create(request.bookId(), request.memberId(), roleName);
-    return toResponse(row);
+    Reservation reservation = reservationService.create(request.bookId(), request.memberId(), roleName);
+    return toResponse(reservation);
   }
 
   @PostMapping("/{id}/cancel")
@@ -47,16 +77,16 @@ public class ReservationController {
     reservationService.cancel(id);
   }
 
-  private ReservationResponse toResponse(Map<String, Object> row) {
+  private static ReservationResponse toResponse(Reservation reservation) {
     return new ReservationResponse(
-        reservationService.toLong(row, "id"),
-        reservationService.toLong(row, "book_id"),
-        reservationService.toLong(row, "member_id"),
-        reservationService.toString(row, "role_name"),
-        reservationService.toString(row, "status"),
-        reservationService.toInstant(row, "created_at"),
-        reservationService.toInstant(row, "fulfilled_at"),
-        reservationService.toInstant(row, "canceled_at")
+        reservation.getId(),
+        reservation.getBookId(),
+        reservation.getMemberId(),
+        reservation.getRoleName(),
+        reservation.getStatus(),
+        reservation.getCreatedAt(),
+        reservation.getFulfilledAt(),
+        reservation.getCanceledAt()
     );
   }
 }
@@ -0,0 +1,139 @@
+-- When a return last put a copy back into the slot; the fulfillment worker measures its lag from it.
+alter table book_stock_slots add column restocked_at timestamp with time zone;
+
+-- The fulfillment worker's scan for the oldest pending reservations.
+create index idx_reservations_pending on reservations (created_at) where status = 'PENDING';
+
+-- Same checks and outcomes as V10, with pending reservations holding copies on the shelf.
+create or replace function borrow_book(
+  p_book_id bigint,
+  p_member_id bigint,
+  p_max_active_loans integer,
+  p_max_loan_days integer,
+  p_now timestamp with time zone
+) returns table (
+  outcome varchar(32),
+  loan_id bigint,
+  book_id bigint,
+  member_id bigint,
+  borrowed_at timestamp with time zone,
+  due_date timestamp with time zone,
+  returned_at timestamp with time zone,
+  reservation_id bigint
+)
+language plpgsql
+as $$
+#variable_conflict use_column
+declare
+  v_available bigint;
+  v_pending bigint;
+  v_role_id bigint;
+  v_role_name varchar(64);
+  v_active_loans bigint;
+  v_earliest_due_date timestamp with time zone;
+  v_reservation_id bigint;
+  v_slot_id bigint;
+  v_slot integer;
+  v_loan loans%rowtype;
+begin
+  perform 1 from books b where b.id = p_book_id and b.deleted_at is null;
+  if not found then
+    return query select 'BOOK_NOT_FOUND'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+  select coalesce(sum(s.available_copies), 0) into v_available
+    from book_stock_slots s
+   where s.book_id = p_book_id;
+  -- Copies on the shelf are held for pending reservations until the fulfillment worker hands
+  -- them out, so a walk-in borrow cannot jump the queue.
+  select count(*) into v_pending
+    from reservations r
+   where r.book_id = p_book_id and r.status = 'PENDING';
+
+  -- Lock the member so concurrent borrows by the same member cannot both pass the loan limit.
+  select m.role_id into v_role_id
+    from members m
+   where m.id = p_member_id and m.deleted_at is null
+     for update;
+  if not found then
+    return query select 'MEMBER_NOT_FOUND'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  select s.active_loans, s.earliest_due_date into v_active_loans, v_earliest_due_date
+    from member_loan_summary s
+   where s.member_id = p_member_id;
+  if not found then
+    select count(*), min(l.due_date) into v_active_loans, v_earliest_due_date
+      from loans l
+     where l.member_id = p_member_id and l.returned_at is null;
+    insert into member_loan_summary (member_id, active_loans, earliest_due_date)
+      values (p_member_id, v_active_loans, v_earliest_due_date)
+      on conflict (member_id) do nothing;
+  end if;
+
+  if v_available - v_pending <= 0 then
+    select r.name into v_role_name from roles r where r.id = v_role_id;
+    insert into reservations (book_id, member_id, role_name, status, created_at)
+      values (p_book_id, p_member_id, coalesce(v_role_name, 'MEMBER'), 'PENDING', p_now)
+      returning id into v_reservation_id;
+    return query select 'RESERVED'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, v_reservation_id;
+    return;
+  end if;
+
+  if v_active_loans >= p_max_active_loans then
+    return query select 'MAX_ACTIVE_LOANS'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  if v_earliest_due_date < p_now then
+    return query select 'OVERDUE_LOANS'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  select s.id, s.slot into v_slot_id, v_slot
+    from book_stock_slots s
+   where s.book_id = p_book_id and s.available_copies > 0
+   order by random()
+   limit 1
+     for update skip locked;
+  if not found then
+    select s.id, s.slot into v_slot_id, v_slot
+      from book_stock_slots s
+     where s.book_id = p_book_id and s.available_copies > 0
+     order by random()
+     limit 1
+       for update;
+  end if;
+  if not found then
+    return query select 'NO_COPIES'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  update book_stock_slots s set available_copies = s.available_copies - 1
+   where s.id = v_slot_id and s.available_copies > 0;
+  if not found then
+    return query select 'NO_COPIES'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  insert into loans (book_id, member_id, borrowed_at, due_date, returned_at, stock_slot)
+    values (p_book_id, p_member_id, p_now, p_now + p_max_loan_days * interval '24 hours', null, v_slot)
+    returning * into v_loan;
+
+  update member_loan_summary s
+     set active_loans = s.active_loans + 1,
+         earliest_due_date = least(s.earliest_due_date, v_loan.due_date)
+   where s.member_id = p_member_id;
+
+  return query select 'BORROWED'::varchar(32), v_loan.id, v_loan.book_id, v_loan.member_id,
+    v_loan.borrowed_at, v_loan.due_date, v_loan.returned_at, null::bigint;
+end;
+$$;
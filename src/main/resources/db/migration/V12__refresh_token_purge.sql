@@ -0,0 +1,4 @@
+-- RefreshTokenService purges expired tokens, and revoked tokens past the reuse detection window,
+-- every app.security.jwt.purgeInterval.
+create index if not exists idx_refresh_tokens_expires_at on refresh_tokens (expires_at);
+create index if not exists idx_refresh_tokens_revoked_at on refresh_tokens (revoked_at) where revoked_at is not null;
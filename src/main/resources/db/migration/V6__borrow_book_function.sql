@@ -0,0 +1,93 @@
+-- Performs every borrow check, the copy decrement and the loan insert in one call.
+-- Returns exactly one row; outcome is BORROWED or the reason the borrow was rejected.
+create or replace function borrow_book(
+  p_book_id bigint,
+  p_member_id bigint,
+  p_max_active_loans integer,
+  p_max_loan_days integer,
+  p_now timestamp with time zone
+) returns table (
+  outcome varchar(32),
+  loan_id bigint,
+  book_id bigint,
+  member_id bigint,
+  borrowed_at timestamp with time zone,
+  due_date timestamp with time zone,
+  returned_at timestamp with time zone,
+  reservation_id bigint
+)
+language plpgsql
+as $$
+#variable_conflict use_column
+declare
+  v_available integer;
+  v_role_id bigint;
+  v_role_name varchar(64);
+  v_active_loans bigint;
+  v_reservation_id bigint;
+  v_loan loans%rowtype;
+begin
+  select b.available_copies into v_available
+    from books b
+   where b.id = p_book_id and b.deleted_at is null;
+  if not found then
+    return query select 'BOOK_NOT_FOUND'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  -- Lock the member so concurrent borrows by the same member cannot both pass the loan limit.
+  select m.role_id into v_role_id
+    from members m
+   where m.id = p_member_id and m.deleted_at is null
+     for update;
+  if not found then
+    return query select 'MEMBER_NOT_FOUND'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  if v_available <= 0 then
+    select r.name into v_role_name from roles r where r.id = v_role_id;
+    insert into reservations (book_id, member_id, role_name, status, created_at)
+      values (p_book_id, p_member_id, coalesce(v_role_name, 'MEMBER'), 'PENDING', p_now)
+      returning id into v_reservation_id;
+    return query select 'RESERVED'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, v_reservation_id;
+    return;
+  end if;
+
+  select count(*) into v_active_loans
+    from loans l
+   where l.member_id = p_member_id and l.returned_at is null;
+  if v_active_loans >= p_max_active_loans then
+    return query select 'MAX_ACTIVE_LOANS'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  if exists (
+    select 1 from loans l
+     where l.member_id = p_member_id and l.returned_at is null and l.due_date < p_now
+  ) then
+    return query select 'OVERDUE_LOANS'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  update books b set available_copies = b.available_copies - 1
+   where b.id = p_book_id and b.available_copies > 0;
+  if not found then
+    return query select 'NO_COPIES'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  insert into loans (book_id, member_id, borrowed_at, due_date, returned_at)
+    values (p_book_id, p_member_id, p_now, p_now + p_max_loan_days * interval '24 hours', null)
+    returning * into v_loan;
+
+  return query select 'BORROWED'::varchar(32), v_loan.id, v_loan.book_id, v_loan.member_id,
+    v_loan.borrowed_at, v_loan.due_date, v_loan.returned_at, null::bigint;
+end;
+$$;
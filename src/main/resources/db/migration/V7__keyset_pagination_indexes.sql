@@ -0,0 +1,3 @@
+create index if not exists idx_loans_borrowed_at_id on loans (borrowed_at desc, id desc);
+create index if not exists idx_loans_member_borrowed_at_id on loans (member_id, borrowed_at desc, id desc);
+create index if not exists idx_reservations_created_at_id on reservations (created_at desc, id desc);
@@ -0,0 +1,12 @@
+-- Long-lived refresh tokens, stored as SHA-256 hex digests. A token is single use: rotating it sets
+-- revoked_at and issues a new row for the same member.
+create table if not exists refresh_tokens (
+  id bigserial primary key,
+  member_id bigint not null references members(id),
+  token_hash varchar(64) not null unique,
+  issued_at timestamp with time zone not null,
+  expires_at timestamp with time zone not null,
+  revoked_at timestamp with time zone
+);
+
+create index if not exists idx_refresh_tokens_member on refresh_tokens (member_id) where revoked_at is null;
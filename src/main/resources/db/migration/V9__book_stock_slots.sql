@@ -0,0 +1,239 @@
+-- Spreads each title's copies over up to 8 stock slot rows, so concurrent borrows and returns of
+-- one title lock different rows instead of queueing on books.available_copies. The available
+-- count of a title is the sum over its slots.
+create table book_stock_slots (
+  id bigserial primary key,
+  book_id bigint not null references books(id),
+  slot integer not null,
+  total_copies integer not null check (total_copies >= 0),
+  available_copies integer not null check (available_copies >= 0),
+  check (available_copies <= total_copies),
+  unique (book_id, slot)
+);
+
+-- The slot a loan took its copy from; the return puts the copy back there.
+alter table loans add column stock_slot integer;
+create index idx_loans_book_active on loans (book_id) where returned_at is null;
+
+do $$
+declare
+  b record;
+  l record;
+  v_slots integer;
+  v_slot integer;
+  v_excess integer;
+begin
+  for b in select id, total_copies, available_copies from books loop
+    v_slots := greatest(1, least(8, b.total_copies));
+    insert into book_stock_slots (book_id, slot, total_copies, available_copies)
+      select b.id, s,
+             b.total_copies / v_slots + case when s < b.total_copies % v_slots then 1 else 0 end,
+             b.total_copies / v_slots + case when s < b.total_copies % v_slots then 1 else 0 end
+        from generate_series(0, v_slots - 1) s;
+
+    -- Each active loan takes its copy from the fullest slot.
+    for l in select id from loans where book_id = b.id and returned_at is null order by id loop
+      update book_stock_slots set available_copies = available_copies - 1
+       where id = (select id from book_stock_slots
+                    where book_id = b.id and available_copies > 0
+                    order by available_copies desc, slot limit 1)
+      returning slot into v_slot;
+      update loans set stock_slot = v_slot where id = l.id;
+    end loop;
+
+    -- Copies taken off the shelf by hand, beyond those on loan.
+    select sum(available_copies) - b.available_copies into v_excess
+      from book_stock_slots where book_id = b.id;
+    while v_excess > 0 loop
+      update book_stock_slots set available_copies = available_copies - 1
+       where id = (select id from book_stock_slots
+                    where book_id = b.id and available_copies > 0
+                    order by available_copies desc, slot limit 1);
+      v_excess := v_excess - 1;
+    end loop;
+  end loop;
+end;
+$$;
+
+-- Instances of the previous release may still be running, or be rolled back to, and they read and
+-- write books.available_copies. Until a later release drops it, the column is kept equal to the sum
+-- of the title's slots in both directions: slot changes are added to it, and changes made through
+-- it are applied to the slots. A change that no slot can take fails instead of drifting. Each
+-- trigger skips changes made by the other (pg_trigger_depth). While the column is kept, every
+-- borrow and return also updates the books row, so the striping gain starts once it is dropped.
+update books b set available_copies = coalesce(
+  (select sum(s.available_copies) from book_stock_slots s where s.book_id = b.id), 0);
+alter table books drop constraint if exists books_check;
+alter table books alter column available_copies set default 0;
+
+create function sync_books_available_copies() returns trigger
+language plpgsql
+as $$
+declare
+  v_book_id bigint := coalesce(new.book_id, old.book_id);
+  v_delta integer := coalesce(new.available_copies, 0) - coalesce(old.available_copies, 0);
+begin
+  if v_delta <> 0 then
+    update books set available_copies = available_copies + v_delta where id = v_book_id;
+  end if;
+  return null;
+end;
+$$;
+
+create trigger book_stock_slots_sync_books
+  after insert or update of available_copies or delete on book_stock_slots
+  for each row when (pg_trigger_depth() < 1)
+  execute function sync_books_available_copies();
+
+create function forward_book_available_copies() returns trigger
+language plpgsql
+as $$
+declare
+  v_delta integer := new.available_copies - old.available_copies;
+begin
+  while v_delta > 0 loop
+    update book_stock_slots set available_copies = available_copies + 1
+     where id = (select id from book_stock_slots
+                  where book_id = new.id and available_copies < total_copies
+                  order by available_copies, slot limit 1 for update);
+    if not found then
+      raise exception 'book % has no stock slot with room for a returned copy', new.id;
+    end if;
+    v_delta := v_delta - 1;
+  end loop;
+  while v_delta < 0 loop
+    update book_stock_slots set available_copies = available_copies - 1
+     where id = (select id from book_stock_slots
+                  where book_id = new.id and available_copies > 0
+                  order by available_copies desc, slot limit 1 for update);
+    if not found then
+      raise exception 'book % has no copy left in its stock slots', new.id;
+    end if;
+    v_delta := v_delta + 1;
+  end loop;
+  return new;
+end;
+$$;
+
+create trigger books_forward_available_copies
+  after update of available_copies on books
+  for each row when (new.available_copies is distinct from old.available_copies and pg_trigger_depth() < 1)
+  execute function forward_book_available_copies();
+
+-- Same checks and outcomes as V6, but the copy is claimed from a random slot that still has one.
+-- Slots locked by other borrowers are skipped; only when every slot with a copy is locked does
+-- the borrow wait for one.
+create or replace function borrow_book(
+  p_book_id bigint,
+  p_member_id bigint,
+  p_max_active_loans integer,
+  p_max_loan_days integer,
+  p_now timestamp with time zone
+) returns table (
+  outcome varchar(32),
+  loan_id bigint,
+  book_id bigint,
+  member_id bigint,
+  borrowed_at timestamp with time zone,
+  due_date timestamp with time zone,
+  returned_at timestamp with time zone,
+  reservation_id bigint
+)
+language plpgsql
+as $$
+#variable_conflict use_column
+declare
+  v_available bigint;
+  v_role_id bigint;
+  v_role_name varchar(64);
+  v_active_loans bigint;
+  v_reservation_id bigint;
+  v_slot_id bigint;
+  v_slot integer;
+  v_loan loans%rowtype;
+begin
+  perform 1 from books b where b.id = p_book_id and b.deleted_at is null;
+  if not found then
+    return query select 'BOOK_NOT_FOUND'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+  select coalesce(sum(s.available_copies), 0) into v_available
+    from book_stock_slots s
+   where s.book_id = p_book_id;
+
+  -- Lock the member so concurrent borrows by the same member cannot both pass the loan limit.
+  select m.role_id into v_role_id
+    from members m
+   where m.id = p_member_id and m.deleted_at is null
+     for update;
+  if not found then
+    return query select 'MEMBER_NOT_FOUND'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  if v_available <= 0 then
+    select r.name into v_role_name from roles r where r.id = v_role_id;
+    insert into reservations (book_id, member_id, role_name, status, created_at)
+      values (p_book_id, p_member_id, coalesce(v_role_name, 'MEMBER'), 'PENDING', p_now)
+      returning id into v_reservation_id;
+    return query select 'RESERVED'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, v_reservation_id;
+    return;
+  end if;
+
+  select count(*) into v_active_loans
+    from loans l
+   where l.member_id = p_member_id and l.returned_at is null;
+  if v_active_loans >= p_max_active_loans then
+    return query select 'MAX_ACTIVE_LOANS'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  if exists (
+    select 1 from loans l
+     where l.member_id = p_member_id and l.returned_at is null and l.due_date < p_now
+  ) then
+    return query select 'OVERDUE_LOANS'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  select s.id, s.slot into v_slot_id, v_slot
+    from book_stock_slots s
+   where s.book_id = p_book_id and s.available_copies > 0
+   order by random()
+   limit 1
+     for update skip locked;
+  if not found then
+    select s.id, s.slot into v_slot_id, v_slot
+      from book_stock_slots s
+     where s.book_id = p_book_id and s.available_copies > 0
+     order by random()
+     limit 1
+       for update;
+  end if;
+  if not found then
+    return query select 'NO_COPIES'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  update book_stock_slots s set available_copies = s.available_copies - 1
+   where s.id = v_slot_id and s.available_copies > 0;
+  if not found then
+    return query select 'NO_COPIES'::varchar(32), null::bigint, p_book_id, p_member_id,
+      null::timestamptz, null::timestamptz, null::timestamptz, null::bigint;
+    return;
+  end if;
+
+  insert into loans (book_id, member_id, borrowed_at, due_date, returned_at, stock_slot)
+    values (p_book_id, p_member_id, p_now, p_now + p_max_loan_days * interval '24 hours', null, v_slot)
+    returning * into v_loan;
+
+  return query select 'BORROWED'::varchar(32), v_loan.id, v_loan.book_id, v_loan.member_id,
+    v_loan.borrowed_at, v_loan.due_date, v_loan.returned_at, null::bigint;
+end;
+$$;
@@ -0,0 +1,218 @@
+package com.example.library;
+
+import com.example.library.config.AuditProperties;
+import com.example.library.sqladapter.AuditLogWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class AuditLogWriterTest {
+  private final AuditProperties properties = new AuditProperties();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+  private AuditLogWriter writer;
+
+  @AfterEach
+  void stopWriter() {
+    jdbcTemplate.release();
+    if (writer != null) {
+      writer.stop();
+    }
+  }
+
+  @Test
+  void accumulatesUntilFlushSize() throws InterruptedException {
+    properties.setFlushSize(3);
+    properties.setFlushInterval(Duration.ofSeconds(30));
+    start();
+
+    write(3);
+    awaitBatches(1);
+    write(1);
+    Thread.sleep(200);
+
+    Assertions.assertEquals(List.of(3), jdbcTemplate.batches);
+    Assertions.assertEquals(3.0, registry.get("audit.records.written").counter().count());
+  }
+
+  @Test
+  void flushesPartialBatchAfterInterval() throws InterruptedException {
+    properties.setFlushSize(100);
+    properties.setFlushInterval(Duration.ofMillis(100));
+    start();
+
+    write(2);
+    awaitBatches(1);
+
+    Assertions.assertEquals(List.of(2), jdbcTemplate.batches);
+  }
+
+  @Test
+  void stopWritesOpenBatchAndQueuedRecords() {
+    properties.setFlushSize(100);
+    properties.setFlushInterval(Duration.ofSeconds(30));
+    start();
+
+    write(5);
+    writer.stop();
+
+    Assertions.assertEquals(5, jdbcTemplate.batches.stream().mapToInt(Integer::intValue).sum());
+    Assertions.assertEquals(5.0, registry.get("audit.records.written").counter().count());
+    Assertions.assertEquals(jdbcTemplate.batches.size(), registry.get("audit.flush.latency").timer().count());
+  }
+
+  @Test
+  void recordsWrittenWhileStoppingAreNotLost() throws InterruptedException {
+    properties.setFlushSize(50);
+    start();
+
+    List<Thread> callers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread caller = new Thread(() -> write(2000));
+      callers.add(caller);
+      caller.start();
+    }
+    Thread.sleep(5);
+    writer.stop();
+    for (Thread caller : callers) {
+      caller.join();
+    }
+
+    Assertions.assertEquals(8000.0, registry.get("audit.records.written").counter().count());
+  }
+
+  @Test
+  void dropPolicyDiscardsRecordWhenQueueIsFull() throws InterruptedException {
+    fillQueue(AuditProperties.OverflowPolicy.DROP);
+
+    write(1);
+
+    Assertions.assertEquals(1.0, registry.get("audit.records.dropped").counter().count());
+    jdbcTemplate.release();
+    writer.stop();
+    Assertions.assertEquals(2.0, registry.get("audit.records.written").counter().count());
+  }
+
+  @Test
+  void spillPolicyWritesRecordOnCallerThread() throws InterruptedException {
+    fillQueue(AuditProperties.OverflowPolicy.SPILL);
+
+    write(1);
+
+    Assertions.assertEquals(1.0, registry.get("audit.records.spilled").counter().count());
+    Assertions.assertEquals(1.0, registry.get("audit.records.written").counter().count());
+    jdbcTemplate.release();
+    writer.stop();
+    Assertions.assertEquals(3.0, registry.get("audit.records.written").counter().count());
+  }
+
+  @Test
+  void blockPolicyWaitsForSpace() throws InterruptedException {
+    fillQueue(AuditProperties.OverflowPolicy.BLOCK);
+
+    Thread caller = new Thread(() -> write(1));
+    caller.start();
+    caller.join(200);
+    Assertions.assertTrue(caller.isAlive());
+
+    jdbcTemplate.release();
+    caller.join(5_000);
+    Assertions.assertFalse(caller.isAlive());
+    writer.stop();
+    Assertions.assertEquals(3.0, registry.get("audit.records.written").counter().count());
+    Assertions.assertEquals(0.0, registry.get("audit.records.dropped").counter().count());
+  }
+
+  @Test
+  void countsFailedBatches() throws InterruptedException {
+    jdbcTemplate.failing = true;
+    properties.setFlushSize(2);
+    start();
+
+    write(2);
+    awaitBatches(1);
+    writer.stop();
+
+    Assertions.assertEquals(2.0, registry.get("audit.records.failed").counter().count());
+    Assertions.assertEquals(0.0, registry.get("audit.records.written").counter().count());
+  }
+
+  /**
+   * Parks the writer thread inside a flush with one more record queued behind it, so the next
+   * write overflows the queue.
+   */
+  private void fillQueue(AuditProperties.OverflowPolicy policy) throws InterruptedException {
+    properties.setQueueCapacity(1);
+    properties.setFlushSize(1);
+    properties.setOverflowPolicy(policy);
+    jdbcTemplate.blockWriter();
+    start();
+    write(1);
+    Assertions.assertTrue(jdbcTemplate.writerBlocked.await(5, TimeUnit.SECONDS));
+    write(1);
+  }
+
+  private void start() {
+    writer = new AuditLogWriter(jdbcTemplate, properties, registry);
+    writer.start();
+  }
+
+  private void write(int records) {
+    for (int i = 0; i < records; i++) {
+      writer.write("alice", "select 1", 1, true, null);
+    }
+  }
+
+  private void awaitBatches(int batches) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (jdbcTemplate.batches.size() < batches && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    Assertions.assertEquals(batches, jdbcTemplate.batches.size());
+  }
+
+  /**
+   * Records the row count of each insert. The writer thread can be held inside its flush until
+   * {@link #release()}.
+   */
+  private static class RecordingJdbcTemplate extends JdbcTemplate {
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch writerBlocked = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+    private volatile boolean blocking;
+    private volatile boolean failing;
+
+    void blockWriter() {
+      blocking = true;
+    }
+
+    void release() {
+      released.countDown();
+    }
+
+    @Override
+    public int update(String sql, Object... args) {
+      if (blocking && Thread.currentThread().getName().equals("audit-log-writer")) {
+        writerBlocked.countDown();
+        try {
+          released.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      batches.add(args.length / 6);
+      if (failing) {
+        throw new IllegalStateException("audit_log unavailable");
+      }
+      return args.length / 6;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.example.library;
+
+import com.example.library.security.BoundedPasswordEncoder;
+import com.example.library.security.PasswordHashingProperties;
+import com.example.library.security.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class BoundedPasswordEncoderTest {
+
+  @Test
+  void rejectsWhenPoolAndQueueAreFull() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordHashingProperties properties = new PasswordHashingProperties();
+    properties.setThreads(1);
+    properties.setQueueCapacity(0);
+    properties.setTimeout(Duration.ofSeconds(5));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking(started, release), properties, registry)) {
+      CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+      started.await();
+
+      Assertions.assertThrows(PasswordHashingUnavailableException.class, () -> encoder.encode("b"));
+      Assertions.assertEquals(1.0, registry.get("password.hash.rejected").tag("reason", "queue_full").counter().count());
+
+      release.countDown();
+      Assertions.assertEquals("hash:a", first.get());
+    }
+  }
+
+  @Test
+  void timesOutSlowHash() {
+    PasswordHashingProperties properties = new PasswordHashingProperties();
+    properties.setTimeout(Duration.ofMillis(50));
+
+    try (BoundedPasswordEncoder encoder =
+             new BoundedPasswordEncoder(blocking(new CountDownLatch(1), new CountDownLatch(1)), properties,
+                 new SimpleMeterRegistry())) {
+      Assertions.assertThrows(PasswordHashingUnavailableException.class, () -> encoder.matches("a", "hash:a"));
+    }
+  }
+
+  private static PasswordEncoder blocking(CountDownLatch started, CountDownLatch release) {
+    return new PasswordEncoder() {
+      @Override
+      public String encode(CharSequence rawPassword) {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        return "hash:" + rawPassword;
+      }
+
+      @Override
+      public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return encode(rawPassword).equals(encodedPassword);
+      }
+    };
+  }
+}
@@ -0,0 +1,105 @@
+package com.example.library;
+
+import com.example.library.config.ConcurrencyLimitProperties;
+import com.example.library.web.limit.AdaptiveLimit;
+import com.example.library.web.limit.ConcurrencyLimitFilter;
+import com.example.library.web.limit.LimitOutcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ConcurrencyLimitTest {
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+  @Test
+  void growsUnderSteadyLatencyAndShrinksWhenLatencyRises() {
+    AdaptiveLimit limit = new AdaptiveLimit(10, 2, 100, 1.5);
+    for (int i = 0; i < 50; i++) {
+      saturateAndRelease(limit, FAST);
+    }
+    int grown = limit.getLimit();
+    Assertions.assertTrue(grown > 10, "limit should grow, was " + grown);
+
+    for (int i = 0; i < 2; i++) {
+      saturateAndRelease(limit, FAST * 10);
+    }
+    Assertions.assertTrue(limit.getLimit() < grown, "limit should shrink, was " + limit.getLimit());
+  }
+
+  @Test
+  void dropsHalveTheLimitButNotBelowMinimum() {
+    AdaptiveLimit limit = new AdaptiveLimit(16, 3, 100, 1.5);
+    Assertions.assertTrue(limit.tryAcquire());
+    limit.release(FAST, true);
+    Assertions.assertEquals(8, limit.getLimit());
+    for (int i = 0; i < 5; i++) {
+      Assertions.assertTrue(limit.tryAcquire());
+      limit.release(FAST, true);
+    }
+    Assertions.assertEquals(3, limit.getLimit());
+  }
+
+  @Test
+  void filterShedsRequestsOverTheLimitWithRetryAfter() throws Exception {
+    ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+    properties.setRead(new ConcurrencyLimitProperties.Limit(1, 1, 1));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties, new ObjectMapper(), registry);
+    MockHttpServletResponse nested = new MockHttpServletResponse();
+    MockHttpServletResponse loan = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), new MockHttpServletResponse(),
+        (request, response) -> {
+          filter.doFilter(new MockHttpServletRequest("GET", "/api/books/1"), nested, (req, res) -> { });
+          filter.doFilter(new MockHttpServletRequest("POST", "/api/loans/borrow"), loan, (req, res) -> { });
+        });
+
+    Assertions.assertEquals(503, nested.getStatus());
+    Assertions.assertEquals("1", nested.getHeader("Retry-After"));
+    Assertions.assertEquals(200, loan.getStatus());
+    Assertions.assertEquals(1.0, registry.get("http.concurrency.rejected").tag("routeClass", "read").counter().count());
+    Assertions.assertEquals(0.0, registry.get("http.concurrency.inflight").tag("routeClass", "read").gauge().value());
+  }
+
+  @Test
+  void onlyTimeoutsAndStorageFailuresShrinkTheLimit() throws Exception {
+    ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+    properties.setLoan(new ConcurrencyLimitProperties.Limit(16, 2, 16));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties, new ObjectMapper(), registry);
+
+    filter.doFilter(new MockHttpServletRequest("POST", "/api/loans/borrow"), new MockHttpServletResponse(),
+        (request, response) -> {
+          LimitOutcome.mark((HttpServletRequest) request, LimitOutcome.IGNORED);
+          ((HttpServletResponse) response).setStatus(503);
+        });
+    filter.doFilter(new MockHttpServletRequest("POST", "/api/loans/borrow"), new MockHttpServletResponse(),
+        (request, response) -> ((HttpServletResponse) response).setStatus(503));
+    Assertions.assertEquals(16.0, registry.get("http.concurrency.limit").tag("routeClass", "loan").gauge().value());
+
+    Assertions.assertThrows(QueryTimeoutException.class, () -> filter.doFilter(
+        new MockHttpServletRequest("POST", "/api/loans/borrow"), new MockHttpServletResponse(),
+        (request, response) -> {
+          throw new QueryTimeoutException("statement timeout");
+        }));
+    Assertions.assertEquals(8.0, registry.get("http.concurrency.limit").tag("routeClass", "loan").gauge().value());
+    Assertions.assertEquals(0.0, registry.get("http.concurrency.inflight").tag("routeClass", "loan").gauge().value());
+  }
+
+  private static void saturateAndRelease(AdaptiveLimit limit, long latencyNanos) {
+    int acquired = 0;
+    while (limit.tryAcquire()) {
+      acquired++;
+    }
+    for (int i = 0; i < acquired; i++) {
+      limit.release(latencyNanos, false);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.library;
+
+import com.example.library.web.ConnectionCheckoutFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ConnectionCheckoutFilterTest {
+
+  @Test
+  void tagsUnknownMethodsAsOther() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    ConnectionCheckoutFilter filter = new ConnectionCheckoutFilter(registry);
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), new MockHttpServletResponse(), (req, res) -> { });
+    filter.doFilter(new MockHttpServletRequest("PROPFIND", "/api/books"), new MockHttpServletResponse(),
+        (req, res) -> { });
+    filter.doFilter(new MockHttpServletRequest("X-RANDOM-1", "/api/books"), new MockHttpServletResponse(),
+        (req, res) -> { });
+
+    Assertions.assertEquals(1, registry.get("db.connection.checkouts").tag("method", "GET").summary().count());
+    Assertions.assertEquals(2, registry.get("db.connection.checkouts").tag("method", "other").summary().count());
+    Assertions.assertEquals(2, registry.get("db.connection.checkouts").summaries().size());
+  }
+}
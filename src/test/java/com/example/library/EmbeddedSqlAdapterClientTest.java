@@ -0,0 +1,318 @@
+package com.example.library;
+
+import com.example.library.config.BookCacheProperties;
+import com.example.library.config.BorrowingProperties;
+import com.example.library.config.EmbeddedStorageProperties;
+import com.example.library.config.FulfillmentProperties;
+import com.example.library.config.InventoryProperties;
+import com.example.library.config.LoanSummaryProperties;
+import com.example.library.config.SqlAdapterProperties;
+import com.example.library.domain.Book;
+import com.example.library.domain.Loan;
+import com.example.library.domain.Member;
+import com.example.library.security.JwtProperties;
+import com.example.library.security.RefreshTokenService;
+import com.example.library.service.BookCache;
+import com.example.library.service.BookService;
+import com.example.library.service.BorrowOutcome;
+import com.example.library.service.BorrowRejectedException;
+import com.example.library.service.LoanService;
+import com.example.library.service.MemberLoanSummaryReconciler;
+import com.example.library.service.MemberService;
+import com.example.library.service.Page;
+import com.example.library.service.ReservationFulfillmentWorker;
+import com.example.library.service.RoleRegistry;
+import com.example.library.sqladapter.SqlAdapterClient;
+import com.example.library.sqladapter.SqlMetrics;
+import com.example.library.sqladapter.embedded.EmbeddedSqlAdapterClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class EmbeddedSqlAdapterClientTest {
+  // Stores passwords as given; these tests never check hashing.
+  private static final PasswordEncoder PLAIN_TEXT = new PasswordEncoder() {
+    @Override
+    public String encode(CharSequence rawPassword) {
+      return rawPassword.toString();
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      return rawPassword.toString().equals(encodedPassword);
+    }
+  };
+
+  private final SqlAdapterClient adapter = embedded();
+  private final BorrowingProperties properties = new BorrowingProperties();
+  private final BookCache bookCache = new BookCache(new BookCacheProperties(), new SimpleMeterRegistry());
+  private final BookService bookService = new BookService(adapter, bookCache, new InventoryProperties());
+  private final RoleRegistry roleRegistry = new RoleRegistry(adapter);
+  private final MemberService memberService = new MemberService(adapter, PLAIN_TEXT,
+      new RefreshTokenService(adapter, new JwtProperties(), roleRegistry), roleRegistry);
+  private final LoanService loanService = new LoanService(properties, adapter, bookCache,
+      new ReservationFulfillmentWorker(adapter, bookCache, properties, new FulfillmentProperties(),
+          new SimpleMeterRegistry()));
+
+  static SqlAdapterClient embedded() {
+    return new EmbeddedSqlAdapterClient(new EmbeddedStorageProperties(),
+        new SqlMetrics(new SimpleMeterRegistry(), new SqlAdapterProperties()));
+  }
+
+  @Nested
+  class LoanServiceSuite extends LoanServiceTest {
+    @Override
+    SqlAdapterClient newAdapter() {
+      return embedded();
+    }
+  }
+
+  @Nested
+  class RefreshTokenServiceSuite extends RefreshTokenServiceTest {
+    @Override
+    SqlAdapterClient newAdapter() {
+      return embedded();
+    }
+  }
+
+  @Test
+  void concurrentBorrowsNeverHandOutMoreCopiesThanExist() throws Exception {
+    Book book = createBook("isbn-hot", 5);
+    List<Member> members = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      members.add(createMember("reader" + i + "@example.com"));
+    }
+
+    AtomicInteger borrowed = new AtomicInteger();
+    AtomicInteger reserved = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Member member : members) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          try {
+            loanService.borrow(book.getId(), member.getId());
+            borrowed.incrementAndGet();
+          } catch (BorrowRejectedException ex) {
+            reserved.incrementAndGet();
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assertions.assertEquals(5, borrowed.get());
+    Assertions.assertEquals(35, reserved.get());
+    Assertions.assertEquals(0, bookService.get(book.getId()).getAvailableCopies());
+    Assertions.assertEquals(5, loanService.list().size());
+  }
+
+  @Test
+  void borrowsAndReturnsUseTheLoanStockSlot() {
+    Book book = createBook("isbn-slots", 20);
+    Member member = createMember("slots@example.com");
+    List<Long> slots = adapter.query("select slot from book_stock_slots where book_id = :bookId",
+        Map.of("bookId", book.getId()), (rs, rowNum) -> rs.getLong(1));
+    Assertions.assertEquals(8, slots.size());
+
+    Loan loan = loanService.borrow(book.getId(), member.getId());
+    Assertions.assertEquals(19, bookService.get(book.getId()).getAvailableCopies());
+    List<Integer> taken = adapter.query(
+        "select available_copies from book_stock_slots where book_id = :bookId "
+            + "and slot = (select stock_slot from loans where id = :loanId)",
+        Map.of("bookId", book.getId(), "loanId", loan.getId()), (rs, rowNum) -> rs.getInt(1));
+    Assertions.assertEquals(1, taken.size());
+
+    loanService.returnLoan(loan.getId());
+    List<Integer> restored = adapter.query(
+        "select available_copies from book_stock_slots where book_id = :bookId "
+            + "and slot = (select stock_slot from loans where id = :loanId)",
+        Map.of("bookId", book.getId(), "loanId", loan.getId()), (rs, rowNum) -> rs.getInt(1));
+    Assertions.assertEquals(taken.get(0) + 1, restored.get(0));
+    Assertions.assertEquals(20, bookService.get(book.getId()).getAvailableCopies());
+  }
+
+  @Test
+  void editingCopiesRebalancesStockSlots() {
+    Book book = createBook("isbn-edit", 3);
+    List<Member> members = new ArrayList<>();
+    List<Loan> loans = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      members.add(createMember("editor" + i + "@example.com"));
+      loans.add(loanService.borrow(book.getId(), members.get(i).getId()));
+    }
+
+    Book update = bookService.get(book.getId());
+    update.setTotalCopies(12);
+    update.setAvailableCopies(9);
+    bookService.update(book.getId(), update);
+    Assertions.assertEquals(9, bookService.get(book.getId()).getAvailableCopies());
+    Assertions.assertEquals(8, adapter.query("select id from book_stock_slots where book_id = :bookId",
+        Map.of("bookId", book.getId()), (rs, rowNum) -> rs.getLong(1)).size());
+
+    for (Loan loan : loans) {
+      loanService.returnLoan(loan.getId());
+    }
+    Book returned = bookService.get(book.getId());
+    Assertions.assertEquals(12, returned.getTotalCopies());
+    Assertions.assertEquals(11, returned.getAvailableCopies());
+  }
+
+  @Test
+  void bookCacheHandsOutCopiesAndStreamsLargeListings() {
+    BookCacheProperties cacheProperties = new BookCacheProperties();
+    cacheProperties.setListingMaxSize(2);
+    BookCache smallCache = new BookCache(cacheProperties, new SimpleMeterRegistry());
+    BookService books = new BookService(adapter, smallCache, new InventoryProperties());
+    Book first = createBook("isbn-cache-1", 1);
+    createBook("isbn-cache-2", 1);
+
+    books.get(first.getId()).setTitle("Changed");
+    books.list().get(0).setTitle("Changed");
+    Assertions.assertEquals("Title isbn-cache-1", books.get(first.getId()).getTitle());
+    Assertions.assertEquals("Title isbn-cache-1", books.list().get(0).getTitle());
+
+    smallCache.availabilityChanged(first.getId());
+    Assertions.assertTrue(smallCache.forEachListed(limit -> {
+      throw new AssertionError("listing reloaded after a loan");
+    }, book -> { }));
+
+    Book third = createBook("isbn-cache-3", 1);
+    smallCache.invalidate(third.getId());
+    Assertions.assertEquals(3, books.list().size());
+    Assertions.assertFalse(smallCache.forEachListed(limit -> List.of(), book -> { }));
+  }
+
+  @Test
+  void failedTransactionRollsBackEveryWrite() {
+    Book book = createBook("isbn-rollback", 2);
+
+    Assertions.assertThrows(DuplicateKeyException.class, () -> adapter.inTransaction(() -> {
+      adapter.execute("update books set title = :title where id = :id", Map.of("title", "Changed", "id", book.getId()));
+      adapter.execute(
+          "insert into books (title, author, isbn, total_copies) values (:title, :author, :isbn, 1)",
+          Map.of("title", "Copy", "author", "Someone", "isbn", "isbn-rollback"));
+      return null;
+    }));
+
+    List<String> titles = adapter.query("select title from books where id = :id", Map.of("id", book.getId()),
+        (rs, rowNum) -> rs.getString(1));
+    Assertions.assertEquals(List.of("Title isbn-rollback"), titles);
+    Assertions.assertEquals(1, bookService.list().size());
+  }
+
+  @Test
+  void keysetPagesFollowBorrowedAtDescending() {
+    Book book = createBook("isbn-pages", 100);
+    Member member = createMember("pager@example.com");
+    Instant base = Instant.parse("2024-01-01T00:00:00Z");
+    for (int i = 0; i < 23; i++) {
+      Map<String, Object> params = new HashMap<>();
+      params.put("bookId", book.getId());
+      params.put("memberId", member.getId());
+      // Every third loan shares its timestamp with the previous one, so ties are broken by id.
+      params.put("borrowedAt", base.plus(i - i / 3, ChronoUnit.HOURS));
+      params.put("dueDate", base.plus(30, ChronoUnit.DAYS));
+      adapter.execute("insert into loans (book_id, member_id, borrowed_at, due_date) "
+          + "values (:bookId, :memberId, :borrowedAt, :dueDate)", params);
+    }
+
+    List<Loan> paged = new ArrayList<>();
+    String cursor = null;
+    do {
+      Page<Loan> page = loanService.searchPage(null, null, null, null, null, cursor, 5);
+      paged.addAll(page.items());
+      cursor = page.nextCursor();
+    } while (cursor != null);
+
+    List<Loan> expected = new ArrayList<>(loanService.list());
+    expected.sort(Comparator.comparing(Loan::getBorrowedAt).thenComparing(Loan::getId).reversed());
+    Assertions.assertEquals(expected.stream().map(Loan::getId).toList(), paged.stream().map(Loan::getId).toList());
+  }
+
+  @Test
+  void loanSummaryFollowsBorrowsAndReturnsAndDriftIsRepaired() {
+    Book first = createBook("isbn-summary-1", 1);
+    Book second = createBook("isbn-summary-2", 1);
+    Member member = createMember("summary@example.com");
+    MemberLoanSummaryReconciler reconciler =
+        new MemberLoanSummaryReconciler(adapter, new LoanSummaryProperties(), new SimpleMeterRegistry());
+
+    Loan earliest = loanService.borrow(first.getId(), member.getId());
+    Loan latest = loanService.borrow(second.getId(), member.getId());
+    Assertions.assertEquals(List.of(2, earliest.getDueDate()), loanSummary(member.getId()));
+
+    loanService.returnLoan(earliest.getId());
+    Assertions.assertEquals(List.of(1, latest.getDueDate()), loanSummary(member.getId()));
+    Assertions.assertEquals(0, reconciler.reconcile());
+
+    adapter.execute("update member_loan_summary set active_loans = :activeLoans where member_id = :memberId",
+        Map.of("activeLoans", 5, "memberId", member.getId()));
+    BorrowRejectedException rejected = Assertions.assertThrows(BorrowRejectedException.class,
+        () -> loanService.borrow(first.getId(), member.getId()));
+    Assertions.assertEquals(BorrowOutcome.MAX_ACTIVE_LOANS, rejected.getOutcome());
+
+    Assertions.assertEquals(1, reconciler.reconcile());
+    Assertions.assertEquals(List.of(1, latest.getDueDate()), loanSummary(member.getId()));
+    Assertions.assertNotNull(loanService.borrow(first.getId(), member.getId()).getId());
+  }
+
+  @Test
+  void unsupportedSqlIsRejected() {
+    Assertions.assertThrows(InvalidDataAccessResourceUsageException.class,
+        () -> adapter.query("select * from books", Map.of()));
+    Assertions.assertThrows(InvalidDataAccessResourceUsageException.class,
+        () -> adapter.query("select id from books where id = 1 or id = 2", Map.of()));
+  }
+
+  private List<Object> loanSummary(Long memberId) {
+    return adapter.query(
+        "select active_loans, earliest_due_date from member_loan_summary where member_id = :memberId",
+        Map.of("memberId", memberId),
+        (rs, rowNum) -> List.<Object>of(rs.getInt("active_loans"), rs.getTimestamp("earliest_due_date").toInstant())
+    ).get(0);
+  }
+
+  private Book createBook(String isbn, int copies) {
+    Book book = new Book();
+    book.setTitle("Title " + isbn);
+    book.setAuthor("Author");
+    book.setIsbn(isbn);
+    book.setTotalCopies(copies);
+    book.setAvailableCopies(copies);
+    return bookService.create(book);
+  }
+
+  private Member createMember(String email) {
+    Member member = new Member();
+    member.setName(email);
+    member.setEmail(email);
+    member.setRoleId(3L);
+    member.setPassword("member-pass");
+    return memberService.create(member);
+  }
+}
@@ -2,23 +2,32 @@ package com.example.library;
 
 import com.example.library.sqladapter.SqlAdapterClient;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.RowMapper;
 
-class InMemorySqlAdapterClient implements SqlAdapterClient {
+public class InMemorySqlAdapterClient implements SqlAdapterClient {
   private long bookSeq = 1L;
   private long memberSeq = 1L;
   private long loanSeq = 1L;
   private long roleSeq = 1L;
+  private long reservationSeq = 1L;
+  private long refreshTokenSeq = 1L;
 
   private final Map<Long, Map<String, Object>> books = new HashMap<>();
   private final Map<Long, Map<String, Object>> members = new HashMap<>();
   private final Map<Long, Map<String, Object>> loans = new HashMap<>();
   private final Map<Long, Map<String, Object>> roles = new HashMap<>();
+  private final Map<Long, Map<String, Object>> reservations = new HashMap<>();
+  private final Map<Long, Map<String, Object>> refreshTokens = new HashMap<>();
+  private Map<String, Object> lastInserted;
 
-  InMemorySqlAdapterClient() {
+  public InMemorySqlAdapterClient() {
     insertRole("ADMIN");
     insertRole("LIBRARIAN");
     insertRole("MEMBER");
@@ -36,8 +45,9 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
       row.put("author", params.get("author"));
       row.put("isbn", params.get("isbn"));
       row.put("total_copies", params.get("totalCopies"));
-      row.put("available_copies", params.get("availableCopies"));
+      row.put("available_copies", 0);
       books.put(id, row);
+      lastInserted = row;
       return 1;
     }
 
@@ -51,7 +61,6 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
       row.put("author", params.get("author"));
       row.put("isbn", params.get("isbn"));
       row.put("total_copies", params.get("totalCopies"));
-      row.put("available_copies", params.get("availableCopies"));
       return 1;
     }
 
@@ -60,9 +69,24 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
       return books.remove(id) == null ? 0 : 1;
     }
 
-    if (normalized.startsWith("update books set available_copies = available_copies - 1")) {
-      Long id = toLong(params.get("id"));
-      Map<String, Object> row = books.get(id);
+    // A book's stock slots are kept as its single available_copies count.
+    if (normalized.startsWith("insert into book_stock_slots")) {
+      Map<String, Object> row = books.get(toLong(params.get("bookId")));
+      row.put("available_copies", toInt(row.get("available_copies")) + toInt(params.get("availableCopies")));
+      return 1;
+    }
+
+    if (normalized.startsWith("update book_stock_slots set total_copies")) {
+      Map<String, Object> row = books.get(toLong(params.get("id")));
+      row.put("available_copies", toInt(row.get("available_copies")) + toInt(params.get("availableDelta")));
+      return 1;
+    }
+
+    if (normalized.startsWith("update book_stock_slots set available_copies = available_copies - 1")) {
+      if (params.containsKey("reservationId") && !reservationFulfilledAt(params)) {
+        return 0;
+      }
+      Map<String, Object> row = books.get(toLong(params.get("bookId")));
       if (row == null) {
         return 0;
       }
@@ -74,9 +98,11 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
       return 1;
     }
 
-    if (normalized.startsWith("update books set available_copies = available_copies + 1")) {
-      Long id = toLong(params.get("id"));
-      Map<String, Object> row = books.get(id);
+    if (normalized.startsWith("update book_stock_slots set available_copies = available_copies + 1")) {
+      if (params.containsKey("loanId") && !loanReturnedAt(params)) {
+        return 0;
+      }
+      Map<String, Object> row = books.get(toLong(params.get("bookId")));
       if (row == null) {
         return 0;
       }
@@ -86,6 +112,7 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
         return 0;
       }
       row.put("available_copies", available + 1);
+      row.put("restocked_at", params.get("returnedAt"));
       return 1;
     }
 
@@ -98,6 +125,7 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
       row.put("role_id", params.get("roleId"));
       row.put("password_hash", params.get("passwordHash"));
       members.put(id, row);
+      lastInserted = row;
       return 1;
     }
 
@@ -122,6 +150,9 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
     }
 
     if (normalized.startsWith("insert into loans")) {
+      if (params.containsKey("reservationId") && !reservationFulfilledAt(params)) {
+        return 0;
+      }
       long id = loanSeq++;
       Map<String, Object> row = new HashMap<>();
       row.put("id", id);
@@ -131,9 +162,83 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
       row.put("due_date", params.get("dueDate"));
       row.put("returned_at", null);
       loans.put(id, row);
+      lastInserted = row;
+      return 1;
+    }
+
+    if (normalized.startsWith("insert into reservations")) {
+      long id = reservationSeq++;
+      Map<String, Object> row = new HashMap<>();
+      row.put("id", id);
+      row.put("book_id", params.get("bookId"));
+      row.put("member_id", params.get("memberId"));
+      row.put("role_name", params.get("roleName"));
+      row.put("status", params.get("status"));
+      row.put("created_at", params.get("createdAt"));
+      row.put("fulfilled_at", null);
+      row.put("canceled_at", null);
+      reservations.put(id, row);
+      lastInserted = row;
+      return 1;
+    }
+
+    if (normalized.startsWith("update reservations set status = 'fulfilled'")) {
+      Map<String, Object> row = reservations.get(toLong(params.get("id")));
+      if (row == null || !"PENDING".equals(row.get("status"))
+          || (params.containsKey("loanId") && !loanReturnedAt(params))) {
+        return 0;
+      }
+      row.put("status", "FULFILLED");
+      row.put("fulfilled_at", params.get("fulfilledAt"));
       return 1;
     }
 
+    if (normalized.startsWith("insert into refresh_tokens")) {
+      List<Map<String, Object>> memberRows = params.containsKey("email")
+          ? findBy(members, "email", String.valueOf(params.get("email")))
+          : rowsOrEmpty(members.get(toLong(params.get("memberId"))));
+      if (memberRows.isEmpty()) {
+        return 0;
+      }
+      long id = refreshTokenSeq++;
+      Map<String, Object> row = new HashMap<>();
+      row.put("id", id);
+      row.put("member_id", memberRows.get(0).get("id"));
+      row.put("token_hash", params.get("tokenHash"));
+      row.put("issued_at", params.get("issuedAt"));
+      row.put("expires_at", params.get("expiresAt"));
+      row.put("revoked_at", null);
+      refreshTokens.put(id, row);
+      return 1;
+    }
+
+    if (normalized.startsWith("update refresh_tokens set revoked_at = :now where member_id")) {
+      Long memberId = toLong(params.get("memberId"));
+      int updated = 0;
+      for (Map<String, Object> row : refreshTokens.values()) {
+        if (memberId.equals(toLong(row.get("member_id"))) && row.get("revoked_at") == null) {
+          row.put("revoked_at", params.get("now"));
+          updated++;
+        }
+      }
+      return updated;
+    }
+
+    if (normalized.startsWith("delete from refresh_tokens where expires_at")) {
+      Instant now = (Instant) params.get("now");
+      int before = refreshTokens.size();
+      refreshTokens.values().removeIf(row -> !((Instant) row.get("expires_at")).isAfter(now));
+      return before - refreshTokens.size();
+    }
+
+    if (normalized.startsWith("delete from refresh_tokens where revoked_at")) {
+      Instant revokedBefore = (Instant) params.get("revokedBefore");
+      int before = refreshTokens.size();
+      refreshTokens.values().removeIf(row -> row.get("revoked_at") != null
+          && !((Instant) row.get("revoked_at")).isAfter(revokedBefore));
+      return before - refreshTokens.size();
+    }
+
     if (normalized.startsWith("update loans set returned_at")) {
       Long id = toLong(params.get("id"));
       Map<String, Object> row = loans.get(id);
@@ -147,6 +252,19 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
     return 0;
   }
 
+  // Inserts return the row they just stored; updates are emulated in query().
+  @Override
+  public <T> List<T> executeReturning(String sql, Map<String, Object> params, RowMapper<T> rowMapper) {
+    if (normalize(sql).startsWith("update")) {
+      return query(sql, params, rowMapper);
+    }
+    lastInserted = null;
+    if (execute(sql, params) <= 0 || lastInserted == null) {
+      return List.of();
+    }
+    return MapResultSet.map(List.of(lastInserted), rowMapper);
+  }
+
   @Override
   public List<Map<String, Object>> query(String sql, Map<String, Object> params) {
     String normalized = normalize(sql);
@@ -163,6 +281,60 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
       return new ArrayList<>(books.values());
     }
 
+    if (normalized.startsWith("select id, slot, total_copies, available_copies from book_stock_slots")) {
+      Map<String, Object> book = books.get(toLong(params.get("bookId")));
+      Map<String, Object> slot = new HashMap<>();
+      slot.put("id", book.get("id"));
+      slot.put("slot", 0);
+      slot.put("total_copies", book.get("total_copies"));
+      slot.put("available_copies", book.get("available_copies"));
+      return List.of(slot);
+    }
+
+    // The pseudo slot of a book has the book's id.
+    if (normalized.startsWith("select id, slot, available_copies, restocked_at from book_stock_slots")) {
+      Map<String, Object> book = books.get(toLong(params.containsKey("id") ? params.get("id") : params.get("bookId")));
+      if (toInt(book.get("available_copies")) <= 0) {
+        return List.of();
+      }
+      Map<String, Object> slot = new HashMap<>();
+      slot.put("id", book.get("id"));
+      slot.put("slot", 0);
+      slot.put("available_copies", book.get("available_copies"));
+      slot.put("restocked_at", book.get("restocked_at"));
+      return List.of(slot);
+    }
+
+    if (normalized.startsWith("select id from books where id")) {
+      return rowsOrEmpty(books.get(toLong(params.get("bookId")))).stream().map(this::onlyId).toList();
+    }
+
+    if (normalized.startsWith("select count(*) as pending")) {
+      List<Instant> pending = reservations.values().stream()
+          .filter(row -> "PENDING".equals(row.get("status")))
+          .map(row -> (Instant) row.get("created_at"))
+          .sorted()
+          .toList();
+      Map<String, Object> result = new HashMap<>();
+      result.put("pending", (long) pending.size());
+      result.put("oldest", pending.isEmpty() ? null : pending.get(0));
+      return List.of(result);
+    }
+
+    if (normalized.startsWith("select book_id from reservations")) {
+      return reservations.values().stream()
+          .filter(row -> "PENDING".equals(row.get("status")))
+          .filter(row -> toInt(books.get(toLong(row.get("book_id"))).get("available_copies")) > 0)
+          .sorted(Comparator.comparing(row -> (Instant) row.get("created_at")))
+          .limit(toInt(params.get("limit")))
+          .map(row -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("book_id", row.get("book_id"));
+            return result;
+          })
+          .toList();
+    }
+
     if (normalized.startsWith("select id from books")) {
       String isbn = String.valueOf(params.get("isbn"));
       List<Map<String, Object>> rows = findBy(books, "isbn", isbn);
@@ -181,22 +353,21 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
       return new ArrayList<>(members.values());
     }
 
-    if (normalized.startsWith("select m.email, m.password_hash")) {
+    if (normalized.startsWith("select password_hash, role_id from members")) {
       String email = String.valueOf(params.get("email"));
-      List<Map<String, Object>> memberRows = findBy(members, "email", email);
-      if (memberRows.isEmpty()) {
-        return List.of();
-      }
-      Map<String, Object> member = memberRows.get(0);
-      Long roleId = toLong(member.get("role_id"));
-      Map<String, Object> role = roles.get(roleId);
-      Map<String, Object> result = new HashMap<>();
-      result.put("email", member.get("email"));
-      result.put("password_hash", member.get("password_hash"));
-      if (role != null) {
-        result.put("role_name", role.get("name"));
-      }
-      return List.of(result);
+      return findBy(members, "email", email);
+    }
+
+    if (normalized.startsWith("select email, role_id from members")) {
+      return rowsOrEmpty(members.get(toLong(params.get("memberId"))));
+    }
+
+    if (normalized.startsWith("select role_id from members")) {
+      return rowsOrEmpty(members.get(toLong(params.get("id"))));
+    }
+
+    if (normalized.startsWith("select id, name from roles")) {
+      return new ArrayList<>(roles.values());
     }
 
     if (normalized.startsWith("select id from roles")) {
@@ -222,6 +393,18 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
       return rows.stream().map(this::onlyIdAndPassword).toList();
     }
 
+    if (normalized.startsWith("select id, book_id, member_id, role_name")) {
+      Long bookId = toLong(params.get("bookId"));
+      return reservations.values().stream()
+          .filter(row -> bookId.equals(toLong(row.get("book_id"))))
+          .filter(row -> "PENDING".equals(row.get("status")))
+          .sorted(Comparator.comparing((Map<String, Object> row) -> rolePriority(row.get("role_name")))
+              .thenComparing(row -> (Instant) row.get("created_at")))
+          .limit(toInt(params.get("limit")))
+          .map(row -> (Map<String, Object>) new HashMap<>(row))
+          .toList();
+    }
+
     if (normalized.startsWith("select id, book_id, member_id")) {
       if (normalized.contains("where id")) {
         Long id = toLong(params.get("id"));
@@ -236,6 +419,36 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
       return new ArrayList<>(loans.values());
     }
 
+    if (normalized.startsWith("update refresh_tokens set revoked_at = :now where token_hash")) {
+      Instant now = (Instant) params.get("now");
+      for (Map<String, Object> row : refreshTokens.values()) {
+        if (row.get("token_hash").equals(params.get("tokenHash"))
+            && row.get("revoked_at") == null
+            && ((Instant) row.get("expires_at")).isAfter(now)) {
+          row.put("revoked_at", now);
+          Map<String, Object> result = new HashMap<>();
+          result.put("member_id", row.get("member_id"));
+          return List.of(result);
+        }
+      }
+      return List.of();
+    }
+
+    if (normalized.startsWith("select member_id from refresh_tokens")) {
+      return findBy(refreshTokens, "token_hash", String.valueOf(params.get("tokenHash"))).stream()
+          .filter(row -> row.get("revoked_at") != null)
+          .map(row -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("member_id", row.get("member_id"));
+            return result;
+          })
+          .toList();
+    }
+
+    if (normalized.startsWith("select outcome, loan_id")) {
+      return borrow(params);
+    }
+
     if (normalized.startsWith("select count(*) as count from loans")) {
       Long memberId = toLong(params.get("memberId"));
       long count = loans.values().stream()
@@ -252,6 +465,118 @@ class InMemorySqlAdapterClient implements SqlAdapterClient {
     return List.of();
   }
 
+  @Override
+  public <T> List<T> query(String sql, Map<String, Object> params, RowMapper<T> rowMapper) {
+    return MapResultSet.map(query(sql, params), rowMapper);
+  }
+
+  @Override
+  public <T> int stream(String sql, Map<String, Object> params, RowMapper<T> rowMapper,
+                        Consumer<? super T> consumer) {
+    List<T> rows = query(sql, params, rowMapper);
+    rows.forEach(consumer);
+    return rows.size();
+  }
+
+  // Mirrors the borrow_book database function.
+  private List<Map<String, Object>> borrow(Map<String, Object> params) {
+    Long bookId = toLong(params.get("bookId"));
+    Long memberId = toLong(params.get("memberId"));
+    Instant now = (Instant) params.get("now");
+    Map<String, Object> book = books.get(bookId);
+    if (book == null) {
+      return List.of(borrowOutcome("BOOK_NOT_FOUND"));
+    }
+    Map<String, Object> member = members.get(memberId);
+    if (member == null) {
+      return List.of(borrowOutcome("MEMBER_NOT_FOUND"));
+    }
+    int available = toInt(book.get("available_copies"));
+    long pending = reservations.values().stream()
+        .filter(row -> bookId.equals(toLong(row.get("book_id"))))
+        .filter(row -> "PENDING".equals(row.get("status")))
+        .count();
+    if (available - pending <= 0) {
+      long reservationId = reservationSeq++;
+      Map<String, Object> reservation = new HashMap<>();
+      reservation.put("id", reservationId);
+      reservation.put("book_id", bookId);
+      reservation.put("member_id", memberId);
+      reservation.put("role_name", roles.get(toLong(member.get("role_id"))).get("name"));
+      reservation.put("status", "PENDING");
+      reservation.put("created_at", now);
+      reservation.put("fulfilled_at", null);
+      reservation.put("canceled_at", null);
+      reservations.put(reservationId, reservation);
+      Map<String, Object> result = borrowOutcome("RESERVED");
+      result.put("reservation_id", reservationId);
+      return List.of(result);
+    }
+    long active = loans.values().stream()
+        .filter(row -> memberId.equals(toLong(row.get("member_id"))))
+        .filter(row -> row.get("returned_at") == null)
+        .count();
+    if (active >= toInt(params.get("maxActiveLoans"))) {
+      return List.of(borrowOutcome("MAX_ACTIVE_LOANS"));
+    }
+    boolean overdue = loans.values().stream()
+        .filter(row -> memberId.equals(toLong(row.get("member_id"))))
+        .filter(row -> row.get("returned_at") == null)
+        .anyMatch(row -> ((Instant) row.get("due_date")).isBefore(now));
+    if (overdue) {
+      return List.of(borrowOutcome("OVERDUE_LOANS"));
+    }
+    book.put("available_copies", available - 1);
+
+    long loanId = loanSeq++;
+    Map<String, Object> loan = new HashMap<>();
+    loan.put("id", loanId);
+    loan.put("book_id", bookId);
+    loan.put("member_id", memberId);
+    loan.put("borrowed_at", now);
+    loan.put("due_date", now.plus(toInt(params.get("maxLoanDays")), ChronoUnit.DAYS));
+    loan.put("returned_at", null);
+    loans.put(loanId, loan);
+
+    Map<String, Object> result = borrowOutcome("BORROWED");
+    result.put("loan_id", loanId);
+    result.put("book_id", bookId);
+    result.put("member_id", memberId);
+    result.put("borrowed_at", loan.get("borrowed_at"));
+    result.put("due_date", loan.get("due_date"));
+    return List.of(result);
+  }
+
+  private Map<String, Object> borrowOutcome(String outcome) {
+    Map<String, Object> result = new HashMap<>();
+    result.put("outcome", outcome);
+    result.put("loan_id", null);
+    result.put("book_id", null);
+    result.put("member_id", null);
+    result.put("borrowed_at", null);
+    result.put("due_date", null);
+    result.put("returned_at", null);
+    result.put("reservation_id", null);
+    return result;
+  }
+
+  private boolean loanReturnedAt(Map<String, Object> params) {
+    Map<String, Object> loan = loans.get(toLong(params.get("loanId")));
+    return loan != null && params.get("returnedAt").equals(loan.get("returned_at"));
+  }
+
+  private boolean reservationFulfilledAt(Map<String, Object> params) {
+    Map<String, Object> reservation = reservations.get(toLong(params.get("reservationId")));
+    return reservation != null && params.get("fulfilledAt").equals(reservation.get("fulfilled_at"));
+  }
+
+  private int rolePriority(Object roleName) {
+    if ("ADMIN".equals(roleName)) {
+      return 1;
+    }
+    return "LIBRARIAN".equals(roleName) ? 2 : 3;
+  }
+
   private List<Map<String, Object>> rowsOrEmpty(Map<String, Object> row) {
     if (row == null) {
       return List.of();
@@ -0,0 +1,44 @@
+package com.example.library;
+
+import com.example.library.service.BusinessRuleException;
+import com.example.library.service.KeysetCursor;
+import com.example.library.service.Page;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class KeysetCursorTest {
+
+  @Test
+  void positionedCursorRoundTrips() {
+    KeysetCursor cursor = KeysetCursor.after(Instant.parse("2026-02-01T10:15:30.123456Z"), 42L);
+
+    KeysetCursor decoded = KeysetCursor.decodePositioned(cursor.encode());
+
+    Assertions.assertEquals(cursor, decoded);
+  }
+
+  @Test
+  void idCursorIsRejectedForTimestampOrderedLists() {
+    String token = KeysetCursor.afterId(7L).encode();
+
+    Assertions.assertEquals(7L, KeysetCursor.decode(token).id());
+    Assertions.assertThrows(BusinessRuleException.class, () -> KeysetCursor.decodePositioned(token));
+  }
+
+  @Test
+  void malformedCursorIsRejected() {
+    Assertions.assertThrows(BusinessRuleException.class, () -> KeysetCursor.decode("not a cursor!"));
+  }
+
+  @Test
+  void pageExposesNextCursorOnlyWhenMoreRowsExist() {
+    Page<Long> last = Page.of(List.of(1L, 2L), 2, KeysetCursor::afterId);
+    Page<Long> more = Page.of(List.of(1L, 2L, 3L), 2, KeysetCursor::afterId);
+
+    Assertions.assertNull(last.nextCursor());
+    Assertions.assertEquals(List.of(1L, 2L), more.items());
+    Assertions.assertEquals(2L, KeysetCursor.decode(more.nextCursor()).id());
+  }
+}
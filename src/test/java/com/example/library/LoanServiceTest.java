@@ -1,13 +1,25 @@
 package com.example.library;
 
+import com.example.library.config.BookCacheProperties;
 import com.example.library.config.BorrowingProperties;
+import com.example.library.config.FulfillmentProperties;
+import com.example.library.config.InventoryProperties;
 import com.example.library.domain.Book;
 import com.example.library.domain.Loan;
 import com.example.library.domain.Member;
+import com.example.library.security.JwtProperties;
+import com.example.library.security.RefreshTokenService;
+import com.example.library.service.BookCache;
 import com.example.library.service.BookService;
+import com.example.library.service.BorrowOutcome;
+import com.example.library.service.BorrowRejectedException;
 import com.example.library.service.BusinessRuleException;
 import com.example.library.service.LoanService;
 import com.example.library.service.MemberService;
+import com.example.library.service.ReservationFulfillmentWorker;
+import com.example.library.service.RoleRegistry;
+import com.example.library.sqladapter.SqlAdapterClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
@@ -18,12 +30,30 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 class LoanServiceTest {
-  private final InMemorySqlAdapterClient adapter = new InMemorySqlAdapterClient();
+  private final SqlAdapterClient adapter = newAdapter();
   private final BorrowingProperties properties = new BorrowingProperties();
-  private final BookService bookService = new BookService(adapter);
+  private final BookCache bookCache = new BookCache(new BookCacheProperties(), new SimpleMeterRegistry());
+  private final BookService bookService = new BookService(adapter, bookCache, new InventoryProperties());
   private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-  private final MemberService memberService = new MemberService(adapter, passwordEncoder);
-  private final LoanService loanService = new LoanService(properties, adapter);
+  private final RoleRegistry roleRegistry = new RoleRegistry(adapter);
+  private final MemberService memberService = new MemberService(adapter, passwordEncoder,
+      new RefreshTokenService(adapter, new JwtProperties(), roleRegistry), roleRegistry);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private boolean workersRunning = true;
+  private final ReservationFulfillmentWorker fulfillmentWorker = new ReservationFulfillmentWorker(
+      adapter, bookCache, properties, new FulfillmentProperties(), meterRegistry) {
+    // Stands in for started workers without their threads, so the tests decide when they run.
+    @Override
+    public boolean isRunning() {
+      return workersRunning;
+    }
+  };
+  private final LoanService loanService = new LoanService(properties, adapter, bookCache, fulfillmentWorker);
+
+  // Overridden to run the same cases against another adapter.
+  SqlAdapterClient newAdapter() {
+    return new InMemorySqlAdapterClient();
+  }
 
   @Test
   void borrowCreatesLoanAndDecrementsCopies() {
@@ -113,4 +143,129 @@ class LoanServiceTest {
     Assertions.assertThrows(BusinessRuleException.class,
         () -> loanService.borrow(createdBook.getId(), createdMember.getId()));
   }
+
+  @Test
+  void borrowCreatesReservationWhenNoCopiesAvailable() {
+    properties.setMaxActiveLoansPerMember(5);
+    properties.setMaxLoanDays(14);
+
+    Book book = new Book();
+    book.setTitle("Working Effectively with Legacy Code");
+    book.setAuthor("Michael Feathers");
+    book.setIsbn("isbn-4");
+    book.setTotalCopies(1);
+    book.setAvailableCopies(0);
+    Book createdBook = bookService.create(book);
+
+    Member member = new Member();
+    member.setName("Dave");
+    member.setEmail("dave@example.com");
+    member.setRoleId(3L);
+    member.setPassword("member-pass");
+    Member createdMember = memberService.create(member);
+
+    BorrowRejectedException ex = Assertions.assertThrows(BorrowRejectedException.class,
+        () -> loanService.borrow(createdBook.getId(), createdMember.getId()));
+    Assertions.assertEquals(BorrowOutcome.RESERVED, ex.getOutcome());
+  }
+
+  @Test
+  void returnHandsCopyToNextPendingReservation() {
+    properties.setMaxActiveLoansPerMember(5);
+    properties.setMaxLoanDays(14);
+
+    Book book = new Book();
+    book.setTitle("Release It!");
+    book.setAuthor("Michael Nygard");
+    book.setIsbn("isbn-5");
+    book.setTotalCopies(1);
+    book.setAvailableCopies(1);
+    Book createdBook = bookService.create(book);
+
+    Member borrower = new Member();
+    borrower.setName("Erin");
+    borrower.setEmail("erin@example.com");
+    borrower.setRoleId(3L);
+    borrower.setPassword("member-pass");
+    Member createdBorrower = memberService.create(borrower);
+
+    Member waiting = new Member();
+    waiting.setName("Frank");
+    waiting.setEmail("frank@example.com");
+    waiting.setRoleId(3L);
+    waiting.setPassword("member-pass");
+    Member createdWaiting = memberService.create(waiting);
+
+    Loan loan = loanService.borrow(createdBook.getId(), createdBorrower.getId());
+    Assertions.assertThrows(BorrowRejectedException.class,
+        () -> loanService.borrow(createdBook.getId(), createdWaiting.getId()));
+
+    Loan returned = loanService.returnLoan(loan.getId());
+
+    Assertions.assertNotNull(returned.getReturnedAt());
+    Assertions.assertEquals(1, bookService.get(createdBook.getId()).getAvailableCopies());
+
+    // The copy on the shelf is held for the queue, so a walk-in borrow is reserved behind it.
+    Member walkIn = new Member();
+    walkIn.setName("Grace");
+    walkIn.setEmail("grace@example.com");
+    walkIn.setRoleId(3L);
+    walkIn.setPassword("member-pass");
+    Member createdWalkIn = memberService.create(walkIn);
+    BorrowRejectedException reserved = Assertions.assertThrows(BorrowRejectedException.class,
+        () -> loanService.borrow(createdBook.getId(), createdWalkIn.getId()));
+    Assertions.assertEquals(BorrowOutcome.RESERVED, reserved.getOutcome());
+
+    fulfillmentWorker.refreshQueueGauges();
+    Assertions.assertEquals(2, meterRegistry.get("reservations.pending").gauge().value());
+
+    Assertions.assertEquals(1, fulfillmentWorker.fulfillPending());
+    Assertions.assertEquals(0, fulfillmentWorker.fulfillPending());
+    Assertions.assertEquals(1, loanService.list().stream()
+        .filter(l -> l.getMember().getId().equals(createdWaiting.getId()) && l.getReturnedAt() == null)
+        .count());
+    Assertions.assertEquals(0, bookService.get(createdBook.getId()).getAvailableCopies());
+    Assertions.assertThrows(BusinessRuleException.class, () -> loanService.returnLoan(loan.getId()));
+  }
+
+  @Test
+  void returnFulfilsReservationsWhileNoWorkersRun() {
+    workersRunning = false;
+    properties.setMaxActiveLoansPerMember(5);
+    properties.setMaxLoanDays(14);
+
+    Book book = new Book();
+    book.setTitle("Domain-Driven Design");
+    book.setAuthor("Eric Evans");
+    book.setIsbn("isbn-6");
+    book.setTotalCopies(1);
+    book.setAvailableCopies(1);
+    Book createdBook = bookService.create(book);
+
+    Member borrower = new Member();
+    borrower.setName("Heidi");
+    borrower.setEmail("heidi@example.com");
+    borrower.setRoleId(3L);
+    borrower.setPassword("member-pass");
+    Member createdBorrower = memberService.create(borrower);
+
+    Member waiting = new Member();
+    waiting.setName("Ivan");
+    waiting.setEmail("ivan@example.com");
+    waiting.setRoleId(3L);
+    waiting.setPassword("member-pass");
+    Member createdWaiting = memberService.create(waiting);
+
+    Loan loan = loanService.borrow(createdBook.getId(), createdBorrower.getId());
+    Assertions.assertThrows(BorrowRejectedException.class,
+        () -> loanService.borrow(createdBook.getId(), createdWaiting.getId()));
+
+    loanService.returnLoan(loan.getId());
+
+    Assertions.assertEquals(1, loanService.list().stream()
+        .filter(l -> l.getMember().getId().equals(createdWaiting.getId()) && l.getReturnedAt() == null)
+        .count());
+    Assertions.assertEquals(0, bookService.get(createdBook.getId()).getAvailableCopies());
+    Assertions.assertEquals(0, fulfillmentWorker.fulfillPending());
+  }
 }
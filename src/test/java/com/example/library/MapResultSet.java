@@ -0,0 +1,134 @@
+package com.example.library;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Read-only {@link ResultSet} over a list of column maps, enough for row mappers and
+ * {@code ColumnMapRowMapper}. Column indexes follow first-seen key order across the rows.
+ */
+public final class MapResultSet implements InvocationHandler {
+  private final List<Map<String, Object>> rows;
+  private final List<String> labels;
+  private int cursor = -1;
+  private boolean lastWasNull;
+
+  private MapResultSet(List<Map<String, Object>> rows) {
+    this.rows = rows;
+    Set<String> keys = new LinkedHashSet<>();
+    for (Map<String, Object> row : rows) {
+      keys.addAll(row.keySet());
+    }
+    this.labels = new ArrayList<>(keys);
+  }
+
+  public static ResultSet of(List<Map<String, Object>> rows) {
+    return (ResultSet) Proxy.newProxyInstance(
+        MapResultSet.class.getClassLoader(),
+        new Class<?>[] {ResultSet.class},
+        new MapResultSet(rows)
+    );
+  }
+
+  public static <T> List<T> map(List<Map<String, Object>> rows, RowMapper<T> rowMapper) {
+    ResultSet rs = of(rows);
+    List<T> result = new ArrayList<>(rows.size());
+    try {
+      int rowNum = 0;
+      while (rs.next()) {
+        result.add(rowMapper.mapRow(rs, rowNum++));
+      }
+    } catch (SQLException ex) {
+      throw new IllegalStateException(ex);
+    }
+    return result;
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+    switch (method.getName()) {
+      case "next":
+        cursor++;
+        return cursor < rows.size();
+      case "close":
+        return null;
+      case "isClosed":
+        return false;
+      case "wasNull":
+        return lastWasNull;
+      case "findColumn":
+        return findColumn((String) args[0]);
+      case "getMetaData":
+        return metaData();
+      case "getObject":
+        return value(args[0]);
+      case "getString": {
+        Object value = value(args[0]);
+        return value == null ? null : value.toString();
+      }
+      case "getLong": {
+        Object value = value(args[0]);
+        return value == null ? 0L : ((Number) value).longValue();
+      }
+      case "getInt": {
+        Object value = value(args[0]);
+        return value == null ? 0 : ((Number) value).intValue();
+      }
+      case "getBoolean": {
+        Object value = value(args[0]);
+        return value != null && (Boolean) value;
+      }
+      case "getTimestamp": {
+        Object value = value(args[0]);
+        if (value instanceof Instant instant) {
+          return Timestamp.from(instant);
+        }
+        return value;
+      }
+      case "unwrap":
+      case "isWrapperFor":
+      default:
+        throw new SQLException("Unsupported ResultSet method: " + method.getName());
+    }
+  }
+
+  private int findColumn(String label) throws SQLException {
+    for (int i = 0; i < labels.size(); i++) {
+      if (labels.get(i).equalsIgnoreCase(label)) {
+        return i + 1;
+      }
+    }
+    throw new SQLException("Unknown column: " + label);
+  }
+
+  private Object value(Object column) throws SQLException {
+    int index = column instanceof String label ? findColumn(label) : (Integer) column;
+    Object value = rows.get(cursor).get(labels.get(index - 1));
+    lastWasNull = value == null;
+    return value;
+  }
+
+  private ResultSetMetaData metaData() {
+    return (ResultSetMetaData) Proxy.newProxyInstance(
+        MapResultSet.class.getClassLoader(),
+        new Class<?>[] {ResultSetMetaData.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "getColumnCount" -> labels.size();
+          case "getColumnLabel", "getColumnName" -> labels.get((Integer) args[0] - 1);
+          default -> throw new SQLException("Unsupported ResultSetMetaData method: " + method.getName());
+        }
+    );
+  }
+}
@@ -0,0 +1,88 @@
+package com.example.library;
+
+import com.example.library.domain.Member;
+import com.example.library.security.JwtProperties;
+import com.example.library.security.RefreshTokenService;
+import com.example.library.service.MemberService;
+import com.example.library.service.RoleRegistry;
+import com.example.library.sqladapter.SqlAdapterClient;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class RefreshTokenServiceTest {
+  private final SqlAdapterClient adapter = newAdapter();
+  private final RoleRegistry roleRegistry = new RoleRegistry(adapter);
+  private final RefreshTokenService refreshTokenService =
+      new RefreshTokenService(adapter, new JwtProperties(), roleRegistry);
+  private final MemberService memberService =
+      new MemberService(adapter, new BCryptPasswordEncoder(), refreshTokenService, roleRegistry);
+
+  // Overridden to run the same cases against another adapter.
+  SqlAdapterClient newAdapter() {
+    return new InMemorySqlAdapterClient();
+  }
+
+  @Test
+  void rotateIssuesReplacementAndConsumesToken() {
+    Member member = createMember();
+    String token = refreshTokenService.issue(member.getEmail());
+
+    RefreshTokenService.Rotation rotation = refreshTokenService.rotate(token);
+
+    Assertions.assertEquals(member.getEmail(), rotation.email());
+    Assertions.assertEquals("MEMBER", rotation.roleName());
+    Assertions.assertNotEquals(token, rotation.refreshToken());
+    Assertions.assertNotNull(refreshTokenService.rotate(rotation.refreshToken()).refreshToken());
+  }
+
+  @Test
+  void reusingRotatedTokenRevokesAllTokensOfMember() {
+    Member member = createMember();
+    String token = refreshTokenService.issue(member.getEmail());
+    String replacement = refreshTokenService.rotate(token).refreshToken();
+
+    Assertions.assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(token));
+    Assertions.assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(replacement));
+  }
+
+  @Test
+  void purgeDeletesExpiredAndLongRevokedTokens() {
+    Member member = createMember();
+    String token = refreshTokenService.issue(member.getEmail());
+    String replacement = refreshTokenService.rotate(token).refreshToken();
+    Instant now = Instant.now();
+
+    Assertions.assertEquals(0, refreshTokenService.purge(now));
+    Assertions.assertEquals(1, refreshTokenService.purge(now.plus(Duration.ofDays(2))));
+    Assertions.assertNotNull(refreshTokenService.rotate(replacement).refreshToken());
+    Assertions.assertEquals(2, refreshTokenService.purge(now.plus(Duration.ofDays(31))));
+  }
+
+  @Test
+  void passwordChangeRevokesTokens() {
+    Member member = createMember();
+    String token = refreshTokenService.issue(member.getEmail());
+
+    Member update = new Member();
+    update.setName(member.getName());
+    update.setEmail(member.getEmail());
+    update.setRoleId(member.getRoleId());
+    update.setPassword("new-pass");
+    memberService.update(member.getId(), update);
+
+    Assertions.assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(token));
+  }
+
+  private Member createMember() {
+    Member member = new Member();
+    member.setName("Alice");
+    member.setEmail("alice@example.com");
+    member.setRoleId(3L);
+    member.setPassword("member-pass");
+    return memberService.create(member);
+  }
+}
@@ -0,0 +1,175 @@
+package com.example.library;
+
+import com.example.library.config.DeadlineProperties;
+import com.example.library.sqladapter.DeadlineExceededException;
+import com.example.library.sqladapter.DeadlineJdbcTemplate;
+import com.example.library.sqladapter.RequestDeadline;
+import com.example.library.web.JsonArrayWriter;
+import com.example.library.web.RequestDeadlineFilter;
+import com.example.library.web.StreamAbortedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RequestDeadlineTest {
+
+  @Test
+  void filterAppliesFirstMatchingRouteBudget() throws Exception {
+    DeadlineProperties properties = new DeadlineProperties();
+    properties.getRoutes().put("GET /api/audit-logs/**", Duration.ofSeconds(30));
+    properties.getRoutes().put("/api/**", Duration.ofSeconds(2));
+    RequestDeadlineFilter filter = new RequestDeadlineFilter(properties, new SimpleMeterRegistry());
+    List<String> routes = new ArrayList<>();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/audit-logs"), new MockHttpServletResponse(),
+        (request, response) -> routes.add(RequestDeadline.current().getRoute()));
+    filter.doFilter(new MockHttpServletRequest("POST", "/api/audit-logs"), new MockHttpServletResponse(),
+        (request, response) -> routes.add(RequestDeadline.current().getRoute()));
+    filter.doFilter(new MockHttpServletRequest("GET", "/auth/login"), new MockHttpServletResponse(),
+        (request, response) -> routes.add(RequestDeadline.current().getRoute()));
+
+    Assertions.assertEquals(List.of("GET /api/audit-logs/**", "/api/**", "default"), routes);
+    Assertions.assertNull(RequestDeadline.current());
+  }
+
+  @Test
+  void countsRequestsThatOutliveTheirBudget() throws Exception {
+    DeadlineProperties properties = new DeadlineProperties();
+    properties.setDefaultBudget(Duration.ZERO);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    RequestDeadlineFilter filter = new RequestDeadlineFilter(properties, registry);
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), new MockHttpServletResponse(),
+        (request, response) -> Assertions.assertThrows(DeadlineExceededException.class,
+            () -> RequestDeadline.current().check()));
+
+    Assertions.assertEquals(1.0, registry.get("request.deadline.exceeded").tag("route", "default").counter().count());
+  }
+
+  @Test
+  void statementTimeoutTracksRemainingBudget() {
+    List<Integer> timeouts = new ArrayList<>();
+    DeadlineJdbcTemplate jdbcTemplate = new DeadlineJdbcTemplate(dataSource(timeouts, new ArrayList<>()));
+
+    jdbcTemplate.execute("select 1");
+    RequestDeadline.begin("test", Duration.ofMillis(2500));
+    try {
+      jdbcTemplate.execute("select 1");
+      RequestDeadline.current().cancel();
+      Assertions.assertThrows(DeadlineExceededException.class, () -> jdbcTemplate.execute("select 1"));
+    } finally {
+      RequestDeadline.end();
+    }
+
+    Assertions.assertEquals(List.of(3), timeouts);
+  }
+
+  @Test
+  void completedStatementIsNotCancelled() {
+    List<String> cancelled = new ArrayList<>();
+    DeadlineJdbcTemplate jdbcTemplate = new DeadlineJdbcTemplate(dataSource(new ArrayList<>(), cancelled));
+
+    RequestDeadline.begin("test", Duration.ofSeconds(5));
+    try {
+      jdbcTemplate.execute("select 1");
+      RequestDeadline.current().cancel();
+    } finally {
+      RequestDeadline.end();
+    }
+
+    Assertions.assertEquals(List.of(), cancelled);
+  }
+
+  @Test
+  void streamedListingGetsStreamBudget() throws Exception {
+    DeadlineProperties properties = new DeadlineProperties();
+    properties.setStreamBudget(Duration.ofMinutes(2));
+    JsonArrayWriter writer = new JsonArrayWriter(new ObjectMapper(), properties);
+    List<Duration> remaining = new ArrayList<>();
+
+    RequestDeadline.begin("test", Duration.ofSeconds(1));
+    try {
+      writer.<String>write(new MockHttpServletResponse(),
+          sink -> remaining.add(RequestDeadline.current().remaining()));
+    } finally {
+      RequestDeadline.end();
+    }
+
+    Assertions.assertTrue(remaining.get(0).compareTo(Duration.ofMinutes(1)) > 0);
+  }
+
+  @Test
+  void listingFailingBeforeCommitIsResetForTheErrorHandler() throws Exception {
+    JsonArrayWriter writer = new JsonArrayWriter(new ObjectMapper(), new DeadlineProperties());
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    Assertions.assertThrows(DeadlineExceededException.class, () -> writer.<String>write(response, sink -> {
+      sink.accept("first");
+      throw new DeadlineExceededException("Request deadline exceeded", "test");
+    }));
+
+    Assertions.assertFalse(response.isCommitted());
+    Assertions.assertEquals("", response.getContentAsString());
+  }
+
+  @Test
+  void listingFailingAfterCommitIsNeverClosed() throws Exception {
+    JsonArrayWriter writer = new JsonArrayWriter(new ObjectMapper(), new DeadlineProperties());
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    response.setBufferSize(16);
+    String element = "x".repeat(64);
+
+    Assertions.assertThrows(StreamAbortedException.class, () -> writer.<String>write(response, sink -> {
+      for (int i = 0; i < 200; i++) {
+        sink.accept(element);
+      }
+      throw new DeadlineExceededException("Request deadline exceeded", "test");
+    }));
+
+    Assertions.assertTrue(response.isCommitted());
+    Assertions.assertFalse(response.getContentAsString().endsWith("]"));
+  }
+
+  private static DataSource dataSource(List<Integer> timeouts, List<String> cancelled) {
+    Statement statement = proxy(Statement.class, (method, args) -> {
+      if (method.equals("setQueryTimeout")) {
+        timeouts.add((Integer) args[0]);
+      }
+      if (method.equals("cancel")) {
+        cancelled.add(method);
+      }
+      return method.equals("getQueryTimeout") ? 0 : null;
+    });
+    Connection connection = proxy(Connection.class,
+        (method, args) -> method.equals("createStatement") ? statement : null);
+    return proxy(DataSource.class, (method, args) -> method.equals("getConnection") ? connection : null);
+  }
+
+  private interface Handler {
+    Object invoke(String method, Object[] args);
+  }
+
+  private static <T> T proxy(Class<T> type, Handler handler) {
+    return type.cast(Proxy.newProxyInstance(RequestDeadlineTest.class.getClassLoader(), new Class<?>[] {type},
+        (proxy, method, args) -> {
+          Object result = handler.invoke(method.getName(), args);
+          if (result == null && method.getReturnType() == boolean.class) {
+            return false;
+          }
+          if (result == null && method.getReturnType() == int.class) {
+            return 0;
+          }
+          return result;
+        }));
+  }
+}
@@ -0,0 +1,125 @@
+package com.example.library;
+
+import com.example.library.config.LaneProperties;
+import com.example.library.sqladapter.ConnectionQuotas;
+import com.example.library.sqladapter.InstrumentedDataSource;
+import com.example.library.sqladapter.Lane;
+import com.example.library.sqladapter.LaneQuotaExceededException;
+import com.example.library.web.limit.RoleLaneFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class RoleLaneTest {
+
+  @AfterEach
+  void clear() {
+    SecurityContextHolder.clearContext();
+    ConnectionQuotas.exit();
+  }
+
+  @Test
+  void saturatedMemberLaneStillAdmitsStaff() throws Exception {
+    LaneProperties properties = new LaneProperties();
+    properties.setQueueTimeout(Duration.ZERO);
+    properties.setMember(new LaneProperties.Quota(1, 1));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    RoleLaneFilter filter = new RoleLaneFilter(properties, new ObjectMapper(), registry);
+    MockHttpServletResponse member = new MockHttpServletResponse();
+    MockHttpServletResponse staff = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), new MockHttpServletResponse(),
+        (request, response) -> {
+          filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), member, (req, res) -> { });
+          authenticate("ROLE_LIBRARIAN");
+          filter.doFilter(new MockHttpServletRequest("POST", "/api/loans/1/return"), staff, (req, res) -> { });
+        });
+
+    Assertions.assertEquals(503, member.getStatus());
+    Assertions.assertEquals(200, staff.getStatus());
+    Assertions.assertEquals(1.0,
+        registry.get("lane.rejected").tag("lane", "member").tag("resource", "request").counter().count());
+  }
+
+  @Test
+  void connectionQuotaIsPerLaneAndReleasedOnClose() throws Exception {
+    LaneProperties properties = new LaneProperties();
+    properties.setQueueTimeout(Duration.ZERO);
+    properties.setMember(new LaneProperties.Quota(10, 1));
+    ConnectionQuotas quotas = new ConnectionQuotas(properties, 10, new SimpleMeterRegistry());
+    DataSource dataSource = new InstrumentedDataSource(pool(), () -> quotas);
+
+    ConnectionQuotas.enter(Lane.MEMBER);
+    Connection first = dataSource.getConnection();
+    Assertions.assertThrows(LaneQuotaExceededException.class, dataSource::getConnection);
+
+    ConnectionQuotas.enter(Lane.STAFF);
+    dataSource.getConnection().close();
+
+    ConnectionQuotas.enter(Lane.MEMBER);
+    first.close();
+    first.close();
+    Connection second = dataSource.getConnection();
+    Assertions.assertThrows(LaneQuotaExceededException.class, dataSource::getConnection);
+    second.close();
+  }
+
+  @Test
+  void threadsWithoutALaneShareTheBackgroundQuotaOnceReady() throws Exception {
+    LaneProperties properties = new LaneProperties();
+    properties.getBackground().setConnections(1);
+    properties.getBackground().setQueueTimeout(Duration.ZERO);
+    ConnectionQuotas quotas = new ConnectionQuotas(properties, 10, new SimpleMeterRegistry());
+    DataSource dataSource = new InstrumentedDataSource(pool(), () -> quotas);
+
+    ConnectionQuotas.exit();
+    Connection startup = dataSource.getConnection();
+    dataSource.getConnection().close();
+
+    quotas.limitBackground();
+    Connection first = dataSource.getConnection();
+    Assertions.assertThrows(LaneQuotaExceededException.class, dataSource::getConnection);
+    first.close();
+    dataSource.getConnection().close();
+    startup.close();
+  }
+
+  @Test
+  void rejectsQuotasThatLeaveNoStaffReserve() {
+    LaneProperties properties = new LaneProperties();
+    properties.setStaffReserve(3);
+    properties.setMember(new LaneProperties.Quota(10, 7));
+
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> new ConnectionQuotas(properties, 10, new SimpleMeterRegistry()));
+    properties.setMember(new LaneProperties.Quota(10, 5));
+    Assertions.assertDoesNotThrow(() -> new ConnectionQuotas(properties, 10, new SimpleMeterRegistry()));
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> new ConnectionQuotas(properties, 8, new SimpleMeterRegistry()));
+  }
+
+  private static void authenticate(String authority) {
+    SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+        "staff@example.com", null, List.of(new SimpleGrantedAuthority(authority))));
+  }
+
+  private static DataSource pool() {
+    return (DataSource) Proxy.newProxyInstance(RoleLaneTest.class.getClassLoader(), new Class<?>[] {DataSource.class},
+        (proxy, method, args) -> method.getName().equals("getConnection")
+            ? Proxy.newProxyInstance(RoleLaneTest.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (connection, call, callArgs) -> null)
+            : null);
+  }
+}
@@ -0,0 +1,84 @@
+package com.example.library;
+
+import com.example.library.config.SlowQueryProperties;
+import com.example.library.config.SqlAdapterProperties;
+import com.example.library.sqladapter.SlowQuery;
+import com.example.library.sqladapter.SlowQueryDetector;
+import com.example.library.sqladapter.SqlMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+class SlowQueryDetectorTest {
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(900);
+
+  @Test
+  void keepsOnlyStatementsOverThresholdWithRedactedParams() {
+    SlowQueryProperties properties = new SlowQueryProperties();
+    properties.setThreshold(Duration.ofMillis(500));
+    properties.setCapacity(2);
+    properties.setExplainSampleRate(0);
+    try (SlowQueryDetector detector = detector(properties, new RecordingJdbcTemplate())) {
+      detector.check("query", "select * from loans where member_id = :memberId", Map.of("memberId", 7L), 3,
+          TimeUnit.MILLISECONDS.toNanos(10));
+      detector.check("query", "select * from loans where member_id = :memberId", Map.of("memberId", 7L), 3, SLOW);
+      detector.check("execute", "update books set title = :title where id = :id",
+          Map.of("title", "secret"), 1, SLOW);
+      detector.check("query", "select * from audit_log", Map.of(), 50, SLOW);
+
+      List<SlowQuery> recent = detector.recent();
+      Assertions.assertEquals(2, recent.size());
+      Assertions.assertEquals("select * from audit_log", recent.get(0).sql());
+      Assertions.assertEquals(Map.of("title", "<String>"), recent.get(1).params());
+      Assertions.assertEquals(900, recent.get(1).durationMillis());
+    }
+  }
+
+  @Test
+  void attachesSampledPlanCapturedInBackground() throws InterruptedException {
+    SlowQueryProperties properties = new SlowQueryProperties();
+    properties.setExplainSampleRate(1);
+    RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+    try (SlowQueryDetector detector = detector(properties, jdbcTemplate)) {
+      detector.check("query", "select * from loans where member_id = :memberId", Map.of("memberId", 7L), 3, SLOW);
+      detector.check("transaction", "update loans set returned_at = now()", Map.of(), 1, SLOW);
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (detector.recent().get(1).plan() == null && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      Assertions.assertEquals("[{\"Plan\":{}}]", detector.recent().get(1).plan());
+      Assertions.assertNull(detector.recent().get(0).plan());
+      Assertions.assertEquals(
+          List.of("explain (analyze off, format json) select * from loans where member_id = :memberId"),
+          jdbcTemplate.explained);
+    }
+  }
+
+  private static SlowQueryDetector detector(SlowQueryProperties properties, NamedParameterJdbcTemplate jdbcTemplate) {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    return new SlowQueryDetector(jdbcTemplate, properties, new SqlMetrics(registry, new SqlAdapterProperties()),
+        registry);
+  }
+
+  private static final class RecordingJdbcTemplate extends NamedParameterJdbcTemplate {
+    private final List<String> explained = new CopyOnWriteArrayList<>();
+
+    RecordingJdbcTemplate() {
+      super(new JdbcTemplate());
+    }
+
+    @Override
+    public <T> T queryForObject(String sql, Map<String, ?> paramMap, Class<T> requiredType) {
+      explained.add(sql);
+      return requiredType.cast("[{\"Plan\":{}}]");
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.library;
+
+import com.example.library.config.SqlAdapterProperties;
+import com.example.library.sqladapter.SqlMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SqlMetricsTest {
+
+  @Test
+  void recordsTimerTaggedByFingerprintAndCaller() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    SqlMetrics metrics = new SqlMetrics(registry, new SqlAdapterProperties());
+
+    metrics.record("query", "select id from books where id = 1", 1_000_000, true);
+    metrics.record("query", "select  id from books\n where id = 2", 1_000_000, true);
+
+    Timer timer = registry.get("db.sql").tag("caller", "SqlMetricsTest.recordsTimerTaggedByFingerprintAndCaller").timer();
+    Assertions.assertEquals(2, timer.count());
+    Assertions.assertTrue(timer.getId().getTag("fingerprint").matches("[0-9a-f]{16}"));
+  }
+
+  @Test
+  void tagsEachCallSiteOfAStatementSeparately() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    SqlMetrics metrics = new SqlMetrics(registry, new SqlAdapterProperties());
+
+    metrics.record("query", "select id from books", 1_000_000, true);
+    recordBooksQuery(metrics);
+    recordBooksQuery(metrics);
+
+    Assertions.assertEquals(2, registry.get("db.sql").timers().size());
+    Assertions.assertEquals(1, registry.get("db.sql")
+        .tag("caller", "SqlMetricsTest.tagsEachCallSiteOfAStatementSeparately").timer().count());
+    Assertions.assertEquals(2, registry.get("db.sql").tag("caller", "SqlMetricsTest.recordBooksQuery").timer().count());
+  }
+
+  @Test
+  void overflowsToSharedTagPastLimit() {
+    SqlAdapterProperties properties = new SqlAdapterProperties();
+    properties.setMaxFingerprints(2);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    SqlMetrics metrics = new SqlMetrics(registry, properties);
+
+    metrics.record("query", "select a from t", 1, true);
+    metrics.record("query", "select b from t", 1, true);
+    metrics.record("query", "select c from t", 1, true);
+    metrics.record("query", "select d from t", 1, true);
+
+    Assertions.assertEquals(3, registry.get("db.sql").timers().size());
+    Assertions.assertEquals(2, registry.get("db.sql").tag("fingerprint", "other").timer().count());
+  }
+
+  private static void recordBooksQuery(SqlMetrics metrics) {
+    metrics.record("query", "select id from books", 1_000_000, true);
+  }
+}